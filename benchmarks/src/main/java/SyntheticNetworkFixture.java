@@ -0,0 +1,201 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+import benchmarks.SimulationFixture;
+
+/**
+ * SyntheticNetworkFixture.java
+ * A reproducible synthetic network for benchmarks. Stations are placed on a
+ * square lattice with each station nudged by up to one grid space, and every
+ * line the game allows is used: one snaking through every row, one snaking
+ * through every column, and the rest along diagonals. This is in the default
+ * package so it can use the game's classes.
+ * @author Suyu
+ * @version 1.0
+ */
+public class SyntheticNetworkFixture implements SimulationFixture {
+
+    // Constants
+    private static final int GRID_PIXELS = 6; // size of a grid space on the offscreen image
+    private static final int STATION_SPACING = 5; // grid spaces between lattice points, about the game's late spacing
+    private static final int EDGE = 2; // grid spaces around the lattice
+    private static final int WARMUP_TICKS = 500; // ticks run after building, so trains and passengers spread out
+    private static final int NUM_PAIRS = 1024; // station pairs for path finding, cycled through
+    private static final double TRANSFER_PENALTY_SECONDS = 2.0; // same as the game's journey planner
+    private static final double GRAVITY_EXPONENT = 2.0;
+    private static final int VIEW_W = 960; // size of the screen the camera shows part of the network on
+    private static final int VIEW_H = 540;
+
+    // Network
+    private long seed;
+    private ScreenGrid grid;
+    private Network network;
+
+    // Benchmark state
+    private Dijkstra dijkstra;
+    private JourneyPlanner journeyPlanner;
+    private int nextJourneyPair = 0;
+    private int nextOrigin = 0;
+    private Random demandRandom;
+    private Station[] pairStarts = new Station[NUM_PAIRS];
+    private Station[] pairEnds = new Station[NUM_PAIRS];
+    private int nextPair = 0;
+    private StationPoissonDisc stationPoissonDisc;
+    private MetroLine longestLine;
+    private NetworkRenderer renderer;
+    private Graphics2D graphics;
+    private Camera camera;
+    private NetworkRenderer viewRenderer;
+    private Graphics2D viewGraphics;
+    private int panDirection = 1;
+
+    public void build(int numStations, long seed){
+        this.seed = seed;
+        int side = (int) Math.ceil(Math.sqrt(numStations));
+        int gridUnits = (side - 1) * STATION_SPACING + EDGE * 2 + 1;
+        grid = new ScreenGrid(GRID_PIXELS, gridUnits * GRID_PIXELS, gridUnits * GRID_PIXELS, 0);
+        network = new Network(grid, seed, 0);
+        network.setDemandEscalation(false); // keep demand constant so long runs don't blow up
+        network.setStationGeneration(false); // keep the network the size it was built at
+        Random random = new Random(seed);
+
+        // stations on a jittered lattice, filled row by row
+        Station[][] lattice = new Station[side][side];
+        for(int i=0; i<numStations; i++){
+            int row = i / side;
+            int col = i % side;
+            lattice[row][col] = network.addStationAt(EDGE + col * STATION_SPACING + random.nextInt(3) - 1,
+                    EDGE + row * STATION_SPACING + random.nextInt(3) - 1);
+        }
+
+        // one line snaking through the rows and one through the columns
+        ArrayList<Station> rowSnake = new ArrayList<Station>();
+        ArrayList<Station> colSnake = new ArrayList<Station>();
+        for(int i=0; i<side; i++){
+            for(int j=0; j<side; j++){
+                int forward = (i % 2 == 0) ? j : side - 1 - j;
+                addIfPresent(rowSnake, lattice[i][forward]);
+                addIfPresent(colSnake, lattice[forward][i]);
+            }
+        }
+        addLine(rowSnake);
+        addLine(colSnake);
+
+        // the rest of the lines along diagonals in both directions
+        for(int offset=-side/3; offset<=side/3; offset+=Math.max(side/3, 1)){
+            ArrayList<Station> down = new ArrayList<Station>();
+            ArrayList<Station> up = new ArrayList<Station>();
+            for(int row=0; row<side; row++){
+                if((row + offset >= 0) && (row + offset < side)){
+                    addIfPresent(down, lattice[row][row + offset]);
+                    addIfPresent(up, lattice[row][side - 1 - row - offset]);
+                }
+            }
+            addLine(down);
+            addLine(up);
+        }
+        longestLine = network.getLines().getFirst();
+
+        for(int i=0; i<WARMUP_TICKS; i++){
+            network.updateGame();
+        }
+        network.publishSnapshot();
+
+        // path finding between random pairs of the lattice stations
+        dijkstra = new Dijkstra(network.getStations());
+        journeyPlanner = new JourneyPlanner(network, TRANSFER_PENALTY_SECONDS);
+        demandRandom = new Random(seed);
+        for(int i=0; i<NUM_PAIRS; i++){
+            pairStarts[i] = network.getStations().get(random.nextInt(numStations));
+            pairEnds[i] = network.getStations().get(random.nextInt(numStations));
+        }
+
+        resetStationPlacement();
+
+        renderer = new NetworkRenderer(grid);
+        BufferedImage image = new BufferedImage(grid.getScreenW(), grid.getScreenH(), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+        camera = new Camera(grid, VIEW_W, VIEW_H);
+        viewRenderer = new NetworkRenderer(grid, camera);
+        BufferedImage viewImage = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+        viewGraphics = viewImage.createGraphics();
+        viewGraphics.setColor(Color.WHITE);
+        viewGraphics.fillRect(0, 0, viewImage.getWidth(), viewImage.getHeight());
+    }
+
+    /**
+     * Adds a station to a list if there is one
+     * @param list    the list of stations
+     * @param station the station, or null if the lattice point is empty
+     */
+    private static void addIfPresent(ArrayList<Station> list, Station station){
+        if(station != null){
+            list.add(station);
+        }
+    }
+
+    /**
+     * Adds a line through stations in order, the same way the player draws one
+     * @param lineStations the stations of the line, in order
+     */
+    private void addLine(ArrayList<Station> lineStations){
+        if((lineStations.size() < 2) || (network.getLines().size() >= Network.MAX_LINES)){
+            return;
+        }
+        TempMetroLine tempLine = network.newTempLine(lineStations.get(0));
+        for(int i=1; i<lineStations.size(); i++){
+            tempLine.addRemoveStation(lineStations.get(i));
+        }
+        network.finalizeTempLine();
+    }
+
+    public Object dijkstraPath(){
+        nextPair = (nextPair + 1) & (NUM_PAIRS - 1);
+        return dijkstra.dijkstraPath(pairStarts[nextPair], pairEnds[nextPair]);
+    }
+
+    public Object journeyPlannerPath(){
+        nextJourneyPair = (nextJourneyPair + 1) & (NUM_PAIRS - 1);
+        return journeyPlanner.getPath(pairStarts[nextJourneyPair], pairEnds[nextJourneyPair]);
+    }
+
+    public void setGravityDemand(boolean gravity){
+        network.setDemandModel(gravity ? new GravityDemand(GRAVITY_EXPONENT) : null);
+    }
+
+    public int pickDestination(){
+        nextOrigin = (nextOrigin + 1) & (NUM_PAIRS - 1);
+        return network.getDestinationSampler().pickDestination(pairStarts[nextOrigin], demandRandom);
+    }
+
+    public void updateGame(){
+        network.updateGame();
+    }
+
+    public Object generateNewStationLocation(){
+        return stationPoissonDisc.generateNewStationLocation();
+    }
+
+    public void resetStationPlacement(){
+        stationPoissonDisc = new StationPoissonDisc(2.1, 3.5, network.getStations(), grid, new Random(seed));
+    }
+
+    public Object makePathWithPoints(){
+        return Path2DTools.makePathWithPoints(longestLine.getGeometry());
+    }
+
+    public void draw(){
+        renderer.draw(graphics, network.getSnapshot(), 0.5);
+    }
+
+    public void drawPanning(){
+        camera.pan(panDirection, 0);
+        panDirection = -panDirection;
+        viewRenderer.draw(viewGraphics, network.getSnapshot(), 0.5);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner.java
+ * Runs the benchmarks in one of two modes: throughput, which only measures
+ * operations per second, or alloc, which also runs the GC profiler to measure
+ * bytes allocated per operation.
+ *
+ * Usage: java -jar benchmarks.jar [throughput|alloc] [benchmark regex] [station counts]
+ * @author Suyu
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Prints how to use the runner and exits
+     */
+    private static void printUsageAndExit(){
+        System.out.println("Usage: java -jar benchmarks.jar [throughput|alloc] [benchmark regex] [station counts]");
+        System.out.println("  e.g. java -jar benchmarks.jar alloc Routing 100,10000");
+        System.exit(1);
+    }
+
+    /**
+     * Main method - runs the benchmarks
+     * @param args the mode, a regex of benchmarks to run, and a comma separated list
+     *             of network sizes, all optional
+     * @throws RunnerException if JMH fails to run the benchmarks
+     */
+    public static void main(String[] args) throws RunnerException{
+        if(args.length > 3){
+            printUsageAndExit();
+        }
+        String mode = "throughput";
+        if(args.length > 0){
+            mode = args[0];
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder();
+        if(args.length > 1){
+            options.include(args[1]);
+        }else{
+            options.include("benchmarks\\..*Benchmark\\..*");
+        }
+        if(args.length > 2){
+            options.param("numStations", args[2].split(","));
+        }
+
+        if(mode.equals("alloc")){
+            options.addProfiler(GCProfiler.class);
+        }else if(!mode.equals("throughput")){
+            printUsageAndExit();
+        }
+        new Runner(options.build()).run();
+    }
+}
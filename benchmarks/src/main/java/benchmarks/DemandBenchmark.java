@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DemandBenchmark.java
+ * Measures picking the destinations of new passengers, with every destination
+ * equally likely and with a gravity model. With a model, each origin's alias
+ * table is made the first time it is needed, during warmup. The tables of all
+ * the origins the fixture cycles through fit in the memory cap at every size,
+ * so picking should stay constant time as the network grows, only slowed by
+ * the tables no longer fitting in the processor's caches.
+ * @author Suyu
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DemandBenchmark {
+
+    /**
+     * A synthetic network picking destinations with one of the demand models,
+     * built once per trial for each network size and model
+     */
+    @State(Scope.Benchmark)
+    public static class DemandState {
+
+        @Param({"10", "100", "1000", "10000"})
+        public int numStations;
+
+        @Param({"42"})
+        public long seed;
+
+        @Param({"uniform", "gravity"})
+        public String demandModel;
+
+        public SimulationFixture fixture;
+
+        /**
+         * Builds the network and sets the demand model
+         */
+        @Setup(Level.Trial)
+        public void buildNetwork(){
+            fixture = Fixtures.create(numStations, seed);
+            fixture.setGravityDemand(demandModel.equals("gravity"));
+        }
+    }
+
+    @Benchmark
+    public int pickDestination(DemandState state){
+        return state.fixture.pickDestination();
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+/**
+ * Fixtures.java
+ * Creates SimulationFixtures by loading the implementation from the default package.
+ * @author Suyu
+ * @version 1.0
+ */
+public class Fixtures {
+
+    // Constants
+    private static final String FIXTURE_CLASS = "SyntheticNetworkFixture";
+
+    /**
+     * Creates and builds a new SimulationFixture
+     * @param numStations the number of stations in the network
+     * @param seed        the seed for all randomness in the network
+     * @return the built SimulationFixture
+     */
+    public static SimulationFixture create(int numStations, long seed){
+        SimulationFixture fixture;
+        try{
+            fixture = (SimulationFixture) Class.forName(FIXTURE_CLASS).getDeclaredConstructor().newInstance();
+        }catch(ReflectiveOperationException e){
+            throw new IllegalStateException("Could not load " + FIXTURE_CLASS, e);
+        }
+        fixture.build(numStations, seed);
+        return fixture;
+    }
+}
@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * NetworkState.java
+ * A synthetic network shared by all threads of a benchmark, built once per trial
+ * for each network size.
+ * @author Suyu
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class NetworkState {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int numStations;
+
+    @Param({"42"})
+    public long seed;
+
+    public SimulationFixture fixture;
+
+    /**
+     * Builds the network
+     */
+    @Setup(Level.Trial)
+    public void buildNetwork(){
+        fixture = Fixtures.create(numStations, seed);
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RenderBenchmark.java
+ * Measures drawing a whole frame of the network to an offscreen image, and
+ * drawing frames while panning a screen-sized view of the network, which should
+ * cost about the same however large the network is.
+ * @author Suyu
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    @Benchmark
+    public void draw(NetworkState state){
+        state.fixture.draw();
+    }
+
+    @Benchmark
+    public void drawPanning(NetworkState state){
+        state.fixture.drawPanning();
+    }
+}
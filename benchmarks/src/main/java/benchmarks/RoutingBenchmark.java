@@ -0,0 +1,35 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RoutingBenchmark.java
+ * Measures shortest path searches between random pairs of stations, by
+ * distance and by journey time with the journey planner.
+ * @author Suyu
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RoutingBenchmark {
+
+    @Benchmark
+    public Object dijkstraPath(NetworkState state){
+        return state.fixture.dijkstraPath();
+    }
+
+    @Benchmark
+    public Object journeyPlannerPath(NetworkState state){
+        return state.fixture.journeyPlannerPath();
+    }
+}
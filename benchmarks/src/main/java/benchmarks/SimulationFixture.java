@@ -0,0 +1,85 @@
+package benchmarks;
+
+/**
+ * SimulationFixture.java
+ * A synthetic network set up for benchmarking. The game's classes are all in the
+ * default package, which classes in a named package (like JMH benchmarks) can't
+ * refer to, so benchmarks go through this interface and the implementation is
+ * loaded by name.
+ * @author Suyu
+ * @version 1.0
+ */
+public interface SimulationFixture {
+
+    /**
+     * Builds a reproducible network of stations on a jittered square lattice,
+     * connected by all of the lines the game allows, and runs it for a short while
+     * so trains and passengers are spread out. No new stations are generated
+     * after it is built.
+     * @param numStations the number of stations in the network
+     * @param seed        the seed for all randomness in the network
+     */
+    void build(int numStations, long seed);
+
+    /**
+     * Finds the shortest path between the next of a fixed set of random pairs of stations
+     * @return the path found
+     */
+    Object dijkstraPath();
+
+    /**
+     * Plans the fastest journey, counting waits and transfers, between the next of
+     * the same fixed set of random pairs of stations
+     * @return the journey found
+     */
+    Object journeyPlannerPath();
+
+    /**
+     * Sets how the destinations of new passengers are picked
+     * @param gravity true to pick them with an inverse square gravity model, false
+     *                for every other station to be equally likely
+     */
+    void setGravityDemand(boolean gravity);
+
+    /**
+     * Picks a destination for a new passenger at the next of the same fixed set of
+     * random stations the path finding pairs start at
+     * @return the id of the destination picked
+     */
+    int pickDestination();
+
+    /**
+     * Runs one tick of the game
+     */
+    void updateGame();
+
+    /**
+     * Finds a location for a new station with the poisson disc algorithm, without
+     * adding the station
+     * @return the location found
+     */
+    Object generateNewStationLocation();
+
+    /**
+     * Starts station placement over, with every station an active sample again
+     */
+    void resetStationPlacement();
+
+    /**
+     * Makes the path used to draw the longest line in the network
+     * @return the path made
+     */
+    Object makePathWithPoints();
+
+    /**
+     * Draws the latest snapshot of the network to an offscreen image
+     */
+    void draw();
+
+    /**
+     * Moves a camera showing a screen-sized part of the network by a pixel, and
+     * draws the latest snapshot through it to an offscreen image the size of the
+     * screen, so the parts of the network in view have to be drawn again
+     */
+    void drawPanning();
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StationPlacementBenchmark.java
+ * Measures finding locations for new stations with the poisson disc algorithm.
+ * Every location found becomes an active sample, so placement is started over
+ * each iteration to keep iterations alike.
+ * @author Suyu
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StationPlacementBenchmark {
+
+    /**
+     * A network whose station placement starts over every iteration
+     */
+    public static class PlacementState extends NetworkState {
+
+        /**
+         * Starts station placement over
+         */
+        @Setup(Level.Iteration)
+        public void resetPlacement(){
+            fixture.resetStationPlacement();
+        }
+    }
+
+    @Benchmark
+    public Object generateNewStationLocation(PlacementState state){
+        return state.fixture.generateNewStationLocation();
+    }
+}
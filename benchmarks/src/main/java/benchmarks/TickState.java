@@ -0,0 +1,36 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * TickState.java
+ * A synthetic network for benchmarks that run the simulation, built again for
+ * every iteration. Running ticks changes the network, with passengers piling up
+ * wherever demand is more than the trains can carry, so every iteration starts
+ * from the same freshly built network to measure the same thing.
+ * @author Suyu
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class TickState {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int numStations;
+
+    @Param({"42"})
+    public long seed;
+
+    public SimulationFixture fixture;
+
+    /**
+     * Builds the network
+     */
+    @Setup(Level.Iteration)
+    public void buildNetwork(){
+        fixture = Fixtures.create(numStations, seed);
+    }
+}
@@ -0,0 +1,162 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TrainAllocationTest.java
+ * Checks that moving trains makes no garbage once their buffers have grown.
+ * Trains run on two lines that cross at one station, with passengers getting on
+ * and off and changing lines there. Then, again and again, a crowd of passengers
+ * is added at every station and the bytes the test thread allocates while the
+ * trains carry them are counted. A train still makes a new bucket the first time
+ * its passengers get off at more stations than ever before, which can take a
+ * while to happen, but a train only stops at so many stations, so one of the
+ * crowds must be carried without allocating. The test checks that passengers
+ * boarded and arrived while that crowd was carried, so the trains weren't just
+ * running empty.
+ * @author Suyu
+ * @version 1.0
+ */
+public class TrainAllocationTest {
+
+    // Constants
+    private static final int GRID_PIXELS = 16;
+    private static final int GRID_SPACES = 60;
+    private static final int NUM_STATIONS = 12; // on the first line, the second line has NUM_STATIONS/2 + 1
+    private static final int CROSSING = 5; // index on the first line of the station both lines stop at
+    private static final int NUM_TRAINS = 24; // split between the lines
+    private static final int WARMUP_TICKS = 20000;
+    private static final int MEASURED_TICKS = 2000;
+    private static final int MAX_CROWDS = 50; // crowds carried before giving up on one making no garbage
+    private static final int CROWD = 5; // passengers added at each station before the trains are measured, few enough to be carried
+
+    /**
+     * Builds a line through some stations and adds trains spread along it in both
+     * directions
+     * @param network  the network to build the line in
+     * @param stations the stations of the line, in order
+     * @param numTrains the number of trains the line should have
+     * @return the new line
+     */
+    private static MetroLine buildLine(Network network, Station[] stations, int numTrains){
+        TempMetroLine tempLine = network.newTempLine(stations[0]);
+        for(int i=1; i<stations.length; i++){
+            tempLine.addRemoveStation(stations[i]);
+        }
+        network.finalizeTempLine();
+
+        MetroLine line = network.getLines().getLast();
+        while(line.getTrains().size() < numTrains){
+            int index = line.getTrains().size() % stations.length;
+            line.getTrains().add(new Train(line, index, (index % 2 == 0) ? 1 : -1));
+        }
+        return line;
+    }
+
+    /**
+     * Builds a network with two zigzagging lines, one across the grid and one
+     * down it, that cross at one station
+     * @param network the network to build the lines in
+     * @return the two lines
+     */
+    private static MetroLine[] buildLines(Network network){
+        Station[] across = new Station[NUM_STATIONS];
+        for(int i=0; i<NUM_STATIONS; i++){
+            across[i] = network.addStationAt(3 + i*4, (i % 2 == 0) ? 5 : 9);
+        }
+        Station[] down = new Station[NUM_STATIONS/2 + 1];
+        for(int i=0; i<down.length; i++){
+            down[i] = (i == 1) ? across[CROSSING] : network.addStationAt((i % 2 == 0) ? 27 : 23, 1 + i*8);
+        }
+        return new MetroLine[]{buildLine(network, across, NUM_TRAINS/2), buildLine(network, down, NUM_TRAINS/2)};
+    }
+
+    /**
+     * Moves every train of some lines by one tick
+     * @param lines the lines whose trains move
+     */
+    private static void updateTrains(MetroLine[] lines){
+        for(MetroLine line:lines){
+            line.updateTrains();
+        }
+    }
+
+    @Test
+    public void updatingTrainsMakesNoGarbage(){
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        ScreenGrid grid = new ScreenGrid(GRID_PIXELS, GRID_SPACES * GRID_PIXELS, GRID_SPACES * GRID_PIXELS, 0);
+        Network network = new Network(grid, 42, 0);
+        network.setDemandEscalation(false);
+        network.setStationGeneration(false);
+        MetroLine[] lines = buildLines(network);
+
+        // passengers appear, board, transfer and arrive until most buffers have grown
+        for(int i=0; i<WARMUP_TICKS; i++){
+            network.updateGame();
+        }
+
+        // what reading the counter costs, taken off the measurement
+        long overhead = threads.getThreadAllocatedBytes(threadId);
+        overhead = threads.getThreadAllocatedBytes(threadId) - overhead;
+
+        long allocated = 0;
+        int waitingBefore = 0;
+        int deliveredBefore = 0;
+        for(int crowd=0; crowd<MAX_CROWDS; crowd++){
+            addCrowd(network);
+            waitingBefore = countWaiting(network);
+            deliveredBefore = network.getScore().getScore();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for(int i=0; i<MEASURED_TICKS; i++){
+                updateTrains(lines);
+            }
+            allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+            if(allocated == 0){
+                break;
+            }
+        }
+
+        assertTrue(countWaiting(network) != waitingBefore, "passengers boarded while measuring");
+        assertTrue(network.getScore().getScore() > deliveredBefore, "passengers arrived while measuring");
+        assertEquals(0.0, (double) allocated / ((long) NUM_TRAINS * MEASURED_TICKS), "bytes per train per tick");
+    }
+
+    /**
+     * Adds CROWD passengers at every station of a network, the same way the game
+     * adds new passengers
+     * @param network the network
+     */
+    private static void addCrowd(Network network){
+        IntList crowd = new IntList();
+        for(int i=0; i<CROWD; i++){
+            for(Station station:network.getStations()){
+                station.generatePassengers(100*Network.TICKS_PER_SECOND, crowd); // always makes one
+            }
+        }
+        network.getPassengerStore().findPaths(crowd);
+        for(int i=0; i<crowd.size(); i++){
+            int passenger = crowd.get(i);
+            network.getStations().get(network.getPassengerStore().getOrigin(passenger)).addNewPassenger(passenger);
+        }
+    }
+
+    /**
+     * Counts the passengers waiting at every station of a network
+     * @param network the network
+     * @return the number of passengers waiting at stations
+     */
+    private static int countWaiting(Network network){
+        int waiting = 0;
+        for(Station station:network.getStations()){
+            waiting += station.getNumPassengers();
+        }
+        return waiting;
+    }
+}
@@ -1,19 +1,15 @@
-import java.awt.Graphics;
-import java.awt.Color;
-
 /**
  * Alert.java
- * Class used for displaying alerts to the player
+ * Class used for alerts to the player. Stores the message and how long it should
+ * be shown for, NetworkRenderer draws it on the screen.
  * @author Suyu
  * @version 1.0
  */
-public class Alert extends DisplayedText {
-
-    // Constants
-    private final Color BG_COLOR = new Color(0,0,0, (float) 0.6);
-    private final int BG_BUFFER = 15;
+public class Alert {
 
     // Variables
+    private String text;
+    private int fontSize;
     private int frameDuration = -1;
     private int framesPassed = 0;
 
@@ -23,7 +19,8 @@ public class Alert extends DisplayedText {
      * @param fontSize the alert's font size
      */
     public Alert(String text, int fontSize){
-        super(text, fontSize, Color.WHITE);
+        this.text = text;
+        this.fontSize = fontSize;
     }
 
     /**
@@ -37,6 +34,22 @@ public class Alert extends DisplayedText {
         this.frameDuration = frameDuration;
     }
 
+    /**
+     * Gets the text of this alert
+     * @return the text of this alert
+     */
+    public String getText(){
+        return text;
+    }
+
+    /**
+     * Gets the font size of this alert
+     * @return the font size of this alert in pixels
+     */
+    public int getFontSize(){
+        return fontSize;
+    }
+
     /**
      * Returns whether or not the alert is over (the duration has passed)
      * @return true if the alert is over, false otherwise
@@ -56,16 +69,4 @@ public class Alert extends DisplayedText {
         framesPassed ++;
     }
 
-    /**
-     * Draws this alert on the screen
-     * @param g Graphics object to draw with
-     * @param grid ScreenGrid object of the game grid
-     */
-    public void draw(Graphics g, ScreenGrid grid){
-        g.setColor(BG_COLOR);
-        g.fillRect((grid.getScreenW() - super.getWidth()) / 2 - BG_BUFFER, (grid.getScreenH() - super.getHeight()) / 2 - BG_BUFFER,
-                super.getWidth() + BG_BUFFER * 2, super.getHeight() + BG_BUFFER * 2);
-        super.draw(g, grid.getScreenW()/2, grid.getScreenH()/2);
-    }
-
 }
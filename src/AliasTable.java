@@ -0,0 +1,117 @@
+import java.util.Random;
+
+/**
+ * AliasTable.java
+ * Walker's alias method for picking from a fixed set of weighted choices in
+ * constant time. Each of the n choices gets a column holding its own share of
+ * the weight and, filling the rest of the column, the spare weight of one other
+ * choice, its alias. Picking is one random number: which column it falls in,
+ * and whether it lands in the column's own share or the alias's.
+ *
+ * Tables are built with Vose's method, which fills columns from stacks of the
+ * choices with less and more than the average weight. Each column is packed
+ * into one long, the share as a float in the high 32 bits and the alias in the
+ * low 32 bits, so picking only reads one place in memory.
+ * @author Suyu
+ * @version 1.0
+ */
+public final class AliasTable {
+
+    // Columns
+    private final int size;
+    private final long[] columns; // fraction of each column that is its own choice, and the choice filling the rest
+
+    /**
+     * Builds a new AliasTable
+     * @param weights the weights of the choices, none negative and at least one
+     *                more than 0, which are used as scratch space and changed
+     * @param size    the number of choices, the first size weights
+     * @param small   scratch space for at least size ints
+     * @param large   scratch space for at least size ints
+     */
+    AliasTable(double[] weights, int size, int[] small, int[] large){
+        this.size = size;
+        columns = new long[size];
+
+        // scale the weights so the average is 1, and sort them into less and more than average
+        double total = 0;
+        for(int i=0; i<size; i++){
+            total += weights[i];
+        }
+        int numSmall = 0;
+        int numLarge = 0;
+        for(int i=0; i<size; i++){
+            weights[i] *= size/total;
+            if(weights[i] < 1.0){
+                small[numSmall] = i;
+                numSmall++;
+            }else{
+                large[numLarge] = i;
+                numLarge++;
+            }
+        }
+
+        // fill each small choice's column with weight from a large choice, which
+        // might become small itself
+        while((numSmall > 0) && (numLarge > 0)){
+            numSmall--;
+            int column = small[numSmall];
+            int alias = large[numLarge - 1];
+            columns[column] = pack(weights[column], alias);
+            weights[alias] -= 1.0 - weights[column];
+            if(weights[alias] < 1.0){
+                numLarge--;
+                small[numSmall] = alias;
+                numSmall++;
+            }
+        }
+
+        // whatever is left is only off from 1 by rounding error
+        while(numLarge > 0){
+            numLarge--;
+            columns[large[numLarge]] = pack(1.0, large[numLarge]);
+        }
+        while(numSmall > 0){
+            numSmall--;
+            columns[small[numSmall]] = pack(1.0, small[numSmall]);
+        }
+    }
+
+    /**
+     * Packs a column into a long
+     * @param share the fraction of the column that is its own choice
+     * @param alias the choice filling the rest of the column
+     * @return the share's float bits in the high 32 bits and the alias in the low 32 bits
+     */
+    private static long pack(double share, int alias){
+        return ((long) Float.floatToRawIntBits((float) share) << 32) | alias;
+    }
+
+    /**
+     * Picks a choice with probability proportional to its weight
+     * @param random the Random object to draw from
+     * @return the index of the choice picked
+     */
+    public int sample(Random random){
+        double u = random.nextDouble()*size;
+        int column = Math.min((int) u, size - 1);
+        long packed = columns[column];
+        return (u - column < Float.intBitsToFloat((int) (packed >>> 32))) ? column : (int) packed;
+    }
+
+    /**
+     * Gets the number of choices
+     * @return the number of choices this table picks from
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Gets the approximate memory used by this table
+     * @return the approximate number of bytes used by the table's array
+     */
+    public long getBytes(){
+        return 8L*size;
+    }
+}
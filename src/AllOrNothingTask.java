@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * AllOrNothingTask.java
+ * One share of an all-or-nothing loading of an assignment, run on a ForkJoinPool.
+ * Every passenger is put on the cheapest path to their destination under the
+ * current link costs, and the passengers using each link are counted. The
+ * destinations are dealt out to the tasks in turn, and each task counts into its
+ * own array of flows, so the tasks never write to the same memory.
+ *
+ * Each destination is one search backwards from the destination over the links,
+ * since link costs can be different in each direction. For the destinations the
+ * route weights keep trees for, the next station towards the destination from
+ * every station is kept too. A tree that is the same as the destination's tree
+ * in the previous loading is shared instead of copied.
+ * @author Suyu
+ * @version 1.0
+ */
+public class AllOrNothingTask extends RecursiveAction {
+
+    // Constants
+    private static final long serialVersionUID = 1L;
+
+    // The task's share of the loading
+    private AssignmentSnapshot snapshot;
+    private double[] linkCosts;
+    private int first; // index of the first destination in this task's share
+    private int stride; // number of tasks the destinations are dealt out to
+    private double[] flows; // passengers using each link, counted by this task only
+    private boolean[] keepTrees; // whether each destination's trees are kept, by index in the snapshot
+    private int[][] trees; // next stations of the kept trees of this loading, by destination id
+    private int[][] previousTrees; // kept trees of the previous loading, or null for the first loading
+    private int[] treeScratch; // next stations of the last search, before it's known whether it's new
+
+    // Data for searches
+    private IndexedMinHeap unsettledStations = new IndexedMinHeap(16);
+    private double[] costsToDestination;
+    private int[] nextLinks; // first link along the cheapest path from each station to the destination
+    private int[] reachedGeneration;
+    private int[] settledGeneration;
+    private int generation = 0;
+
+    /**
+     * Creates a new AllOrNothingTask for every stride-th destination of a snapshot
+     * @param snapshot the AssignmentSnapshot being assigned
+     * @param first    the index of the first destination this task loads
+     * @param stride   the number of tasks the loading is split into
+     * @param keepTrees whether the trees of each destination are kept, by index in
+     *                  the snapshot
+     */
+    public AllOrNothingTask(AssignmentSnapshot snapshot, int first, int stride, boolean[] keepTrees){
+        this.snapshot = snapshot;
+        this.first = first;
+        this.stride = stride;
+        this.keepTrees = keepTrees;
+        int n = snapshot.getNumStations();
+        flows = new double[snapshot.getNumLinks()];
+        treeScratch = new int[n];
+        costsToDestination = new double[n];
+        nextLinks = new int[n];
+        reachedGeneration = new int[n];
+        settledGeneration = new int[n];
+    }
+
+    /**
+     * Sets the link costs of the next loading and clears the flows counted by the
+     * last one, so the task can be run again with reinitialize()
+     * @param linkCosts     the cost of each link, which must not change while the task runs
+     * @param trees         the array the kept trees of this loading are put in, by
+     *                      destination id, shared with the other tasks of the loading
+     * @param previousTrees the kept trees of the previous loading, or null if this
+     *                      is the first loading
+     */
+    public void setLinkCosts(double[] linkCosts, int[][] trees, int[][] previousTrees){
+        this.linkCosts = linkCosts;
+        this.trees = trees;
+        this.previousTrees = previousTrees;
+        Arrays.fill(flows, 0.0);
+    }
+
+    /**
+     * Gets the flows counted by the last loading
+     * @return the number of passengers put on each link by this task
+     */
+    public double[] getFlows(){
+        return flows;
+    }
+
+    /**
+     * Loads this task's share of the destinations
+     */
+    protected void compute(){
+        for(int i=first; i<snapshot.getNumDestinations(); i+=stride){
+            int destination = snapshot.getDestination(i);
+            search(destination);
+            if(keepTrees[i]){
+                keepTree(destination);
+            }
+            for(int demand = snapshot.getDemandStart(i); demand < snapshot.getDemandStart(i + 1); demand++){
+                int station = snapshot.getDemandOrigin(demand);
+                if(reachedGeneration[station] != generation){ // can't reach the destination
+                    continue;
+                }
+                double amount = snapshot.getDemandAmount(demand);
+                for(int link = nextLinks[station]; link != -1; link = nextLinks[snapshot.getLinkTarget(link)]){
+                    flows[link] += amount;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the tree of the last search, sharing the previous loading's tree for the
+     * destination if it is the same
+     * @param destination the id of the destination the last search was from
+     */
+    private void keepTree(int destination){
+        for(int station=0; station<treeScratch.length; station++){
+            int link = nextLinks[station];
+            boolean reached = (reachedGeneration[station] == generation) && (link != -1);
+            treeScratch[station] = reached ? snapshot.getLinkTarget(link) : -1;
+        }
+        if((previousTrees != null) && Arrays.equals(treeScratch, previousTrees[destination])){
+            trees[destination] = previousTrees[destination];
+        }else{
+            trees[destination] = treeScratch.clone();
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm backwards from a destination over the whole network,
+     * finding the cheapest path to the destination from every station that can reach it
+     * @param destination the id of the destination station
+     */
+    private void search(int destination){
+        generation++;
+        costsToDestination[destination] = 0.0;
+        nextLinks[destination] = -1;
+        reachedGeneration[destination] = generation;
+        unsettledStations.addOrDecrease(destination, 0.0);
+
+        while(!unsettledStations.isEmpty()){
+            int closest = unsettledStations.poll();
+            settledGeneration[closest] = generation;
+
+            // a link leaving the closest station is the way back along the link coming into it
+            double costToClosest = costsToDestination[closest];
+            for(int link = snapshot.getFirstLink(closest); link < snapshot.getFirstLink(closest + 1); link++){
+                int neighbour = snapshot.getLinkTarget(link);
+                if(settledGeneration[neighbour] == generation){
+                    continue;
+                }
+                int linkToClosest = snapshot.getReverseLink(link);
+                double costViaClosest = costToClosest + linkCosts[linkToClosest];
+                if((reachedGeneration[neighbour] != generation) || (costViaClosest < costsToDestination[neighbour])){
+                    costsToDestination[neighbour] = costViaClosest;
+                    nextLinks[neighbour] = linkToClosest;
+                    reachedGeneration[neighbour] = generation;
+                    unsettledStations.addOrDecrease(neighbour, costViaClosest);
+                }
+            }
+        }
+    }
+}
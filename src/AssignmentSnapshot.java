@@ -0,0 +1,293 @@
+import java.util.Arrays;
+
+/**
+ * AssignmentSnapshot.java
+ * An immutable copy of what the capacity-aware assignment needs to know about the
+ * network, made by the simulation thread so the assignment can be solved on
+ * another thread without touching the network.
+ *
+ * Connections between stations are links going one way, numbered so the links
+ * leaving each station are next to each other in the same order as the station's
+ * connections. Each link has the length of the connection and a capacity, which
+ * is the number of seats on the trains of all lines running along it over
+ * ROUND_TRIPS round trips, since each train runs along each link once per round
+ * trip. The demand is everyone on the network at once, who are carried over many
+ * round trips, so counting only one round trip's seats would make every link
+ * look crowded and send passengers on long detours.
+ *
+ * The demand is every passenger on the network, counted by destination and by
+ * the station they're at, or on a train, the station the train is heading to.
+ * @author Suyu
+ * @version 1.0
+ */
+public final class AssignmentSnapshot {
+
+    // Constants
+    private static final int ROUND_TRIPS = 10; // round trips of seats counted as a link's capacity
+
+    // Links - links leaving station i are from firstLinks[i] to firstLinks[i+1]-1
+    private final int topologyVersion;
+    private final int numStations;
+    private final int[] firstLinks;
+    private final int[] linkTargets;
+    private final int[] reverseLinks; // link going the other way between the same stations
+    private final double[] linkLengths;
+    private final double[] linkCapacities;
+
+    // Demand - demand to destinations[i] is from demandStarts[i] to demandStarts[i+1]-1
+    private final int[] destinations;
+    private final int[] demandStarts;
+    private final int[] demandOrigins;
+    private final double[] demandAmounts;
+
+    /**
+     * Creates a new AssignmentSnapshot of the current state of a network. Must be
+     * called from the thread that updates the network.
+     * @param network    the Network to copy
+     * @param passengers a list to use while collecting passengers, which is cleared first
+     */
+    AssignmentSnapshot(Network network, IntList passengers){
+        topologyVersion = network.getTopologyVersion();
+
+        // links, in the order of each station's connections
+        numStations = network.getStations().size();
+        firstLinks = new int[numStations + 1];
+        for(int i=0; i<numStations; i++){
+            firstLinks[i + 1] = firstLinks[i] + network.getStations().get(i).getNumConnections();
+        }
+        int numLinks = firstLinks[numStations];
+        linkTargets = new int[numLinks];
+        linkLengths = new double[numLinks];
+        for(int i=0; i<numStations; i++){
+            Station station = network.getStations().get(i);
+            for(int j=0; j<station.getNumConnections(); j++){
+                linkTargets[firstLinks[i] + j] = station.getConnectionId(j);
+                linkLengths[firstLinks[i] + j] = station.getConnectionDistance(j);
+            }
+        }
+        reverseLinks = new int[numLinks];
+        for(int i=0; i<numStations; i++){
+            for(int link = firstLinks[i]; link < firstLinks[i + 1]; link++){
+                reverseLinks[link] = findLink(linkTargets[link], i);
+            }
+        }
+
+        // capacities, from the trains of each line running between its neighbouring stops
+        linkCapacities = new double[numLinks];
+        for(MetroLine line:network.getLines()){
+            double seats = line.getTrains().size() * Train.MAX_CAPACITY * ROUND_TRIPS;
+            Station previous = null;
+            for(Station stop:line.getStations()){
+                if(previous != null){
+                    int link = findLink(previous.getId(), stop.getId());
+                    linkCapacities[link] += seats;
+                    linkCapacities[reverseLinks[link]] += seats;
+                }
+                previous = stop;
+            }
+        }
+
+        // demand, sorted by destination then origin so passengers making the same journey can be counted together
+        PassengerStore passengerStore = network.getPassengerStore();
+        long[] journeys = new long[passengerStore.size()];
+        int numJourneys = 0;
+        for(Station station:network.getStations()){
+            passengers.clear();
+            station.addWaitingPassengersTo(passengers);
+            numJourneys = addJourneys(passengers, station.getId(), passengerStore, journeys, numJourneys);
+        }
+        for(MetroLine line:network.getLines()){
+            for(Train train:line.getTrains()){
+                passengers.clear();
+                train.getPassengers().copyTo(passengers);
+                numJourneys = addJourneys(passengers, train.getNextStation().getId(), passengerStore, journeys,
+                        numJourneys);
+            }
+        }
+        Arrays.sort(journeys, 0, numJourneys);
+
+        int numDestinations = 0;
+        int numOrigins = 0;
+        for(int i=0; i<numJourneys; i++){
+            if((i == 0) || ((journeys[i] >>> 32) != (journeys[i - 1] >>> 32))){
+                numDestinations++;
+            }
+            if((i == 0) || (journeys[i] != journeys[i - 1])){
+                numOrigins++;
+            }
+        }
+        destinations = new int[numDestinations];
+        demandStarts = new int[numDestinations + 1];
+        demandOrigins = new int[numOrigins];
+        demandAmounts = new double[numOrigins];
+        int destination = -1;
+        int origin = -1;
+        for(int i=0; i<numJourneys; i++){
+            if((i == 0) || ((journeys[i] >>> 32) != (journeys[i - 1] >>> 32))){
+                destination++;
+                destinations[destination] = (int) (journeys[i] >>> 32);
+                demandStarts[destination] = origin + 1;
+            }
+            if((i == 0) || (journeys[i] != journeys[i - 1])){
+                origin++;
+                demandOrigins[origin] = (int) journeys[i];
+            }
+            demandAmounts[origin]++;
+        }
+        demandStarts[numDestinations] = numOrigins;
+    }
+
+    /**
+     * Adds the journeys of some passengers to the array of journeys being collected
+     * @param passengers     the ids of the passengers
+     * @param stationId      the id of the station the passengers are at or heading to
+     * @param passengerStore the PassengerStore holding the passengers
+     * @param journeys       the array of journeys, each the destination in the high
+     *                       32 bits and the station in the low 32 bits
+     * @param numJourneys    the number of journeys already in the array
+     * @return the number of journeys in the array after adding these passengers'
+     */
+    private static int addJourneys(IntList passengers, int stationId, PassengerStore passengerStore, long[] journeys,
+            int numJourneys){
+        for(int i=0; i<passengers.size(); i++){
+            int destination = passengerStore.getDestination(passengers.get(i));
+            if((destination != -1) && (destination != stationId)){
+                journeys[numJourneys] = ((long) destination << 32) | stationId;
+                numJourneys++;
+            }
+        }
+        return numJourneys;
+    }
+
+    /**
+     * Finds the link between two connected stations
+     * @param fromId the id of the station the link leaves
+     * @param toId   the id of the station the link goes to
+     * @return the index of the link, or -1 if the stations aren't connected
+     */
+    private int findLink(int fromId, int toId){
+        for(int link = firstLinks[fromId]; link < firstLinks[fromId + 1]; link++){
+            if(linkTargets[link] == toId){
+                return link;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the topology version of the network when this snapshot was made
+     * @return the topology version the links are for
+     */
+    public int getTopologyVersion(){
+        return topologyVersion;
+    }
+
+    /**
+     * Gets the number of stations
+     * @return the number of stations when this snapshot was made
+     */
+    public int getNumStations(){
+        return numStations;
+    }
+
+    /**
+     * Gets the number of links
+     * @return the number of one-way links between stations
+     */
+    public int getNumLinks(){
+        return linkTargets.length;
+    }
+
+    /**
+     * Gets the first link leaving a station. The links leaving a station are in
+     * the same order as its connections.
+     * @param stationId the id of the station
+     * @return the index of the first link leaving the station, which is the index
+     *         after the last link if the station has no links
+     */
+    public int getFirstLink(int stationId){
+        return firstLinks[stationId];
+    }
+
+    /**
+     * Gets the station a link goes to
+     * @param link the index of the link
+     * @return the id of the station the link goes to
+     */
+    public int getLinkTarget(int link){
+        return linkTargets[link];
+    }
+
+    /**
+     * Gets the link going the other way between the same stations as a link
+     * @param link the index of the link
+     * @return the index of the link going the other way
+     */
+    public int getReverseLink(int link){
+        return reverseLinks[link];
+    }
+
+    /**
+     * Gets the length of a link
+     * @param link the index of the link
+     * @return the length of the link in grid units
+     */
+    public double getLinkLength(int link){
+        return linkLengths[link];
+    }
+
+    /**
+     * Gets the capacity of a link
+     * @param link the index of the link
+     * @return the number of seats on all trains running along the link over
+     *         ROUND_TRIPS round trips
+     */
+    public double getLinkCapacity(int link){
+        return linkCapacities[link];
+    }
+
+    /**
+     * Gets the number of destinations passengers are travelling to
+     * @return the number of distinct destinations
+     */
+    public int getNumDestinations(){
+        return destinations.length;
+    }
+
+    /**
+     * Gets a destination passengers are travelling to
+     * @param i the index of the destination, from 0 to getNumDestinations()-1
+     * @return the id of the destination station
+     */
+    public int getDestination(int i){
+        return destinations[i];
+    }
+
+    /**
+     * Gets the first demand to a destination. The demands to destination i are
+     * from getDemandStart(i) to getDemandStart(i+1)-1.
+     * @param i the index of the destination, from 0 to getNumDestinations()
+     * @return the index of the first demand to the destination
+     */
+    public int getDemandStart(int i){
+        return demandStarts[i];
+    }
+
+    /**
+     * Gets the station a demand starts at
+     * @param demand the index of the demand
+     * @return the id of the station the passengers are at
+     */
+    public int getDemandOrigin(int demand){
+        return demandOrigins[demand];
+    }
+
+    /**
+     * Gets the number of passengers making the journey of a demand
+     * @param demand the index of the demand
+     * @return the number of passengers
+     */
+    public double getDemandAmount(int demand){
+        return demandAmounts[demand];
+    }
+}
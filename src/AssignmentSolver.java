@@ -0,0 +1,169 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * AssignmentSolver.java
+ * Solves a capacity-aware assignment of the passengers in a snapshot with the
+ * method of successive averages, and returns the resulting route weights.
+ *
+ * Each iteration loads every passenger onto their cheapest path under the link
+ * costs of the last iteration's flows, then moves the flows a shrinking step
+ * towards that loading. The cost of a link grows with how crowded it is, by the
+ * usual BPR curve: length * (1 + ALPHA * (flow / capacity)^BETA). As the steps
+ * shrink, the flows settle where no passenger could take a cheaper path, so
+ * passengers between the same stations are spread over paths that cost about
+ * the same instead of all crowding onto the shortest one. With a step of 1/(k+1)
+ * at iteration k, the flows are the plain average of all of the loadings, so the
+ * route weights keep the trees each loading put passengers on. Trees are kept
+ * for the destinations with the most passengers, as many as fit in a memory cap
+ * even if every loading's tree is different.
+ *
+ * Runs on a ForkJoinPool, with each loading split into a fixed number of
+ * AllOrNothingTasks. The flows of the tasks are added up in the same order
+ * however many threads the pool has, so the same snapshot always gives the same
+ * weights.
+ * @author Suyu
+ * @version 1.0
+ */
+public class AssignmentSolver extends RecursiveTask<RouteWeights> {
+
+    // Constants
+    private static final long serialVersionUID = 1L;
+    private static final int ITERATIONS = 8;
+    private static final double ALPHA = 0.15;
+    private static final int BETA = 4;
+    private static final int MAX_TASKS = 16; // tasks each loading is split into, whatever the pool's size
+
+    // variables
+    private AssignmentSnapshot snapshot;
+    private int numTasks;
+    private long maxTreeBytes;
+
+    /**
+     * Creates a new AssignmentSolver
+     * @param snapshot     the AssignmentSnapshot to assign
+     * @param maxTreeBytes approximate memory cap of the trees kept by the route weights
+     */
+    public AssignmentSolver(AssignmentSnapshot snapshot, long maxTreeBytes){
+        this.snapshot = snapshot;
+        this.numTasks = Math.max(1, Math.min(MAX_TASKS, snapshot.getNumDestinations()));
+        this.maxTreeBytes = maxTreeBytes;
+    }
+
+    /**
+     * Solves the assignment
+     * @return the route weights, with the trees of every loading
+     */
+    protected RouteWeights compute(){
+        int numLinks = snapshot.getNumLinks();
+        boolean[] keepTrees = pickTreeDestinations();
+        AllOrNothingTask[] tasks = new AllOrNothingTask[numTasks];
+        for(int i=0; i<numTasks; i++){
+            tasks[i] = new AllOrNothingTask(snapshot, i, numTasks, keepTrees);
+        }
+
+        // start from everyone on their shortest path, then average in each new loading
+        double[] flows = new double[numLinks];
+        double[] linkCosts = new double[numLinks];
+        int[][][] trees = new int[ITERATIONS][snapshot.getNumStations()][];
+        for(int link=0; link<numLinks; link++){
+            linkCosts[link] = snapshot.getLinkLength(link);
+        }
+        load(tasks, linkCosts, trees[0], null);
+        addFlows(tasks, flows, 1.0);
+        for(int k=1; k<ITERATIONS; k++){
+            updateCosts(flows, linkCosts);
+            load(tasks, linkCosts, trees[k], trees[k - 1]);
+            double step = 1.0/(k + 1);
+            for(int link=0; link<numLinks; link++){
+                flows[link] *= 1.0 - step;
+            }
+            addFlows(tasks, flows, step);
+        }
+
+        double maxLoad = updateCosts(flows, linkCosts);
+        return new RouteWeights(snapshot.getTopologyVersion(), trees, maxLoad);
+    }
+
+    /**
+     * Picks the destinations whose trees are kept: the ones the most passengers are
+     * heading to, as many as fit in the memory cap if every loading's tree were
+     * different. Ties go to the destination with the lower id.
+     * @return whether the trees of each destination are kept, by index in the snapshot
+     */
+    private boolean[] pickTreeDestinations(){
+        int numDestinations = snapshot.getNumDestinations();
+        long treeBytes = (long) ITERATIONS * 4 * Math.max(1, snapshot.getNumStations());
+        long maxDestinations = maxTreeBytes/treeBytes;
+
+        // sort by passengers, most first, with the index in the low bits
+        long[] order = new long[numDestinations];
+        for(int i=0; i<numDestinations; i++){
+            long passengers = 0;
+            for(int demand = snapshot.getDemandStart(i); demand < snapshot.getDemandStart(i + 1); demand++){
+                passengers += (long) snapshot.getDemandAmount(demand);
+            }
+            order[i] = ((Integer.MAX_VALUE - Math.min(passengers, Integer.MAX_VALUE)) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        boolean[] keepTrees = new boolean[numDestinations];
+        for(int i=0; (i < numDestinations) && (i < maxDestinations); i++){
+            keepTrees[(int) order[i]] = true;
+        }
+        return keepTrees;
+    }
+
+    /**
+     * Runs an all-or-nothing loading under some link costs
+     * @param tasks         the tasks the loading is split into
+     * @param linkCosts     the cost of each link
+     * @param trees         the array to put the kept trees of the loading in, by destination id
+     * @param previousTrees the kept trees of the previous loading, or null for the first loading
+     */
+    private void load(AllOrNothingTask[] tasks, double[] linkCosts, int[][] trees, int[][] previousTrees){
+        for(AllOrNothingTask task:tasks){
+            task.reinitialize();
+            task.setLinkCosts(linkCosts, trees, previousTrees);
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    /**
+     * Adds the flows counted by the tasks of the last loading to the total flows
+     * @param tasks  the tasks of the last loading
+     * @param flows  the total flow on each link
+     * @param weight what each task's flows are multiplied by before being added
+     */
+    private void addFlows(AllOrNothingTask[] tasks, double[] flows, double weight){
+        for(AllOrNothingTask task:tasks){
+            double[] taskFlows = task.getFlows();
+            for(int link=0; link<flows.length; link++){
+                flows[link] += weight*taskFlows[link];
+            }
+        }
+    }
+
+    /**
+     * Sets each link's cost from its flow. Links with no trains keep their length,
+     * since no one can ride them until trains are added.
+     * @param flows     the flow on each link
+     * @param linkCosts the array to fill with the cost of each link
+     * @return the highest flow over all links, as a fraction of the link's capacity
+     */
+    private double updateCosts(double[] flows, double[] linkCosts){
+        double maxLoad = 0;
+        for(int link=0; link<flows.length; link++){
+            double capacity = snapshot.getLinkCapacity(link);
+            if(capacity <= 0){
+                linkCosts[link] = snapshot.getLinkLength(link);
+                continue;
+            }
+            double load = flows[link]/capacity;
+            linkCosts[link] = snapshot.getLinkLength(link)*(1 + ALPHA*Math.pow(load, BETA));
+            maxLoad = Math.max(maxLoad, load);
+        }
+        return maxLoad;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Camera.java
+ * Moves the part of the map shown on the screen. The map can be panned and
+ * zoomed from as far out as fits the whole map on the screen to MAX_ZOOM, and
+ * is always kept on the screen: a map smaller than the screen is centered, and
+ * a larger one can't be panned past its edges.
+ *
+ * The camera is moved from the UI thread and read from the drawing thread, so
+ * each move publishes a new immutable Viewport.
+ * @author Suyu
+ * @version 1.0
+ */
+public class Camera {
+
+    // Constants
+    public static final double MAX_ZOOM = 4;
+
+    // Size of the map in pixels
+    private double mapW, mapH;
+
+    // variables
+    private double minZoom;
+    private volatile Viewport viewport;
+
+    /**
+     * Creates a new Camera centered on the map at a zoom of 1, or zoomed out far
+     * enough to fit the map if it is smaller than the screen
+     * @param grid    ScreenGrid object representing the game grid, whose screen size is the size of the map
+     * @param screenW the width of the screen in pixels
+     * @param screenH the height of the screen in pixels
+     */
+    public Camera(ScreenGrid grid, int screenW, int screenH){
+        this.mapW = grid.getScreenW();
+        this.mapH = grid.getScreenH();
+        this.minZoom = Math.min(1, Math.min(screenW / mapW, screenH / mapH));
+        viewport = clamp(new Viewport((mapW - screenW) / 2, (mapH - screenH) / 2, 1, screenW, screenH));
+    }
+
+    /**
+     * Gets the part of the map currently shown on the screen
+     * @return the current Viewport
+     */
+    public Viewport getViewport(){
+        return viewport;
+    }
+
+    /**
+     * Moves the map across the screen
+     * @param dx how far to move the map to the right, in screen pixels
+     * @param dy how far to move the map down, in screen pixels
+     */
+    public synchronized void pan(double dx, double dy){
+        Viewport view = viewport;
+        viewport = clamp(new Viewport(view.getLeft() - dx / view.getZoom(), view.getTop() - dy / view.getZoom(),
+                view.getZoom(), view.getWidth(), view.getHeight()));
+    }
+
+    /**
+     * Zooms in or out, keeping the point of the map under a point on the screen
+     * where it is
+     * @param factor  how much to multiply the zoom by, more than 1 to zoom in
+     * @param screenX the x coordinate on the screen to zoom around
+     * @param screenY the y coordinate on the screen to zoom around
+     */
+    public synchronized void zoomAt(double factor, int screenX, int screenY){
+        Viewport view = viewport;
+        double zoom = Math.max(minZoom, Math.min(MAX_ZOOM, view.getZoom() * factor));
+        double mapX = view.getLeft() + screenX / view.getZoom();
+        double mapY = view.getTop() + screenY / view.getZoom();
+        viewport = clamp(new Viewport(mapX - screenX / zoom, mapY - screenY / zoom, zoom,
+                view.getWidth(), view.getHeight()));
+    }
+
+    /**
+     * Keeps a viewport on the map, centering the map on any side where it is
+     * smaller than the screen
+     * @param view the Viewport to keep on the map
+     * @return the Viewport moved onto the map
+     */
+    private Viewport clamp(Viewport view){
+        double visibleW = view.getWidth() / view.getZoom();
+        double visibleH = view.getHeight() / view.getZoom();
+        double left, top;
+        if(visibleW >= mapW){
+            left = (mapW - visibleW) / 2;
+        }else{
+            left = Math.max(0, Math.min(mapW - visibleW, view.getLeft()));
+        }
+        if(visibleH >= mapH){
+            top = (mapH - visibleH) / 2;
+        }else{
+            top = Math.max(0, Math.min(mapH - visibleH, view.getTop()));
+        }
+        return new Viewport(left, top, view.getZoom(), view.getWidth(), view.getHeight());
+    }
+}
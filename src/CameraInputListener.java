@@ -0,0 +1,80 @@
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import javax.swing.SwingUtilities;
+import javax.swing.event.MouseInputAdapter;
+
+/**
+ * CameraInputListener.java
+ * A MouseListener used to move the Camera: dragging with the right or middle
+ * mouse button pans the map, and the scroll wheel zooms in and out around the
+ * mouse. The left mouse button is left for editing lines.
+ * @author Suyu
+ * @version 1.0
+ **/
+public class CameraInputListener extends MouseInputAdapter {
+
+  // Constants
+  private static final double ZOOM_STEP = 1.25; // zoom factor per notch of the scroll wheel
+
+  // The camera being moved
+  private Camera camera;
+
+  // variables
+  private boolean panning = false;
+  private int lastX, lastY; // last mouse position while panning
+
+  /**
+   * Creates a new CameraInputListener for a Camera
+   * @param camera the Camera this CameraInputListener moves
+   */
+  CameraInputListener(Camera camera){
+    this.camera = camera;
+  }
+
+  /**
+   * Invoked on mouse button presses. Starts panning if the right or middle
+   * button is pressed.
+   * @param e the MouseEvent
+   */
+  public void mousePressed(MouseEvent e) {
+    if(SwingUtilities.isRightMouseButton(e) || SwingUtilities.isMiddleMouseButton(e)){
+      panning = true;
+      lastX = e.getX();
+      lastY = e.getY();
+    }
+  }
+
+  /**
+   * Invoked on mouse button releases. Stops panning if the right or middle
+   * button is released.
+   * @param e the MouseEvent
+   */
+  public void mouseReleased(MouseEvent e) {
+    if(SwingUtilities.isRightMouseButton(e) || SwingUtilities.isMiddleMouseButton(e)){
+      panning = false;
+    }
+  }
+
+  /**
+   * Invoked when the mouse is dragged (moved while button held down). Moves the
+   * map along with the mouse while panning.
+   * @param e the MouseEvent
+   */
+  public void mouseDragged(MouseEvent e) {
+    if(panning){
+      camera.pan(e.getX() - lastX, e.getY() - lastY);
+      lastX = e.getX();
+      lastY = e.getY();
+    }
+  }
+
+  /**
+   * Invoked when the scroll wheel is turned. Zooms in when scrolling up and out
+   * when scrolling down, keeping the point under the mouse where it is.
+   * @param e the MouseWheelEvent
+   */
+  public void mouseWheelMoved(MouseWheelEvent e) {
+    camera.zoomAt(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+  }
+
+}
@@ -0,0 +1,218 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * CapacityAssignment.java
+ * Finds paths that take into account how crowded the network is. Every few
+ * seconds, a snapshot of the network and its passengers is handed to an
+ * AssignmentSolver running on a pool of worker threads, which solves route
+ * weights making crowded connections cost more. The weights are picked up when
+ * the next solve is due, if the solver has finished and they are for the current
+ * network. From then on each new passenger heading to a destination the weights
+ * have trees for follows the tree of one of the assignment's loadings, picked at
+ * random, so passengers between the same stations are split over paths in the
+ * same proportions as the solved flows instead of all taking the shortest one.
+ * Picking a path is a walk along the tree, and the paths depend on the random
+ * pick, so they are never cached. Until the first weights arrive, whenever the
+ * network has changed since they were solved, and for destinations without
+ * trees, paths are found by the fallback PathFinder.
+ *
+ * The simulation never waits for the solver: if it hasn't finished when its
+ * weights are due, the old weights are kept and it is checked again a solve
+ * interval later. When the solver finishes then depends on how busy the
+ * computer is, so a deterministic assignment can be asked for instead, which
+ * waits for the solver when its weights are due. Since the weights are then
+ * always picked up at the same tick, and solved the same way however many
+ * worker threads there are, a network using a deterministic assignment plays
+ * out the same way every time for the same seed and edits.
+ * @author Suyu
+ * @version 1.0
+ */
+public class CapacityAssignment implements PathFinder {
+
+    // Constants
+    private static final int SOLVE_INTERVAL_TICKS = Network.TICKS_PER_SECOND*5; // ticks between starting solves
+
+    // references to network stuff
+    private Network network;
+    private PathFinder fallback;
+    private long maxTreeBytes;
+
+    // variables
+    private boolean enabled = false;
+    private boolean deterministic = false;
+    private ForkJoinPool workers; // made when first turned on
+    private RouteWeights weights; // weights paths are found with, null if the fallback is used
+    private ForkJoinTask<RouteWeights> solving; // solve that hasn't been picked up yet, or null
+    private int nextSolveTick = 0; // tick the current solve is picked up and the next one started
+    private IntList passengers = new IntList(); // used while making snapshots
+
+    // Statistics
+    private int solvesStarted = 0;
+    private int weightsAdopted = 0;
+    private int solvesNotReady = 0;
+
+    /**
+     * Creates a new CapacityAssignment, turned off
+     * @param network      the Network whose passengers are assigned
+     * @param fallback     the PathFinder used when there are no weights for the
+     *                     current network or no trees for a destination
+     * @param maxTreeBytes approximate memory cap of the trees kept by each set of
+     *                     route weights
+     */
+    public CapacityAssignment(Network network, PathFinder fallback, long maxTreeBytes){
+        this.network = network;
+        this.fallback = fallback;
+        this.maxTreeBytes = maxTreeBytes;
+    }
+
+    /**
+     * Turns the assignment on or off. While off, every path is found by the
+     * fallback PathFinder and no solves are started.
+     * @param enabled true to find paths with the solved route weights
+     */
+    public void setEnabled(boolean enabled){
+        if(enabled && (workers == null)){
+            workers = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        if(!enabled){
+            weights = null;
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the assignment is turned on
+     * @return true if the assignment is on, even if it has no weights yet
+     */
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Sets whether the simulation waits for a solve that hasn't finished when its
+     * weights are due, so the weights are always picked up at the same tick
+     * @param deterministic true to wait for the solver, false to keep the old
+     *                      weights until the solver has finished
+     */
+    public void setDeterministic(boolean deterministic){
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Returns whether paths are currently found with solved route weights
+     * @return true if the assignment is on and has weights for the current network
+     */
+    public boolean isActive(){
+        return enabled && (weights != null) && (weights.getTopologyVersion() == network.getTopologyVersion());
+    }
+
+    /**
+     * Returns whether paths to a destination are currently picked from the trees of
+     * the solved route weights
+     * @param destinationId the id of the destination station
+     * @return true if the assignment is active and has trees for the destination
+     */
+    public boolean picksPathsTo(int destinationId){
+        return isActive() && weights.hasTrees(destinationId);
+    }
+
+    /**
+     * Every solve interval, picks up the weights of the last solve if they are for
+     * the current network and starts a new solve. If the last solve hasn't finished,
+     * keeps the old weights and checks again at the next interval, unless the
+     * assignment is deterministic, in which case it waits for the solve. Must be
+     * called from the simulation thread at the start of each tick.
+     */
+    public void update(){
+        if(!enabled || (network.getTick() < nextSolveTick)){
+            return;
+        }
+        nextSolveTick = network.getTick() + SOLVE_INTERVAL_TICKS;
+        if(solving != null){
+            if(!deterministic && !solving.isDone()){
+                solvesNotReady++;
+                return;
+            }
+            RouteWeights solved = solving.join(); // rethrows anything thrown by the solver
+            solving = null;
+            if(solved.getTopologyVersion() == network.getTopologyVersion()){
+                weights = solved;
+                weightsAdopted++;
+            }
+        }
+
+        AssignmentSnapshot snapshot = new AssignmentSnapshot(network, passengers);
+        solving = workers.submit(new AssignmentSolver(snapshot, maxTreeBytes));
+        solvesStarted++;
+    }
+
+    /**
+     * Finds a path between two stations for one passenger by following the tree
+     * towards the destination of a loading of the latest route weights, picked with
+     * the network's random number generator. Uses the fallback PathFinder if there
+     * are no weights for the current network or no trees for the destination.
+     * @param start the starting station
+     * @param end   the ending station
+     * @return an ArrayList of stations to travel along to get from start to end,
+     *         or null if there is no path between the stations
+     */
+    public ArrayList<Station> getPath(Station start, Station end){
+        if(!picksPathsTo(end.getId())){
+            return fallback.getPath(start, end);
+        }
+        int loading = network.getRandom().nextInt(weights.getNumLoadings());
+        int[] tree = weights.getTree(loading, end.getId());
+        int startId = start.getId();
+        if(startId >= tree.length){ // added since the snapshot, so not connected to anything
+            return fallback.getPath(start, end);
+        }
+
+        // count the stations first so the list is allocated once at the right size
+        int length = 1;
+        for(int id = startId; id != end.getId(); id = tree[id]){
+            if(tree[id] == -1){
+                return null;
+            }
+            length++;
+        }
+        ArrayList<Station> path = new ArrayList<Station>(length);
+        for(int id = startId; id != -1; id = tree[id]){
+            path.add(network.getStations().get(id));
+        }
+        return path;
+    }
+
+    /**
+     * Gets the route weights paths are currently found with
+     * @return the adopted RouteWeights, or null if none have been adopted
+     */
+    public RouteWeights getWeights(){
+        return weights;
+    }
+
+    /**
+     * Gets the number of solves started
+     * @return the number of snapshots handed to the solver
+     */
+    public int getSolvesStarted(){
+        return solvesStarted;
+    }
+
+    /**
+     * Gets the number of times new weights were picked up
+     * @return the number of route weights adopted
+     */
+    public int getWeightsAdopted(){
+        return weightsAdopted;
+    }
+
+    /**
+     * Gets the number of times a solve hadn't finished when its weights were due
+     * @return the number of times the old weights were kept for another interval
+     */
+    public int getSolvesNotReady(){
+        return solvesNotReady;
+    }
+}
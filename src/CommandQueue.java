@@ -0,0 +1,98 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * CommandQueue.java
+ * A bounded, lock-free queue with any number of producer threads and a single
+ * consumer thread. Used to hand commands from the UI thread to the simulation
+ * thread without either of them blocking.
+ *
+ * The queue is a ring buffer where each slot has a sequence number. A producer
+ * claims a slot by advancing the shared tail with a compare-and-set, writes its
+ * command, and then publishes the slot by setting its sequence. The consumer
+ * only reads a slot once its sequence says it has been published, and hands the
+ * slot back to producers a full lap later by setting its sequence again.
+ * @author Suyu
+ * @version 1.0
+ */
+public class CommandQueue<T> {
+
+    // Ring buffer
+    private final int mask; // capacity - 1, capacity is a power of 2
+    private final AtomicReferenceArray<T> buffer;
+    private final AtomicLongArray sequences; // slot is free for position p when its sequence is p, full when p+1
+
+    // Positions
+    private final AtomicLong tail = new AtomicLong(); // next position to write, shared by producers
+    private long head = 0; // next position to read, only used by the consumer
+
+    /**
+     * Creates a new empty CommandQueue
+     * @param capacity the minimum number of commands the queue can hold, rounded
+     *                 up to a power of 2
+     */
+    public CommandQueue(int capacity){
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mask = size - 1;
+        buffer = new AtomicReferenceArray<T>(size);
+        sequences = new AtomicLongArray(size);
+        for(int i=0; i<size; i++){
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a command to the end of the queue. Safe to call from any thread.
+     * @param command the command to add, not null
+     * @return true if the command was added, false if the queue is full
+     */
+    public boolean offer(T command){
+        long position = tail.get();
+        while(true){
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if(difference == 0){
+                // slot is free for this position, try to claim it
+                if(tail.compareAndSet(position, position + 1)){
+                    buffer.lazySet(index, command);
+                    sequences.lazySet(index, position + 1); // publish after the command is written
+                    return true;
+                }
+                position = tail.get();
+            }else if(difference < 0){
+                // slot still holds the command from a lap ago, so the queue is full
+                return false;
+            }else{
+                // another producer claimed this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the command at the front of the queue. Must only be called from the
+     * consumer thread.
+     * @return the command at the front of the queue, or null if the queue is empty
+     *         (or the next command has been claimed but not published yet)
+     */
+    public T poll(){
+        int index = (int) (head & mask);
+        if(sequences.get(index) != head + 1){
+            return null;
+        }
+        T command = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.lazySet(index, head + mask + 1); // free the slot for the producer one lap later
+        head++;
+        return command;
+    }
+
+    /**
+     * Gets the maximum number of commands this queue can hold
+     * @return the capacity of this queue
+     */
+    public int getCapacity(){
+        return mask + 1;
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * DemandModel.java
+ * How likely passengers appearing at a station are to travel to each other
+ * station, used by the DestinationSampler to pick passengers' destinations.
+ * @author Suyu
+ * @version 1.0
+ */
+public interface DemandModel {
+
+    /**
+     * Gets how much demand there is for journeys from one station to another,
+     * relative to the demand from the same station to other stations
+     * @param origin      the station the passenger appears at
+     * @param destination a station other than the origin
+     * @return the weight of the journey, 0 if passengers never make it
+     */
+    public double getWeight(Station origin, Station destination);
+}
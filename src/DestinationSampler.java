@@ -0,0 +1,469 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * DestinationSampler.java
+ * Picks the destinations of new passengers in constant time. Without a demand
+ * model, every other station is equally likely, and one random number picks
+ * among the stations other than the origin directly. With a demand model, each
+ * origin gets an AliasTable of the weights of its journeys.
+ *
+ * To keep tables small, stations are put into square bins as they are added.
+ * Stations in the bins around the origin are choices of their own, and every
+ * further bin is one choice, weighted by its number of stations times the
+ * highest weight of a journey to one of them. Picking a further bin then picks
+ * one of its stations at random and keeps it with a chance of its weight over
+ * the bin's highest, or starts again, so every station is picked in proportion
+ * to its weight. Far from the origin, the weights in a bin are close, so few
+ * picks are thrown away.
+ *
+ * Tables are made when a station first needs one. Stations added since a table
+ * was made are picked from alongside the table, with their weights found the
+ * first time the table is used after they are added, so adding a station never
+ * remakes a table. Once too many stations have been added, the table is remade
+ * the next time it is needed. Changing the model marks every table as out of
+ * date. If the tables would use more than their memory cap, the ones used least
+ * recently are dropped, one at a time, until the new table fits.
+ * @author Suyu
+ * @version 1.0
+ */
+public class DestinationSampler {
+
+    // Constants
+    private static final int BIN_SIZE = 16; // grid spaces along each side of a bin
+    private static final int MAX_ADDED_STATIONS = 32; // stations added since a table was made before it's remade
+
+    // references to network stuff
+    private ArrayList<Station> stations; // ArrayList of all stations, index in list is the station id
+
+    // variables
+    private DemandModel model; // null if every destination is equally likely
+    private int version = 0; // incremented whenever the tables go out of date
+
+    // Bins
+    private int cols, rows;
+    private int[] cellBins; // bin of each square of the grid, -1 if no station has been added there
+    private int[] binCols = new int[16];
+    private int[] binRows = new int[16];
+    private IntList[] binStations = new IntList[16]; // ids of the stations in each bin, in the order they were added
+    private int numBins = 0;
+    private int[] stationBins = new int[16];
+
+    // Tables by origin id
+    private AliasTable[] tables = new AliasTable[0]; // null if the origin has no demand or no table
+    private long[][] tableChoices = new long[0][]; // each choice, packed by packChoice(), null if there is no table
+    private double[] tableWeights = new double[0]; // total weight of the choices
+    private int[] tableStations = new int[0]; // number of stations when each table was made
+    private int[] tableVersions = new int[0]; // version each table was made in
+    private long[] tableBytes = new long[0];
+    private double[][] addedWeights = new double[0][]; // weights of the stations added since the table was made
+    private double[] addedTotals = new double[0];
+    private int[] addedCounted = new int[0]; // number of stations whose weights are in the table or added weights
+
+    // Tables from most to least recently used
+    private int[] newerTables = new int[0];
+    private int[] olderTables = new int[0];
+    private int newestTable = -1;
+    private int oldestTable = -1;
+    private long maxBytes;
+    private long usedBytes = 0;
+    private int tablesBuilt = 0;
+    private int tablesDropped = 0;
+
+    // Scratch space for making tables
+    private double[] weights = new double[0];
+    private long[] choices = new long[0];
+    private int[] small = new int[0];
+    private int[] large = new int[0];
+
+    /**
+     * Creates a new DestinationSampler where every destination is equally likely
+     * @param stations the ArrayList of all stations in the network
+     * @param grid     ScreenGrid object representing the game grid
+     * @param maxBytes the approximate memory cap of the tables
+     */
+    public DestinationSampler(ArrayList<Station> stations, ScreenGrid grid, long maxBytes){
+        this.stations = stations;
+        this.maxBytes = maxBytes;
+        this.cols = grid.getW() / BIN_SIZE + 1;
+        this.rows = grid.getH() / BIN_SIZE + 1;
+        this.cellBins = new int[cols * rows];
+        Arrays.fill(cellBins, -1);
+    }
+
+    /**
+     * Sets the demand model destinations are picked with
+     * @param model the DemandModel to use, or null for every destination to be
+     *              equally likely
+     */
+    public void setModel(DemandModel model){
+        this.model = model;
+        version++;
+    }
+
+    /**
+     * Gets the demand model destinations are picked with
+     * @return the DemandModel in use, or null if every destination is equally likely
+     */
+    public DemandModel getModel(){
+        return model;
+    }
+
+    /**
+     * Puts a station that was just added to the network into its bin. Stations
+     * must be added in the order of their ids.
+     * @param station the new station
+     */
+    public void stationAdded(Station station){
+        int col = Math.max(0, Math.min(station.getX() / BIN_SIZE, cols - 1));
+        int row = Math.max(0, Math.min(station.getY() / BIN_SIZE, rows - 1));
+        int cell = row * cols + col;
+        if(cellBins[cell] == -1){
+            if(numBins == binStations.length){
+                binCols = Arrays.copyOf(binCols, numBins * 2);
+                binRows = Arrays.copyOf(binRows, numBins * 2);
+                binStations = Arrays.copyOf(binStations, numBins * 2);
+            }
+            binCols[numBins] = col;
+            binRows[numBins] = row;
+            binStations[numBins] = new IntList();
+            cellBins[cell] = numBins;
+            numBins++;
+        }
+        int id = station.getId();
+        if(id >= stationBins.length){
+            stationBins = Arrays.copyOf(stationBins, Math.max(id + 1, stationBins.length * 2));
+        }
+        stationBins[id] = cellBins[cell];
+        binStations[cellBins[cell]].add(id);
+    }
+
+    /**
+     * Picks a destination for a passenger appearing at a station. The origin is
+     * never picked. If the model gives no demand at all from the origin, every
+     * other station is equally likely.
+     * @param origin the station the passenger appears at
+     * @param random the Random object to draw from
+     * @return the id of the destination, or -1 if there are no other stations
+     */
+    public int pickDestination(Station origin, Random random){
+        int n = stations.size();
+        if(n <= 1){
+            return -1;
+        }
+        if(model != null){
+            int destination = pickWeighted(origin, random);
+            if(destination != -1){
+                return destination;
+            }
+        }
+
+        // pick from the other stations, skipping over the origin
+        int destination = random.nextInt(n - 1);
+        if(destination >= origin.getId()){
+            destination++;
+        }
+        return destination;
+    }
+
+    /**
+     * Picks a destination with the demand model, from the origin's table and the
+     * stations added since it was made
+     * @param origin the station the passenger appears at
+     * @param random the Random object to draw from
+     * @return the id of the destination, or -1 if there is no demand from the origin
+     */
+    private int pickWeighted(Station origin, Random random){
+        int id = origin.getId();
+        prepareTable(origin);
+        double tableWeight = tableWeights[id];
+        double total = tableWeight + addedTotals[id];
+        if(total <= 0){
+            return -1;
+        }
+        while(true){
+            if((addedTotals[id] > 0) && (random.nextDouble()*total >= tableWeight)){
+                return pickAdded(id, random);
+            }
+            long packed = tableChoices[id][tables[id].sample(random)];
+            int choice = (int) packed;
+            if(choice >= 0){
+                return choice;
+            }
+
+            // a station in a further bin, kept with a chance of its weight over the bin's highest
+            int station = pickFromBin(-1 - choice, tableStations[id], random);
+            if(random.nextDouble()*Float.intBitsToFloat((int) (packed >>> 32)) < getWeight(origin, station)){
+                return station;
+            }
+        }
+    }
+
+    /**
+     * Picks one of the stations added since an origin's table was made, in
+     * proportion to their weights
+     * @param id     the id of the origin, whose added stations have some demand
+     * @param random the Random object to draw from
+     * @return the id of the station picked
+     */
+    private int pickAdded(int id, Random random){
+        double[] added = addedWeights[id];
+        double u = random.nextDouble()*addedTotals[id];
+        int last = -1;
+        for(int i=0; i<addedCounted[id] - tableStations[id]; i++){
+            if(added[i] > 0){
+                last = i;
+                u -= added[i];
+                if(u < 0){
+                    break;
+                }
+            }
+        }
+        return tableStations[id] + last; // the last station with demand if rounding left some over
+    }
+
+    /**
+     * Picks one of the stations of a bin that were added before a table was made,
+     * all equally likely
+     * @param bin         the index of the bin
+     * @param numStations the number of stations when the table was made
+     * @param random      the Random object to draw from
+     * @return the id of the station picked
+     */
+    private int pickFromBin(int bin, int numStations, Random random){
+        IntList inBin = binStations[bin];
+        int count = inBin.size();
+        while(inBin.get(count - 1) >= numStations){ // stations are in the order they were added
+            count--;
+        }
+        return inBin.get(random.nextInt(count));
+    }
+
+    /**
+     * Gets the weight of a journey
+     * @param origin      the station the passenger appears at
+     * @param destinationId the id of the destination
+     * @return the weight of the journey from the model, 0 if it is negative or the
+     *         destination is the origin
+     */
+    private double getWeight(Station origin, int destinationId){
+        if(destinationId == origin.getId()){
+            return 0.0;
+        }
+        return Math.max(0.0, model.getWeight(origin, stations.get(destinationId)));
+    }
+
+    /**
+     * Makes sure an origin has an up to date table, and that the weights of the
+     * stations added since it was made are known
+     * @param origin the station passengers appear at
+     */
+    private void prepareTable(Station origin){
+        int n = stations.size();
+        int id = origin.getId();
+        if(tableChoices.length < n){
+            growTables(n);
+        }
+        if((tableChoices[id] == null) || (tableVersions[id] != version) || (n - tableStations[id] > MAX_ADDED_STATIONS)){
+            makeTable(origin);
+        }else{
+            markUsed(id);
+        }
+
+        // weights of the stations added since the table was made
+        if(addedCounted[id] < n){
+            if(addedWeights[id] == null){
+                addedWeights[id] = new double[MAX_ADDED_STATIONS];
+                tableBytes[id] += 8L*MAX_ADDED_STATIONS;
+                usedBytes += 8L*MAX_ADDED_STATIONS;
+            }
+            for(int i = addedCounted[id]; i<n; i++){
+                double weight = getWeight(origin, i);
+                addedWeights[id][i - tableStations[id]] = weight;
+                addedTotals[id] += weight;
+            }
+            addedCounted[id] = n;
+        }
+    }
+
+    /**
+     * Makes an origin's table, dropping the least recently used tables if there
+     * isn't room for it
+     * @param origin the station passengers appear at
+     */
+    private void makeTable(Station origin){
+        int n = stations.size();
+        int id = origin.getId();
+        dropTable(id);
+
+        // the stations of the bins around the origin on their own, and each further bin as one choice
+        int originBin = stationBins[id];
+        int numChoices = 0;
+        for(int bin=0; bin<numBins; bin++){
+            IntList inBin = binStations[bin];
+            boolean near = (Math.abs(binCols[bin] - binCols[originBin]) <= 1)
+                    && (Math.abs(binRows[bin] - binRows[originBin]) <= 1);
+            if(near){
+                for(int i=0; i<inBin.size(); i++){
+                    double weight = getWeight(origin, inBin.get(i));
+                    if(weight > 0){
+                        weights[numChoices] = weight;
+                        choices[numChoices] = packChoice(inBin.get(i), 0.0f);
+                        numChoices++;
+                    }
+                }
+            }else{
+                double highest = 0;
+                for(int i=0; i<inBin.size(); i++){
+                    highest = Math.max(highest, getWeight(origin, inBin.get(i)));
+                }
+                if(highest > 0){
+                    float limit = Math.nextUp((float) highest); // never below any weight in the bin
+                    weights[numChoices] = (double) limit * inBin.size();
+                    choices[numChoices] = packChoice(-1 - bin, limit);
+                    numChoices++;
+                }
+            }
+        }
+
+        double total = 0;
+        for(int i=0; i<numChoices; i++){
+            total += weights[i];
+        }
+        tableChoices[id] = Arrays.copyOf(choices, numChoices);
+        tables[id] = (numChoices == 0) ? null : new AliasTable(weights, numChoices, small, large);
+        tableWeights[id] = total;
+        tableStations[id] = n;
+        tableVersions[id] = version;
+        tableBytes[id] = 16L*numChoices;
+        addedTotals[id] = 0;
+        addedCounted[id] = n;
+        tablesBuilt++;
+
+        while((usedBytes + tableBytes[id] > maxBytes) && (oldestTable != -1)){
+            dropTable(oldestTable);
+            tablesDropped++;
+        }
+        usedBytes += tableBytes[id];
+        markUsed(id);
+    }
+
+    /**
+     * Packs a choice of a table into one long, so picking it only reads one place
+     * in memory
+     * @param choice the id of the station, or -1-bin for a bin
+     * @param limit  the highest weight of a journey to a station in the bin, 0 for a station
+     * @return the limit as a float in the high 32 bits, and the choice in the low 32 bits
+     */
+    private static long packChoice(int choice, float limit){
+        return ((long) Float.floatToRawIntBits(limit) << 32) | (choice & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Drops an origin's table, if it has one
+     * @param id the id of the origin
+     */
+    private void dropTable(int id){
+        if(tableChoices[id] == null){
+            return;
+        }
+        usedBytes -= tableBytes[id];
+        tables[id] = null;
+        tableChoices[id] = null;
+        addedWeights[id] = null;
+        unlink(id);
+    }
+
+    /**
+     * Makes an origin's table the most recently used one
+     * @param id the id of the origin, which has a table
+     */
+    private void markUsed(int id){
+        if(newestTable == id){
+            return;
+        }
+        unlink(id);
+        olderTables[id] = newestTable;
+        newerTables[id] = -1;
+        if(newestTable != -1){
+            newerTables[newestTable] = id;
+        }
+        newestTable = id;
+        if(oldestTable == -1){
+            oldestTable = id;
+        }
+    }
+
+    /**
+     * Takes an origin's table out of the order of use, if it is in it
+     * @param id the id of the origin
+     */
+    private void unlink(int id){
+        if((newestTable != id) && (newerTables[id] == -1)){ // not in the order
+            return;
+        }
+        if(newerTables[id] != -1){
+            olderTables[newerTables[id]] = olderTables[id];
+        }else{
+            newestTable = olderTables[id];
+        }
+        if(olderTables[id] != -1){
+            newerTables[olderTables[id]] = newerTables[id];
+        }else{
+            oldestTable = newerTables[id];
+        }
+        newerTables[id] = -1;
+        olderTables[id] = -1;
+    }
+
+    /**
+     * Grows the per-origin arrays and the scratch space after stations are added
+     * @param n the number of stations
+     */
+    private void growTables(int n){
+        int oldLength = tableChoices.length;
+        int newLength = Math.max(n, oldLength * 2);
+        tables = Arrays.copyOf(tables, newLength);
+        tableChoices = Arrays.copyOf(tableChoices, newLength);
+        tableWeights = Arrays.copyOf(tableWeights, newLength);
+        tableStations = Arrays.copyOf(tableStations, newLength);
+        tableVersions = Arrays.copyOf(tableVersions, newLength);
+        tableBytes = Arrays.copyOf(tableBytes, newLength);
+        addedWeights = Arrays.copyOf(addedWeights, newLength);
+        addedTotals = Arrays.copyOf(addedTotals, newLength);
+        addedCounted = Arrays.copyOf(addedCounted, newLength);
+        newerTables = Arrays.copyOf(newerTables, newLength);
+        olderTables = Arrays.copyOf(olderTables, newLength);
+        Arrays.fill(newerTables, oldLength, newLength, -1);
+        Arrays.fill(olderTables, oldLength, newLength, -1);
+        weights = new double[newLength];
+        choices = new long[newLength];
+        small = new int[newLength];
+        large = new int[newLength];
+    }
+
+    /**
+     * Gets the approximate memory used by the tables
+     * @return the approximate number of bytes used by all tables
+     */
+    public long getUsedBytes(){
+        return usedBytes;
+    }
+
+    /**
+     * Gets the number of tables made so far
+     * @return the number of times a table was made or remade
+     */
+    public int getTablesBuilt(){
+        return tablesBuilt;
+    }
+
+    /**
+     * Gets the number of tables dropped to make room for others
+     * @return the number of least recently used tables dropped
+     */
+    public int getTablesDropped(){
+        return tablesDropped;
+    }
+}
@@ -1,24 +1,39 @@
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Collections;
-import java.util.Map.Entry;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Dijkstra.java
- * An implementation of Dijkstra's algorithm for passenger path finding through the 
+ * An implementation of Dijkstra's algorithm for passenger path finding through the
  * network of stations to get to a destination.
+ *
+ * Stations are referred to by their integer ids, and all per-station data is kept
+ * in primitive arrays indexed by id. Instead of clearing the arrays before every
+ * search, each search uses a new generation number, and an array entry is only
+ * valid if its stamp matches the current generation.
+ *
+ * Batches of shortest path trees are split across the common ForkJoinPool, each
+ * share searching with its own worker Dijkstra object over the same stations.
+ * The network must not change while a batch is running.
  * @author Suyu
  * @version 1.0
  */
 public class Dijkstra {
 
     // Data for the algorithm
-    private ArrayList<Station> stations; // ArrayList of all stations
-    private ArrayList<Station> unsettledStations = new ArrayList<Station>(); // stores stations where the shortest path has not yet been found
-    private HashMap<Station, Double> distancesToStart = new HashMap<Station, Double>(); // stores shorest distance to each station found thus far
-    private HashMap<Station, Station> nextOnPathToStart = new HashMap<Station, Station>(); // stores the next station along the shortest path from each station to the start
-    private Station closestUnsettledStation; // stores the station in unsettledStations with the least distance to the start
-    private ArrayList<Station> fullPath = new ArrayList<Station>(); // stores the shortest path
+    private ArrayList<Station> stations; // ArrayList of all stations, index in list is the station id
+    private IndexedMinHeap unsettledStations = new IndexedMinHeap(16); // stations reached but whose shortest path has not yet been found
+    private double[] distancesToStart = new double[0]; // shortest distance to each station found thus far
+    private int[] nextOnPathToStart = new int[0]; // id of the next station along the shortest path from each station to the start
+    private int[] reachedGeneration = new int[0]; // generation in which each station's distance was last set
+    private int[] settledGeneration = new int[0]; // generation in which each station's shortest path was found
+    private int[] settledOrder = new int[0]; // ids of the stations settled in the last search, in order
+    private int numSettled = 0;
+    private int generation = 0;
+
+    // Batches
+    private Dijkstra[] batchWorkers = new Dijkstra[0]; // one for each task of a batch, made when first needed
 
     /**
      * Creates a new Dijstra object with the ArrayList of all stations in the network
@@ -31,122 +46,195 @@ public class Dijkstra {
     /**
      * Implementation of Dijkstra's algorithm. Finds the shortest path between the
      * start and end stations.
-     * 
+     *
      * @param start the starting station
      * @param end   the ending station
      * @return an ArrayList of stations, indicating the stations to travel along to
-     *         get to the ending station for the shortest path
+     *         get to the ending station for the shortest path, or null if there is
+     *         no path between the stations
      */
     public ArrayList<Station> dijkstraPath(Station start, Station end){
+        if(!search(start.getId(), end.getId())){
+            return null;
+        }
+        return getFullPath(start.getId(), end.getId());
+    }
 
-        // Reset everything - clear variables that need to be reset, put all stations
-        // in the unsettled stations list and make all distances the max value for ints
-        // to indicate distance not found yet
-        unsettledStations.clear();
-        nextOnPathToStart.clear();
-        closestUnsettledStation = null;
-        fullPath.clear();
+    /**
+     * Rebuilds the next-hop routing table of every station in the network. Since
+     * connections go both ways, a search from each destination gives the next
+     * station towards that destination for every station that can reach it.
+     */
+    public void buildRoutingTables(){
+        int n = stations.size();
         for(Station station:stations){
-            unsettledStations.add(station);
-            distancesToStart.put(station, Double.MAX_VALUE);
+            station.resetNextHops(n);
         }
+        for(int destination=0; destination<n; destination++){
+            search(destination, -1);
+            for(int i=0; i<numSettled; i++){
+                int id = settledOrder[i];
+                if(id != destination){
+                    stations.get(id).setNextHop(destination, nextOnPathToStart[id]);
+                }
+            }
+        }
+    }
 
-        // set distance to starting station as 0
-        distancesToStart.replace(start, 0.0);
+    /**
+     * Finds the shortest paths from every station to a root station. Since
+     * connections go both ways, this is one search from the root over the whole
+     * network.
+     * @param rootId    the id of the root station
+     * @param distances array to fill with the distance from each station to the
+     *                  root, by station id, or infinity if the station can't reach it
+     * @param nextHops  array to fill with the id of the next station towards the
+     *                  root from each station, or -1 for the root and for stations
+     *                  that can't reach it
+     */
+    public void shortestPathTree(int rootId, double[] distances, int[] nextHops){
+        search(rootId, -1);
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(nextHops, -1);
+        for(int i=0; i<numSettled; i++){
+            int id = settledOrder[i];
+            distances[id] = distancesToStart[id];
+            nextHops[id] = nextOnPathToStart[id];
+        }
+    }
+
+    /**
+     * Finds the shortest path trees towards many root stations at once, one tree
+     * for each root, running the searches in parallel on the common ForkJoinPool.
+     * Each tree is the same as the one shortestPathTree would make.
+     * @param rootIds   the ids of the root stations
+     * @param distances arrays to fill with the distances of each tree, by index in
+     *                  rootIds, each at least as long as the number of stations
+     * @param nextHops  arrays to fill with the next stations of each tree, by index
+     *                  in rootIds, each at least as long as the number of stations
+     */
+    public void shortestPathTrees(IntList rootIds, double[][] distances, int[][] nextHops){
+        int numTasks = Math.min(rootIds.size(), ForkJoinPool.getCommonPoolParallelism());
+        if(numTasks <= 1){ // not worth handing to the pool
+            for(int i=0; i<rootIds.size(); i++){
+                shortestPathTree(rootIds.get(i), distances[i], nextHops[i]);
+            }
+            return;
+        }
+        if(batchWorkers.length < numTasks){
+            int oldLength = batchWorkers.length;
+            batchWorkers = Arrays.copyOf(batchWorkers, numTasks);
+            for(int i=oldLength; i<numTasks; i++){
+                batchWorkers[i] = new Dijkstra(stations);
+            }
+        }
+        ShortestPathTreeTask[] tasks = new ShortestPathTreeTask[numTasks];
+        for(int i=0; i<numTasks; i++){
+            tasks[i] = new ShortestPathTreeTask(batchWorkers[i], rootIds, i, numTasks, distances, nextHops);
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
 
-        // main loop - go through every station and find the shortest path until the
-        // shortest path to the end is found (don't need to look through more stations
-        // after path to end is found, save compute)
-        while(unsettledStations.contains(end)){
+    /**
+     * Runs Dijkstra's algorithm from a starting station, stopping as soon as the
+     * shortest path to the target station is found. If target is -1, the search
+     * continues until the shortest paths to all reachable stations are found.
+     *
+     * @param startId  the id of the starting station
+     * @param targetId the id of the station to stop at, or -1 to search the whole network
+     * @return true if the target station was reached (always true when targetId is -1)
+     */
+    private boolean search(int startId, int targetId){
+        newGeneration();
 
-            // set the closest unsettled station
-            closestUnsettledStation = findClosestUnsettledStation();
-            if(closestUnsettledStation == null){ // i.e. if there is no possible path
-                return null;
+        // set distance to starting station as 0
+        distancesToStart[startId] = 0.0;
+        nextOnPathToStart[startId] = -1;
+        reachedGeneration[startId] = generation;
+        unsettledStations.addOrDecrease(startId, 0.0);
+
+        // main loop - settle the closest unsettled station until the shortest path to
+        // the target is found (don't need to look through more stations after that, save compute)
+        while(!unsettledStations.isEmpty()){
+
+            // the closest unsettled station is closer to the start than any other
+            // unsettled station, so the path found for it must be the shortest
+            int closest = unsettledStations.poll();
+            settledGeneration[closest] = generation;
+            settledOrder[numSettled] = closest;
+            numSettled++;
+            if(closest == targetId){
+                unsettledStations.clear();
+                return true;
             }
 
             // loop through all of the stations connected to the closest unsettled station
-            for(Entry<Station, Double> entry:closestUnsettledStation.getConnections().entrySet()){
-
-                // if the shortest path to the station has not been determined already, find the
-                // length of the path to get to that station via the current closest unsettled station
-                if(unsettledStations.contains(entry.getKey())){  
-                    double distanceToStationViaCurrentStation = distancesToStart.get(closestUnsettledStation) + entry.getValue();
-                    
-                    // update the distance to the starting point and the next station along the
-                    // shortest path to the starting point if the path via this station is shorter
-                    if(distanceToStationViaCurrentStation < distancesToStart.get(entry.getKey())){
-                        nextOnPathToStart.put(entry.getKey(), closestUnsettledStation);
-                        distancesToStart.replace(entry.getKey(), distanceToStationViaCurrentStation);
-                    }
+            Station closestStation = stations.get(closest);
+            double distanceToClosest = distancesToStart[closest];
+            for(int i=0; i<closestStation.getNumConnections(); i++){
+                int neighbour = closestStation.getConnectionId(i);
+                if(settledGeneration[neighbour] == generation){
+                    continue;
+                }
 
+                // update the distance to the starting point and the next station along the
+                // shortest path to the starting point if the path via this station is shorter
+                double distanceViaClosest = distanceToClosest + closestStation.getConnectionDistance(i);
+                if((reachedGeneration[neighbour] != generation) || (distanceViaClosest < distancesToStart[neighbour])){
+                    distancesToStart[neighbour] = distanceViaClosest;
+                    nextOnPathToStart[neighbour] = closest;
+                    reachedGeneration[neighbour] = generation;
+                    unsettledStations.addOrDecrease(neighbour, distanceViaClosest);
                 }
             }
-
-            // Because the closest unsettled station is closer to the start than any other
-            // unsettled station, the path found for it must be the shortest, so the path is
-            // found
-            unsettledStations.remove(closestUnsettledStation);
-
         }
-
-        // method uses the data from nextOnPathToStart, starting from the end and going
-        // backwards until it reaches the start to determine the path that was the
-        // shortest
-        return getFullPath(start, end);
-        
+        return targetId == -1;
     }
 
     /**
-     * Uses the data in the nextOnPathToStart HashMap to generate the ArrayList of
-     * stations that represents the shortest path from start to end
-     * 
-     * @param start the starting station
-     * @param end   the ending station
-     * @return an ArrayList of stations that represents the shortest path from start
-     *         to end
+     * Starts a new search generation, growing the per-station arrays if stations
+     * have been added since the last search
      */
-    private ArrayList<Station> getFullPath(Station start, Station end){
-        fullPathRecursive(start, end);
-        Collections.reverse(fullPath);
-        return new ArrayList<Station>(fullPath);
+    private void newGeneration(){
+        int n = stations.size();
+        if(distancesToStart.length < n){
+            int capacity = Math.max(n, distancesToStart.length * 2);
+            distancesToStart = Arrays.copyOf(distancesToStart, capacity);
+            nextOnPathToStart = Arrays.copyOf(nextOnPathToStart, capacity);
+            reachedGeneration = Arrays.copyOf(reachedGeneration, capacity);
+            settledGeneration = Arrays.copyOf(settledGeneration, capacity);
+            settledOrder = Arrays.copyOf(settledOrder, capacity);
+        }
+        numSettled = 0;
+        generation++;
+        if(generation == Integer.MAX_VALUE){ // stamps would wrap around, so start over
+            Arrays.fill(reachedGeneration, 0);
+            Arrays.fill(settledGeneration, 0);
+            generation = 1;
+        }
     }
 
     /**
-     * Recursive method used by the getFullPath() method to obtain the ArrayList of
-     * stations of the shortest path
-     * 
-     * @param start the starting station
-     * @param end   the ending station
+     * Uses the data in the nextOnPathToStart array to generate the ArrayList of
+     * stations that represents the shortest path from start to end
+     *
+     * @param startId the id of the starting station
+     * @param endId   the id of the ending station
      * @return an ArrayList of stations that represents the shortest path from start
      *         to end
      */
-    private void fullPathRecursive(Station start, Station end){
-        if(start == end){
-            fullPath.add(start);
-        }else{
-            fullPath.add(end);
-            fullPathRecursive(start, nextOnPathToStart.get(end));
+    private ArrayList<Station> getFullPath(int startId, int endId){
+        // count the stations first so the list is allocated once at the right size
+        int length = 1;
+        for(int id = endId; id != startId; id = nextOnPathToStart[id]){
+            length++;
         }
-    }
-
-    /**
-     * Finds the station in the list of unsettled stations that has the minimum
-     * distance to the start. If all stations in the unsettled stations list cannot
-     * be reached from the start, null is returned instead.
-     * 
-     * @return the station in the list of unsettled stations that has the minimum
-     *         distance to the start, or null if all stations in the unsettled list
-     *         are not connected to the start
-     */
-    private Station findClosestUnsettledStation(){
-        double min = Double.MAX_VALUE;
-        Station output = null;
-        for(Station station:unsettledStations){
-            if(distancesToStart.get(station)<min){
-                output = station;
-            }
+        Station[] path = new Station[length];
+        int id = endId;
+        for(int i = length-1; i >= 0; i--){
+            path[i] = stations.get(id);
+            id = nextOnPathToStart[id];
         }
-        return output;
+        return new ArrayList<Station>(Arrays.asList(path));
     }
 }
@@ -3,7 +3,8 @@ import java.awt.Color;
 
 /**
  * DisplayedNumber.java
- * A class for displaying numbers on the screen.
+ * A class for displaying numbers on the screen. The number is kept as an int and
+ * drawn digit by digit, so changing it makes no garbage.
  * @author Suyu
  * @version 1.0
  */
@@ -11,6 +12,7 @@ public class DisplayedNumber extends DisplayedText{
 
     // variables
     private int x, y;
+    private int number;
     
     /**
      * Creates a new DisplayedNumber with specified number, font size, color, and
@@ -24,6 +26,7 @@ public class DisplayedNumber extends DisplayedText{
      */
     public DisplayedNumber(int number, int fontSize, Color textColor, int centerX, int centerY){
         super(Integer.toString(number), fontSize, textColor);
+        this.number = number;
         this.x = centerX;
         this.y = centerY;
     }
@@ -33,7 +36,7 @@ public class DisplayedNumber extends DisplayedText{
      * @param number the new number to be displayed
      */
     public void changeNumber(int number){
-        super.changeText(Integer.toString(number));
+        this.number = number;
     }
 
     /**
@@ -46,11 +49,29 @@ public class DisplayedNumber extends DisplayedText{
         this.y = y;
     }
 
+    /**
+     * Gets the width of the number displayed by this object in pixels
+     * @return the width of the number displayed by this object in pixels.
+     */
+    public int getWidth(){
+        return getAtlas().numberWidth(number);
+    }
+
+    /**
+     * Draws the number of this object onto the screen at a specified position
+     * @param g the Graphics object for drawing this number
+     * @param centerX the x coordinate of the center of this number
+     * @param centerY the y coordinate of the center of this number
+     */
+    public void draw(Graphics g, int centerX, int centerY){
+        getAtlas().drawNumber(g, number, centerX - getWidth()/2, getBaseline(centerY));
+    }
+
     /**
      * Draws this DisplayedNumber on the screen
      * @param g Graphics object to draw with
      */
     public void draw(Graphics g){
-        super.draw(g, x, y);
+        draw(g, x, y);
     }
 }
@@ -1,11 +1,10 @@
 import java.awt.Graphics;
-import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Color;
 
 /**
  * DisplayedText.java 
- * Class for text displayed in the game, displays text in Verdana.
+ * Class for text displayed in the game, displays text in Verdana. Text is drawn
+ * from a GlyphAtlas shared with all other text of the same size and color.
  * @author Suyu
  * @version 1.0
  */
@@ -14,9 +13,9 @@ public class DisplayedText {
     // Variables
     private String text;
     private Color textColor;
+    private int fontSize;
     private int textWidth;
-    private int fontHeight;
-    private Font font;
+    private GlyphAtlas atlas;
 
     /**
      * Creates a new DisplayedText object with a specified string, font size, and font color
@@ -25,23 +24,10 @@ public class DisplayedText {
      * @param color the color of the font to be displayed
      */
     public DisplayedText(String text, int fontSize, Color color){
-        this.text = text;
+        this.fontSize = fontSize;
         this.textColor = color;
-        setFont(fontSize);
-    }
-
-    /**
-     * Sets the font of this DisplayedText object to plain Verdana at the
-     * specified font size Defaults to a general sans serif font if Verdana is
-     * unavailable 
-     * @param fontSize the font size in pixels
-     */
-    private void setFont(int fontSize){
-        try{
-            this.font = new Font("Verdana", Font.PLAIN, fontSize);
-        }catch(Exception e){
-            this.font = new Font(Font.SANS_SERIF, Font.PLAIN, fontSize);
-        }
+        this.atlas = GlyphAtlas.get(fontSize, color);
+        changeText(text);
     }
 
     /**
@@ -50,6 +36,7 @@ public class DisplayedText {
      */
     public void changeText(String text){
         this.text = text;
+        this.textWidth = atlas.textWidth(text);
     }
 
     /**
@@ -57,12 +44,22 @@ public class DisplayedText {
      * @param color the new color to be used
      */
     public void changeColor(Color color){
-        this.textColor = color;
+        if(!color.equals(textColor)){
+            this.textColor = color;
+            this.atlas = GlyphAtlas.get(fontSize, color);
+        }
+    }
+
+    /**
+     * Gets the GlyphAtlas this text is drawn from
+     * @return the GlyphAtlas for the font size and color of this text
+     */
+    protected GlyphAtlas getAtlas(){
+        return atlas;
     }
 
     /**
-     * Gets the width of the text displayed by this object in pixels. The draw
-     * method of this class must be called at least once before this can be used.
+     * Gets the width of the text displayed by this object in pixels
      * @return the width of the text displayed by this object in pixels.
      */
     public int getWidth(){
@@ -70,12 +67,20 @@ public class DisplayedText {
     }
 
     /**
-     * Gets the height of the text displayed by this object in pixels. The draw
-     * method of this class must be called at least once before this can be used.
+     * Gets the height of the text displayed by this object in pixels
      * @return the height of the text displayed by this object in pixels.
      */
     public int getHeight(){
-        return fontHeight;
+        return atlas.getAscent();
+    }
+
+    /**
+     * Gets the y coordinate of the baseline of this text
+     * @param centerY the y coordinate of the center of this text
+     * @return the y coordinate of the baseline
+     */
+    protected int getBaseline(int centerY){
+        return centerY + getHeight()/2 - getHeight()/10;
     }
 
     /**
@@ -85,19 +90,7 @@ public class DisplayedText {
      * @param centerY the y coordinate of the center of this text
      */
     public void draw(Graphics g, int centerX, int centerY){
-        // set font & color
-        g.setFont(this.font);
-        g.setColor(textColor);
-
-        // gets a FontMetrics object to determine the width and height of the text in px
-        if(textWidth==0){
-            FontMetrics fontMetrics = g.getFontMetrics();
-            textWidth = fontMetrics.stringWidth(text);
-            fontHeight = fontMetrics.getAscent();
-        }
-
-        // draw the text
-        g.drawString(text, centerX - textWidth/2, centerY + fontHeight/2 - fontHeight/10);
+        atlas.drawText(g, text, centerX - textWidth/2, getBaseline(centerY));
     }
     
 }
@@ -1,5 +1,9 @@
+import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.Color;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
 import javax.swing.JPanel;
 
 /**
@@ -12,71 +16,96 @@ class GameAreaPanel extends JPanel {
 
   // main game network
   private Network network;
+  private Camera camera;
+  private NetworkRenderer renderer;
+  private GameLoop gameLoop;
 
   // frame stuff
-  public static final int FPS = 50;
-  public static final int FRAME_TIME = 1000/FPS;
+  private static final int DEFAULT_FRAME_RATE = 60; // used if the display's refresh rate is unknown
+  private static final boolean ACTIVE_RENDERING = true; // draw on a GameCanvas from a render thread, false to repaint through Swing
 
   /**
    * Creates a new GameAreaPanel with an associated GameFrame
    * @param gameFrame the GameFrame associated with this GameAreaPanel
+   * @param mapScale  how many screens wide and tall the map is
    */
-  GameAreaPanel(GameFrame gameFrame){
+  GameAreaPanel(GameFrame gameFrame, int mapScale){
     // Game Object Initialization
-    network = new Network(gameFrame.getSize().width, gameFrame.getSize().height);
+    network = new Network(gameFrame.getSize().width, gameFrame.getSize().height, mapScale);
+    camera = new Camera(network.getGrid(), gameFrame.getSize().width, gameFrame.getSize().height);
+    renderer = new NetworkRenderer(network.getGrid(), camera);
+
+    // Start the game loop in a separate thread - the game is updated at a fixed rate. With active
+    // rendering, a GameCanvas draws frames from its own thread, otherwise the game loop asks Swing to
+    // repaint as often as the display refreshes
+    Component gameArea;
+    if(ACTIVE_RENDERING){
+      gameLoop = new GameLoop(network);
+      gameArea = new GameCanvas(network, renderer, gameLoop, getDisplayRefreshRate());
+      this.setLayout(new BorderLayout());
+      this.add(gameArea, BorderLayout.CENTER);
+    }else{
+      gameLoop = new GameLoop(network, new Runnable() {public void run(){ repaint(); }}, getDisplayRefreshRate());
+      gameArea = this;
+    }
+    Thread t = new Thread(gameLoop); // start the game
+    t.start();
 
     // Listener - Esc key to quit
     EscapeKeyListener escapeKeyListener = new EscapeKeyListener(gameFrame);
-    this.addKeyListener(escapeKeyListener);
+    gameArea.addKeyListener(escapeKeyListener);
+
+    // Listener - number keys to fast-forward
+    TimeScaleKeyListener timeScaleKeyListener = new TimeScaleKeyListener(gameLoop);
+    gameArea.addKeyListener(timeScaleKeyListener);
 
     // Listener for editing lines
-    LineEditingMouseListener lineEditor = new LineEditingMouseListener(network);
-    this.addMouseListener(lineEditor);
-    this.addMouseMotionListener(lineEditor);
+    LineEditingMouseListener lineEditor = new LineEditingMouseListener(network, camera);
+    gameArea.addMouseListener(lineEditor);
+    gameArea.addMouseMotionListener(lineEditor);
+
+    // Listener - right drag to pan, scroll to zoom
+    CameraInputListener cameraInput = new CameraInputListener(camera);
+    gameArea.addMouseListener(cameraInput);
+    gameArea.addMouseMotionListener(cameraInput);
+    gameArea.addMouseWheelListener(cameraInput);
 
     // JPanel Stuff
-    this.setFocusable(true);
+    gameArea.setFocusable(true);
     this.setBackground(Color.WHITE);
-    this.requestFocusInWindow();
-
-    // Start the game in a separate thread (allows simple frame rate control)
-    // the alternate is to delete this and just call repaint() at the end of paintComponent()
-    Thread t = new Thread(new Runnable() {public void run(){ animate(); }}); // start the game
-    t.start();
+    this.setDoubleBuffered(true);
+    gameArea.requestFocusInWindow();
 
   }
 
   /**
-   * Updates the game state for each frame
+   * Gets the refresh rate of the screen
+   * @return the refresh rate of the default screen in Hz, or DEFAULT_FRAME_RATE if it is unknown
    */
-  public void animate(){
-
-    while (true) {
-
-      // update game content
-      network.update();
-
-      // delay
-      try {
-        Thread.sleep(FRAME_TIME);
-      } catch (Exception exc) {
-        System.out.println("Thread Error");
-      }
-
-      // repaint request
-      this.repaint();
+  private static int getDisplayRefreshRate(){
+    int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+        .getDisplayMode().getRefreshRate();
+    if(refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN){
+      return DEFAULT_FRAME_RATE;
     }
+    return refreshRate;
   }
 
   /**
-   * Runs every time the screen is refreshed. Draws all game content on the screen.
+   * Runs every time the screen is refreshed by Swing. Draws the latest snapshot of
+   * the game on the screen, with moving objects drawn between the last two game
+   * updates. Never touches the network directly, since it is updated on another
+   * thread. With active rendering, the GameCanvas covers this panel and draws
+   * the game instead.
    */
   public void paintComponent(Graphics g) {
     super.paintComponent(g); // required
-    setDoubleBuffered(true);
 
     // screen is being refreshed - draw all objects
-    network.draw(g);
+    if(!ACTIVE_RENDERING){
+      renderer.draw(g, network.getSnapshot(), gameLoop.getInterpolation());
+      renderer.drawSpeed(g, gameLoop.getTimeScale(), gameLoop.getTicksPerSecond());
+    }
 
   }
 }
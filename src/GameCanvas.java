@@ -0,0 +1,125 @@
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GameCanvas.java
+ * A Canvas the game is actively drawn on by a render thread of its own, instead
+ * of asking Swing to repaint. Frames are drawn into the back page of a
+ * BufferStrategy and shown as soon as they are done, at a steady rate matching
+ * the display, so frames are never coalesced or delayed by the event thread.
+ * Drawing only reads the network's latest snapshot, so the render thread never
+ * waits for the simulation either.
+ * @author Suyu
+ * @version 1.0
+ */
+class GameCanvas extends Canvas implements Runnable {
+
+    // Constants
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFER_PAGES = 3; // front page plus two back pages, so drawing never waits for a flip
+
+    // What is drawn
+    private Network network;
+    private NetworkRenderer renderer;
+    private GameLoop gameLoop;
+
+    // Timing
+    private long frameNanos;
+    private volatile boolean running = false;
+    private Thread renderThread;
+
+    /**
+     * Creates a new GameCanvas
+     * @param network   the Network to draw
+     * @param renderer  the NetworkRenderer to draw with, only used by this canvas's thread
+     * @param gameLoop  the GameLoop updating the network, for interpolating between ticks
+     * @param frameRate the number of frames to draw per second, usually the
+     *                  refresh rate of the display
+     */
+    GameCanvas(Network network, NetworkRenderer renderer, GameLoop gameLoop, int frameRate){
+        this.network = network;
+        this.renderer = renderer;
+        this.gameLoop = gameLoop;
+        this.frameNanos = 1_000_000_000L / Math.max(frameRate, 1);
+        this.setIgnoreRepaint(true); // everything is drawn by the render thread
+        this.setBackground(Color.WHITE);
+    }
+
+    /**
+     * Creates the buffer strategy and starts the render thread once the canvas is
+     * on the screen, since a buffer strategy can't be made before then
+     */
+    public void addNotify(){
+        super.addNotify();
+        createBufferStrategy(BUFFER_PAGES);
+        running = true;
+        renderThread = new Thread(this, "Render");
+        renderThread.start();
+    }
+
+    /**
+     * Stops the render thread before the canvas and its buffer strategy are
+     * removed from the screen
+     */
+    public void removeNotify(){
+        running = false;
+        if(renderThread != null){
+            try{
+                renderThread.join();
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            renderThread = null;
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * Draws frames at the frame rate, or the lower fast-forward frame rate when the
+     * game is faster than real time, until the canvas is removed. Each frame is
+     * scheduled a fixed time after the previous one rather than after the previous
+     * one finished, so slow frames don't make the rate drift. If drawing falls more
+     * than a frame behind, the schedule starts over from now instead of rushing to
+     * catch up.
+     */
+    public void run(){
+        long nextFrameTime = System.nanoTime();
+        while(running){
+            drawFrame();
+
+            long interval = gameLoop.getFrameNanos(frameNanos); // fewer frames when fast-forwarding
+            nextFrameTime += interval;
+            long wait = nextFrameTime - System.nanoTime();
+            if(wait > 0){
+                LockSupport.parkNanos(wait);
+            }else if(wait < -interval){
+                nextFrameTime = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Draws the latest snapshot of the game into the back page and shows it. If the
+     * contents of the pages are lost (e.g. when the display mode changes), the frame
+     * is drawn again.
+     */
+    private void drawFrame(){
+        BufferStrategy strategy = getBufferStrategy();
+        do{
+            do{
+                Graphics g = strategy.getDrawGraphics();
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, getWidth(), getHeight());
+                renderer.draw(g, network.getSnapshot(), gameLoop.getInterpolation());
+                renderer.drawSpeed(g, gameLoop.getTimeScale(), gameLoop.getTicksPerSecond());
+                g.dispose();
+            }while(strategy.contentsRestored());
+            strategy.show();
+        }while(strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // make sure the frame reaches the screen now, not whenever the system flushes
+    }
+}
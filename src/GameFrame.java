@@ -14,8 +14,9 @@ class GameFrame extends JFrame {
 
   /**
    * Creates a new full screen game frame.
+   * @param mapScale how many screens wide and tall the map is, 1 for a map that fits the screen
    */
-  GameFrame() {
+  GameFrame(int mapScale) {
     super("Metro Simulator");
 
     // Set the frame to full screen
@@ -27,7 +28,7 @@ class GameFrame extends JFrame {
     this.setResizable(false);
 
     // Set up the game panel (where we put our graphics)
-    gamePanel = new GameAreaPanel(this);
+    gamePanel = new GameAreaPanel(this, mapScale);
     this.add(gamePanel);
 
     this.setFocusable(false); // we will focus on the JPanel
@@ -0,0 +1,198 @@
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GameLoop.java
+ * Runs the game with a fixed simulation timestep, independent of how fast the
+ * screen is redrawn. Elapsed real time is added to an accumulator, and the
+ * network is updated once for every full tick in the accumulator, so the
+ * simulation always advances by the same amount per tick no matter how long
+ * frames take. A frame is requested after the ticks are done, and the leftover
+ * time in the accumulator is used to interpolate between the last two ticks
+ * when drawing. If frames are drawn by a render thread of their own, the loop
+ * only runs ticks.
+ *
+ * The game can be fast-forwarded by setting a time scale, which runs that many
+ * ticks for every tick of real time, or as many ticks as the CPU allows at
+ * MAX_SPEED. When faster than real time, ticks are run in bursts between frames
+ * and frames are drawn at the lower FAST_FORWARD_FRAME_RATE, leaving more time
+ * for ticks. The number of ticks actually run per second is measured, so it can
+ * be shown when the CPU can't keep up.
+ * @author Suyu
+ * @version 1.0
+ */
+public class GameLoop implements Runnable {
+
+    // Constants
+    static final long TICK_NANOS = 1_000_000_000L / Network.TICKS_PER_SECOND;
+    private static final int MAX_TICKS_PER_FRAME = Network.TICKS_PER_SECOND / 5; // ticks run before drawing a frame anyway
+    private static final long MAX_BACKLOG_NANOS = 1_000_000_000L; // simulation time dropped past this, if the CPU can't keep up
+    static final int MAX_SPEED = 0; // time scale for running ticks as fast as possible
+    static final int[] TIME_SCALES = {1, 4, 16, 64, MAX_SPEED};
+    private static final int FAST_FORWARD_FRAME_RATE = 30;
+    static final long FAST_FORWARD_FRAME_NANOS = 1_000_000_000L / FAST_FORWARD_FRAME_RATE; // longest burst of ticks between snapshots
+    private static final long TICK_RATE_WINDOW_NANOS = 500_000_000L; // ticks per second is measured over this long
+
+    // What the loop runs
+    private Network network;
+    private Runnable frameRequest; // null if frames are drawn by their own thread
+    private long frameNanos;
+
+    // Timing
+    private volatile long lastTickNanos; // time at which drawing starts moving from the previous tick's state to the latest
+    private volatile boolean running = true;
+    private volatile int timeScale = 1; // ticks per tick of real time, or MAX_SPEED
+    private volatile int ticksPerSecond = 0; // ticks actually run per second of real time
+
+    /**
+     * Creates a new GameLoop for a network that only runs ticks, for when frames
+     * are drawn by a render thread of their own
+     * @param network the Network to update
+     */
+    public GameLoop(Network network){
+        this(network, null, 1);
+    }
+
+    /**
+     * Creates a new GameLoop for a network that also requests frames
+     * @param network      the Network to update
+     * @param frameRequest called once per frame after the network has been updated,
+     *                     should request the screen to be redrawn
+     * @param frameRate    the number of frames to request per second, usually the
+     *                     refresh rate of the display
+     */
+    public GameLoop(Network network, Runnable frameRequest, int frameRate){
+        this.network = network;
+        this.frameRequest = frameRequest;
+        this.frameNanos = 1_000_000_000L / Math.max(frameRate, 1);
+    }
+
+    /**
+     * Runs the loop until stop() is called
+     */
+    public void run(){
+        long accumulator = 0; // simulation time not yet run, in nanoseconds of game time
+        long lastTime = System.nanoTime();
+        long nextFrameTime = lastTime;
+        long tickRateWindowStart = lastTime;
+        int tickRateWindowTicks = 0;
+        lastTickNanos = lastTime;
+
+        while(running){
+            long now = System.nanoTime();
+            int scale = timeScale;
+            if(scale != MAX_SPEED){
+                accumulator += (now - lastTime) * scale;
+            }
+            lastTime = now;
+
+            // update the game once for every full tick of time that has passed, or as
+            // many times as possible at max speed, until it's time for a snapshot
+            int ticks = 0;
+            long burstEnd = now + FAST_FORWARD_FRAME_NANOS;
+            if(scale == MAX_SPEED){
+                do{
+                    network.update();
+                    ticks++;
+                }while(running && (System.nanoTime() - burstEnd < 0));
+            }else{
+                while((accumulator >= TICK_NANOS) && (ticks < MAX_TICKS_PER_FRAME * scale)
+                        && (System.nanoTime() - burstEnd < 0)){
+                    network.update();
+                    accumulator -= TICK_NANOS;
+                    ticks++;
+                }
+            }
+            if(ticks > 0){
+                network.publishSnapshot(); // drawing only ever reads snapshots
+            }
+            if(accumulator > MAX_BACKLOG_NANOS * Math.max(scale, 1)){
+                accumulator = MAX_BACKLOG_NANOS * Math.max(scale, 1);
+            }
+            lastTickNanos = now - accumulator / Math.max(scale, 1);
+
+            // measure the tick rate
+            tickRateWindowTicks += ticks;
+            if(now - tickRateWindowStart >= TICK_RATE_WINDOW_NANOS){
+                ticksPerSecond = (int) (tickRateWindowTicks * 1_000_000_000L / (now - tickRateWindowStart));
+                tickRateWindowStart = now;
+                tickRateWindowTicks = 0;
+            }
+
+            // draw if it's time for a frame, then wait until it's time for the next frame or the next tick
+            long wait = (scale == MAX_SPEED) ? 0 : (TICK_NANOS - accumulator) / scale;
+            if(frameRequest != null){
+                if(now - nextFrameTime >= 0){
+                    frameRequest.run();
+                    nextFrameTime = Math.max(nextFrameTime + getFrameNanos(frameNanos), now);
+                }
+                wait = Math.min(wait, nextFrameTime - System.nanoTime());
+            }
+            if(wait > 0){
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    /**
+     * Stops the loop after the current frame
+     */
+    public void stop(){
+        running = false;
+    }
+
+    /**
+     * Gets how far the current time is between the latest tick and the next one,
+     * for interpolating positions of moving objects when drawing
+     * @return a number from 0 to 1, where 0 means the state of the previous tick
+     *         should be shown and 1 means the state of the latest tick should be shown
+     */
+    public double getInterpolation(){
+        int scale = timeScale;
+        if(scale == MAX_SPEED){
+            return 1;
+        }
+        double interpolation = (double) (System.nanoTime() - lastTickNanos) * scale / TICK_NANOS;
+        return Math.max(0, Math.min(1, interpolation));
+    }
+
+    /**
+     * Sets how fast the game runs compared to real time
+     * @param timeScale the number of ticks to run for every tick of real time, or
+     *                  MAX_SPEED to run ticks as fast as possible
+     */
+    public void setTimeScale(int timeScale){
+        this.timeScale = Math.max(timeScale, MAX_SPEED);
+    }
+
+    /**
+     * Gets how fast the game runs compared to real time
+     * @return the number of ticks run for every tick of real time, or MAX_SPEED if
+     *         ticks are run as fast as possible
+     */
+    public int getTimeScale(){
+        return timeScale;
+    }
+
+    /**
+     * Gets the number of ticks actually run per second, which is lower than the time
+     * scale asks for if the CPU can't keep up
+     * @return the number of ticks run per second of real time, measured over the
+     *         last half second
+     */
+    public int getTicksPerSecond(){
+        return ticksPerSecond;
+    }
+
+    /**
+     * Gets the time between frames at the current time scale. Frames are drawn at
+     * most FAST_FORWARD_FRAME_RATE times per second when faster than real time.
+     * @param frameNanos the time between frames at real time, in nanoseconds
+     * @return the time between frames, in nanoseconds
+     */
+    public long getFrameNanos(long frameNanos){
+        if(timeScale == 1){
+            return frameNanos;
+        }
+        return Math.max(frameNanos, FAST_FORWARD_FRAME_NANOS);
+    }
+}
@@ -0,0 +1,227 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * GlyphAtlas.java
+ * Pre-rendered images of the printable ASCII characters in one font size and
+ * color, packed side by side into a single image. Text is drawn by copying the
+ * part of the image holding each character, which is much faster than laying
+ * out and rasterizing the text with drawString every frame, and numbers can be
+ * drawn digit by digit without making a String. Atlases are shared by all text
+ * with the same font size and color.
+ * @author Suyu
+ * @version 1.0
+ */
+public class GlyphAtlas {
+
+    // Constants
+    private static final char FIRST_CHAR = ' ';
+    private static final char LAST_CHAR = '~';
+
+    // All atlases made so far - there are only a few, so they are found by a linear search
+    private static ArrayList<GlyphAtlas> atlases = new ArrayList<GlyphAtlas>();
+
+    // variables
+    private final int fontSize;
+    private final int rgb;
+    private final Font font;
+    private final BufferedImage image;
+    private final int[] cellXs = new int[LAST_CHAR - FIRST_CHAR + 1]; // x of each character's cell in the image
+    private final int[] advances = new int[LAST_CHAR - FIRST_CHAR + 1]; // width each character takes up in text
+    private final int padding; // space on each side of a character's cell, for parts of characters that stick out
+    private final int ascent;
+
+    /**
+     * Gets the atlas for a font size and color, making it if it doesn't exist yet
+     * @param fontSize the font size in pixels
+     * @param color    the color of the text
+     * @return the GlyphAtlas for the font size and color
+     */
+    public static synchronized GlyphAtlas get(int fontSize, Color color){
+        for(int i=0; i<atlases.size(); i++){
+            GlyphAtlas atlas = atlases.get(i);
+            if((atlas.fontSize == fontSize) && (atlas.rgb == color.getRGB())){
+                return atlas;
+            }
+        }
+        GlyphAtlas atlas = new GlyphAtlas(fontSize, color);
+        atlases.add(atlas);
+        return atlas;
+    }
+
+    /**
+     * Creates a new GlyphAtlas by drawing every printable ASCII character into one image
+     * @param fontSize the font size in pixels
+     * @param color    the color of the text
+     */
+    private GlyphAtlas(int fontSize, Color color){
+        this.fontSize = fontSize;
+        this.rgb = color.getRGB();
+        this.font = makeFont(fontSize);
+        this.padding = fontSize / 4 + 1;
+
+        // measure all characters
+        Graphics2D measuring = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        FontMetrics fontMetrics = measuring.getFontMetrics(font);
+        measuring.dispose();
+        ascent = fontMetrics.getAscent();
+        int width = 0;
+        for(char c=FIRST_CHAR; c<=LAST_CHAR; c++){
+            cellXs[c - FIRST_CHAR] = width;
+            advances[c - FIRST_CHAR] = fontMetrics.charWidth(c);
+            width += advances[c - FIRST_CHAR] + padding * 2;
+        }
+
+        // draw all characters
+        image = new BufferedImage(width, fontMetrics.getAscent() + fontMetrics.getDescent(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setFont(font);
+        g.setColor(color);
+        for(char c=FIRST_CHAR; c<=LAST_CHAR; c++){
+            g.drawString(String.valueOf(c), cellXs[c - FIRST_CHAR] + padding, ascent);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Makes plain Verdana at a font size, or a general sans serif font if Verdana
+     * is unavailable
+     * @param fontSize the font size in pixels
+     * @return the Font
+     */
+    private static Font makeFont(int fontSize){
+        try{
+            return new Font("Verdana", Font.PLAIN, fontSize);
+        }catch(Exception e){
+            return new Font(Font.SANS_SERIF, Font.PLAIN, fontSize);
+        }
+    }
+
+    /**
+     * Gets the height of characters above the baseline
+     * @return the ascent of the font in pixels
+     */
+    public int getAscent(){
+        return ascent;
+    }
+
+    /**
+     * Gets the width of a String of text
+     * @param text the text
+     * @return the width of the text in pixels
+     */
+    public int textWidth(String text){
+        if(!inAtlas(text)){
+            Graphics2D measuring = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+            int width = measuring.getFontMetrics(font).stringWidth(text);
+            measuring.dispose();
+            return width;
+        }
+        int width = 0;
+        for(int i=0; i<text.length(); i++){
+            width += advances[text.charAt(i) - FIRST_CHAR];
+        }
+        return width;
+    }
+
+    /**
+     * Gets the width of a number
+     * @param number the number
+     * @return the width of the number written in base 10, in pixels
+     */
+    public int numberWidth(int number){
+        long remaining = number;
+        int width = 0;
+        if(remaining < 0){
+            width += advances['-' - FIRST_CHAR];
+            remaining = -remaining;
+        }
+        do{
+            width += advances[(int) (remaining % 10) + '0' - FIRST_CHAR];
+            remaining /= 10;
+        }while(remaining > 0);
+        return width;
+    }
+
+    /**
+     * Draws a String of text. Text with characters that aren't in the atlas is
+     * drawn with drawString instead.
+     * @param g        the Graphics object to draw with
+     * @param text     the text to draw
+     * @param left     the x coordinate of the left of the text
+     * @param baseline the y coordinate of the baseline of the text
+     */
+    public void drawText(Graphics g, String text, int left, int baseline){
+        if(!inAtlas(text)){
+            g.setFont(font);
+            g.setColor(new Color(rgb, true));
+            g.drawString(text, left, baseline);
+            return;
+        }
+        int x = left;
+        for(int i=0; i<text.length(); i++){
+            x = drawChar(g, text.charAt(i), x, baseline);
+        }
+    }
+
+    /**
+     * Draws a number without making a String
+     * @param g        the Graphics object to draw with
+     * @param number   the number to draw
+     * @param left     the x coordinate of the left of the number
+     * @param baseline the y coordinate of the baseline of the number
+     */
+    public void drawNumber(Graphics g, int number, int left, int baseline){
+        long remaining = number;
+        int x = left;
+        if(remaining < 0){
+            x = drawChar(g, '-', x, baseline);
+            remaining = -remaining;
+        }
+        long divisor = 1;
+        while(divisor * 10 <= remaining){
+            divisor *= 10;
+        }
+        while(divisor > 0){
+            x = drawChar(g, (char) ('0' + remaining / divisor), x, baseline);
+            remaining %= divisor;
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * Copies the image of one character
+     * @param g        the Graphics object to draw with
+     * @param c        the character, which must be in the atlas
+     * @param x        the x coordinate of the left of the character
+     * @param baseline the y coordinate of the baseline of the character
+     * @return the x coordinate of the left of the next character
+     */
+    private int drawChar(Graphics g, char c, int x, int baseline){
+        int index = c - FIRST_CHAR;
+        int cellWidth = advances[index] + padding * 2;
+        int top = baseline - ascent;
+        g.drawImage(image, x - padding, top, x - padding + cellWidth, top + image.getHeight(),
+                cellXs[index], 0, cellXs[index] + cellWidth, image.getHeight(), null);
+        return x + advances[index];
+    }
+
+    /**
+     * Checks if all characters of a String of text are in the atlas
+     * @param text the text
+     * @return true if every character is printable ASCII, false otherwise
+     */
+    private static boolean inAtlas(String text){
+        for(int i=0; i<text.length(); i++){
+            if((text.charAt(i) < FIRST_CHAR) || (text.charAt(i) > LAST_CHAR)){
+                return false;
+            }
+        }
+        return true;
+    }
+}
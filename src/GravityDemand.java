@@ -0,0 +1,35 @@
+/**
+ * GravityDemand.java
+ * A gravity model of demand: passengers are more likely to travel to nearby
+ * stations, with the demand between two stations falling off with the distance
+ * between them raised to a power. An exponent of 0 is the same as every
+ * destination being equally likely.
+ * @author Suyu
+ * @version 1.0
+ */
+public class GravityDemand implements DemandModel {
+
+    // variables
+    private double exponent;
+
+    /**
+     * Creates a new GravityDemand
+     * @param exponent how quickly demand falls off with distance, 2 for the
+     *                 classic inverse square
+     */
+    public GravityDemand(double exponent){
+        this.exponent = exponent;
+    }
+
+    /**
+     * Gets the demand between two stations
+     * @param origin      the station the passenger appears at
+     * @param destination a station other than the origin
+     * @return 1 over the straight line distance between the stations, in grid
+     *         spaces, raised to the exponent
+     */
+    public double getWeight(Station origin, Station destination){
+        double distance = Math.hypot(destination.getX() - origin.getX(), destination.getY() - origin.getY());
+        return Math.pow(Math.max(distance, 1.0), -exponent);
+    }
+}
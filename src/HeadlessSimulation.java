@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * HeadlessSimulation.java
+ * Runs the simulation without a display, stepping ticks as fast as the CPU
+ * allows, and prints the throughput in ticks per second. Since there is no
+ * player, each new station is connected to the network automatically: new lines
+ * are started until the maximum number of lines is reached, after which the
+ * nearest line terminus is extended to the new station.
+ *
+ * Usage: java HeadlessSimulation gridSize seed ticks [options]
+ * @author Suyu
+ * @version 1.0
+ */
+public class HeadlessSimulation {
+
+    // Constants
+    private static final int GRID_PIXELS = 16; // size of a grid space on the (imaginary) screen
+
+    // Simulation
+    private Network network;
+    private int nextStationToConnect = 1; // all stations with lower ids are already connected
+
+    /**
+     * Creates a new HeadlessSimulation on a square grid
+     * @param gridSize the number of grid spaces along each side of the map
+     * @param seed     the seed for all randomness in the simulation
+     */
+    public HeadlessSimulation(int gridSize, long seed){
+        ScreenGrid grid = new ScreenGrid(GRID_PIXELS, gridSize * GRID_PIXELS, gridSize * GRID_PIXELS, 0);
+        network = new Network(grid, seed);
+        network.setDemandEscalation(false); // keep demand constant so long runs don't blow up
+        network.setDeterministicAssignment(true); // runs with the same arguments give the same results
+    }
+
+    /**
+     * Gets the network being simulated
+     * @return the Network of this simulation
+     */
+    public Network getNetwork(){
+        return network;
+    }
+
+    /**
+     * Advances the simulation by one tick. The game continues even if a station is
+     * overcrowded.
+     */
+    public void step(){
+        network.updateGame();
+        connectNewStations();
+    }
+
+    /**
+     * Connects all stations generated since the last call to the network, either
+     * with a new line from the nearest station or by extending the line with the
+     * nearest terminus
+     */
+    private void connectNewStations(){
+        ArrayList<Station> stations = network.getStations();
+        while(nextStationToConnect < stations.size()){
+            Station station = stations.get(nextStationToConnect);
+            TempMetroLine tempLine;
+            if(network.getLines().size() < Network.MAX_LINES){
+                tempLine = network.newTempLine(nearestStation(station, nextStationToConnect));
+            }else{
+                MetroLine nearestLine = null;
+                Station nearestTerminus = null;
+                for(MetroLine line:network.getLines()){
+                    for(Station terminus:new Station[]{line.getStations().getFirst(), line.getStations().getLast()}){
+                        if((nearestTerminus == null) || (distanceSquared(station, terminus) < distanceSquared(station, nearestTerminus))){
+                            nearestTerminus = terminus;
+                            nearestLine = line;
+                        }
+                    }
+                }
+                tempLine = network.newTempLine(nearestTerminus, nearestLine);
+            }
+            tempLine.addRemoveStation(station);
+            network.finalizeTempLine();
+            nextStationToConnect++;
+        }
+    }
+
+    /**
+     * Finds the station closest to a station among the stations with lower ids
+     * @param station the station to search around
+     * @param count   the number of stations to search, starting from id 0
+     * @return the closest station with an id less than count
+     */
+    private Station nearestStation(Station station, int count){
+        Station nearest = null;
+        for(int i=0; i<count; i++){
+            Station other = network.getStations().get(i);
+            if((nearest == null) || (distanceSquared(station, other) < distanceSquared(station, nearest))){
+                nearest = other;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Gets the square of the distance between two stations on the grid
+     * @param a the first station
+     * @param b the second station
+     * @return the squared distance between the stations in grid units
+     */
+    private static int distanceSquared(Station a, Station b){
+        int dx = a.getX() - b.getX();
+        int dy = a.getY() - b.getY();
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Prints how to use this program and exits
+     */
+    private static void printUsageAndExit(){
+        System.err.println("Usage: java HeadlessSimulation gridSize seed ticks [options]");
+        System.err.println("  gridSize  number of grid spaces along each side of the map");
+        System.err.println("  seed      seed for the random number generator");
+        System.err.println("  ticks     number of ticks to simulate (" + Network.TICKS_PER_SECOND + " ticks per game second)");
+        System.err.println("Options:");
+        System.err.println("  --routing-tables   route passengers with next-hop tables kept by each station");
+        System.err.println("  --journey-planner  plan paths by travel time, waits, and transfers instead of distance;");
+        System.err.println("                     passengers still board any train to their next station, not only");
+        System.err.println("                     the planned line");
+        System.err.println("  --capacity-aware   spread passengers over less crowded paths");
+        System.err.println("                     (--routing-tables, --journey-planner, and --capacity-aware can't be combined)");
+        System.err.println("  --gravity=EXPONENT pick destinations with a gravity model, 2 for inverse square");
+        System.err.println("  --od-matrix=FILE   pick destinations with weights from a file of lines");
+        System.err.println("                     \"origin destination weight\" and optionally \"default weight\"");
+        System.exit(1);
+    }
+
+    /**
+     * Applies a command line option to the network before the simulation starts
+     * @param option the option, starting with --
+     * @return true if the option was recognized
+     * @throws IOException if a file named by the option can't be loaded
+     */
+    private boolean applyOption(String option) throws IOException{
+        if(option.startsWith("--gravity=")){
+            try{
+                network.setDemandModel(new GravityDemand(Double.parseDouble(option.substring("--gravity=".length()))));
+            }catch(NumberFormatException e){
+                return false;
+            }
+        }else if(option.startsWith("--od-matrix=")){
+            network.setDemandModel(OriginDestinationDemand.load(option.substring("--od-matrix=".length())));
+        }else if(option.equals("--routing-tables")){
+            network.setRoutingTables(true);
+        }else if(option.equals("--journey-planner")){
+            network.setJourneyPlanner(true);
+        }else if(option.equals("--capacity-aware")){
+            network.setCapacityAwareAssignment(true);
+        }else{
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Main method - runs a headless simulation and prints the throughput
+     * @param args the grid size, seed, number of ticks, and any options
+     */
+    public static void main(String[] args){
+        if(args.length < 3){
+            printUsageAndExit();
+        }
+        int gridSize = 0;
+        long seed = 0;
+        long ticks = 0;
+        try{
+            gridSize = Integer.parseInt(args[0]);
+            seed = Long.parseLong(args[1]);
+            ticks = Long.parseLong(args[2]);
+        }catch(NumberFormatException e){
+            printUsageAndExit();
+        }
+        if((gridSize <= 0) || (ticks < 0)){
+            printUsageAndExit();
+        }
+
+        HeadlessSimulation simulation = new HeadlessSimulation(gridSize, seed);
+        for(int i=3; i<args.length; i++){
+            try{
+                if(!simulation.applyOption(args[i])){
+                    printUsageAndExit();
+                }
+            }catch(IOException e){
+                System.err.println("Couldn't load " + args[i] + ": " + e.getMessage());
+                System.exit(1);
+            }catch(IllegalStateException e){
+                System.err.println("Can't use " + args[i] + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        long startTime = System.nanoTime();
+        for(long tick=0; tick<ticks; tick++){
+            simulation.step();
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        Network network = simulation.getNetwork();
+        int waiting = 0;
+        for(Station station:network.getStations()){
+            waiting += station.getNumPassengers();
+        }
+        System.out.printf("%d ticks (%.2f game hours) in %.3f s: %.0f ticks/sec%n", ticks,
+                ticks / (3600.0 * Network.TICKS_PER_SECOND), seconds, ticks / seconds);
+        System.out.printf("stations=%d lines=%d delivered=%d waiting=%d%n", network.getStations().size(),
+                network.getLines().size(), network.getScore().getScore(), waiting);
+        if(network.getRouteCache() != null){
+            System.out.println(network.getRouteCache());
+        }
+        System.out.println(network.getPassengerStore());
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * IndexedMinHeap.java
+ * A binary min-heap of integer ids (such as station ids) keyed by a double
+ * priority. Keeps track of where each id is stored in the heap so that the
+ * priority of an id already in the heap can be decreased in O(log n) time.
+ * @author Suyu
+ * @version 1.0
+ */
+public class IndexedMinHeap {
+
+    // heap data - heap[] holds ids, keys[] holds the priority of the id at the same position
+    private int[] heap;
+    private double[] keys;
+    private int size = 0;
+
+    // position of each id in the heap, or -1 if the id is not in the heap
+    private int[] positions;
+
+    /**
+     * Creates a new empty IndexedMinHeap able to hold ids from 0 to capacity-1.
+     * The capacity grows automatically if larger ids are added.
+     * @param capacity the initial number of ids this heap can hold
+     */
+    public IndexedMinHeap(int capacity){
+        capacity = Math.max(capacity, 1);
+        heap = new int[capacity];
+        keys = new double[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Returns whether or not this heap is empty
+     * @return true if there are no ids in this heap, false otherwise
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of ids in this heap
+     * @return the number of ids in this heap
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Returns whether or not an id is currently in this heap
+     * @param id the id to check
+     * @return true if the id is in this heap, false otherwise
+     */
+    public boolean contains(int id){
+        return (id < positions.length) && (positions[id] != -1);
+    }
+
+    /**
+     * Adds an id to this heap with a given priority, or lowers the priority of the
+     * id if it is already in the heap and the new priority is lower.
+     * @param id  the id to add
+     * @param key the priority of the id, lower priorities are removed first
+     */
+    public void addOrDecrease(int id, double key){
+        ensureIdCapacity(id + 1);
+        int pos = positions[id];
+        if(pos == -1){
+            pos = size;
+            size++;
+            heap[pos] = id;
+            keys[pos] = key;
+            positions[id] = pos;
+            siftUp(pos);
+        }else if(key < keys[pos]){
+            keys[pos] = key;
+            siftUp(pos);
+        }
+    }
+
+    /**
+     * Gets the priority of the id at the top of this heap without removing it
+     * @return the lowest priority in this heap
+     */
+    public double peekKey(){
+        return keys[0];
+    }
+
+    /**
+     * Removes and returns the id with the lowest priority in this heap
+     * @return the id with the lowest priority, or -1 if this heap is empty
+     */
+    public int poll(){
+        if(size == 0){
+            return -1;
+        }
+        int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if(size > 0){
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Removes all ids from this heap. Only touches the ids currently in the heap,
+     * so this is cheap after a search that stopped early.
+     */
+    public void clear(){
+        for(int i=0; i<size; i++){
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the entry at a position up the heap until its parent has a lower priority
+     * @param pos the position of the entry in the heap
+     */
+    private void siftUp(int pos){
+        int id = heap[pos];
+        double key = keys[pos];
+        while(pos > 0){
+            int parent = (pos - 1) >>> 1;
+            if(keys[parent] <= key){
+                break;
+            }
+            heap[pos] = heap[parent];
+            keys[pos] = keys[parent];
+            positions[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = id;
+        keys[pos] = key;
+        positions[id] = pos;
+    }
+
+    /**
+     * Moves the entry at a position down the heap until its children have higher priorities
+     * @param pos the position of the entry in the heap
+     */
+    private void siftDown(int pos){
+        int id = heap[pos];
+        double key = keys[pos];
+        int half = size >>> 1;
+        while(pos < half){
+            int child = 2 * pos + 1;
+            if((child + 1 < size) && (keys[child + 1] < keys[child])){
+                child++;
+            }
+            if(key <= keys[child]){
+                break;
+            }
+            heap[pos] = heap[child];
+            keys[pos] = keys[child];
+            positions[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = id;
+        keys[pos] = key;
+        positions[id] = pos;
+    }
+
+    /**
+     * Grows the internal arrays so that ids up to capacity-1 can be stored
+     * @param capacity the number of ids that must fit in this heap
+     */
+    private void ensureIdCapacity(int capacity){
+        if(capacity > positions.length){
+            int newCapacity = Math.max(capacity, positions.length * 2);
+            int oldCapacity = positions.length;
+            heap = Arrays.copyOf(heap, newCapacity);
+            keys = Arrays.copyOf(keys, newCapacity);
+            positions = Arrays.copyOf(positions, newCapacity);
+            Arrays.fill(positions, oldCapacity, newCapacity, -1);
+        }
+    }
+}
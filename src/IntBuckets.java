@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+/**
+ * IntBuckets.java
+ * Groups of ints, each group stored under an int key. Used to group passenger ids
+ * at a station by the next station they're travelling to, and on a train by the
+ * station they'll get off at, so a stop only has to look at the passengers it
+ * affects. There are only ever a few keys in use at once, so keys are found by
+ * a linear search. Empty buckets are reused for new keys, so once enough buckets
+ * have been made, adding and removing values makes no garbage.
+ * @author Suyu
+ * @version 1.0
+ */
+public class IntBuckets {
+
+    // variables
+    private int[] keys = new int[4];
+    private IntList[] buckets = new IntList[4];
+    private int numBuckets = 0;
+    private int size = 0; // total number of values in all buckets
+
+    /**
+     * Adds a value to the end of the bucket for a key
+     * @param key   the key of the bucket
+     * @param value the value to add
+     */
+    public void add(int key, int value){
+        int index = indexOf(key);
+        if(index == -1){
+            index = newBucket(key);
+        }
+        buckets[index].add(value);
+        size++;
+    }
+
+    /**
+     * Gets the number of values in the bucket for a key
+     * @param key the key of the bucket
+     * @return the number of values in the bucket, 0 if there is no bucket for the key
+     */
+    public int size(int key){
+        int index = indexOf(key);
+        if(index == -1){
+            return 0;
+        }
+        return buckets[index].size();
+    }
+
+    /**
+     * Gets a value from the bucket for a key
+     * @param key the key of the bucket
+     * @param i   the index of the value in the bucket, from 0 to size(key)-1
+     * @return the value at the index in the bucket
+     */
+    public int get(int key, int i){
+        return buckets[indexOf(key)].get(i);
+    }
+
+    /**
+     * Removes the last value from the bucket for a key
+     * @param key the key of the bucket, which must not be empty
+     * @return the value removed
+     */
+    public int removeLast(int key){
+        IntList bucket = buckets[indexOf(key)];
+        size--;
+        return bucket.removeAt(bucket.size() - 1);
+    }
+
+    /**
+     * Removes all values from the bucket for a key
+     * @param key the key of the bucket
+     */
+    public void clear(int key){
+        int index = indexOf(key);
+        if(index != -1){
+            size -= buckets[index].size();
+            buckets[index].clear();
+        }
+    }
+
+    /**
+     * Moves all values in the bucket for a key to the end of a list, in order
+     * @param key the key of the bucket
+     * @param out the list to add the values to
+     */
+    public void drainTo(int key, IntList out){
+        int index = indexOf(key);
+        if(index != -1){
+            drainBucket(index, out);
+        }
+    }
+
+    /**
+     * Moves all values in all buckets to the end of a list. Values from the same
+     * bucket stay in order.
+     * @param out the list to add the values to
+     */
+    public void drainTo(IntList out){
+        for(int i=0; i<numBuckets; i++){
+            drainBucket(i, out);
+        }
+    }
+
+    /**
+     * Adds all values in all buckets to the end of a list, leaving them in the
+     * buckets. Values from the same bucket stay in order.
+     * @param out the list to add the values to
+     */
+    public void copyTo(IntList out){
+        for(int i=0; i<numBuckets; i++){
+            IntList bucket = buckets[i];
+            for(int j=0; j<bucket.size(); j++){
+                out.add(bucket.get(j));
+            }
+        }
+    }
+
+    /**
+     * Gets the total number of values in all buckets
+     * @return the number of values in all buckets
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Moves all values in a bucket to the end of a list
+     * @param index the index of the bucket
+     * @param out   the list to add the values to
+     */
+    private void drainBucket(int index, IntList out){
+        IntList bucket = buckets[index];
+        for(int i=0; i<bucket.size(); i++){
+            out.add(bucket.get(i));
+        }
+        size -= bucket.size();
+        bucket.clear();
+    }
+
+    /**
+     * Finds the bucket for a key
+     * @param key the key of the bucket
+     * @return the index of the bucket, or -1 if there is no bucket for the key
+     */
+    private int indexOf(int key){
+        for(int i=0; i<numBuckets; i++){
+            if(keys[i] == key){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets an empty bucket for a key, reusing an empty bucket of another key if there is one
+     * @param key the key of the bucket
+     * @return the index of the bucket
+     */
+    private int newBucket(int key){
+        for(int i=0; i<numBuckets; i++){
+            if(buckets[i].isEmpty()){
+                keys[i] = key;
+                return i;
+            }
+        }
+        if(numBuckets == keys.length){
+            keys = Arrays.copyOf(keys, numBuckets * 2);
+            buckets = Arrays.copyOf(buckets, numBuckets * 2);
+        }
+        keys[numBuckets] = key;
+        buckets[numBuckets] = new IntList();
+        numBuckets++;
+        return numBuckets - 1;
+    }
+}
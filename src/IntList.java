@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * IntList.java
+ * A growable list of ints, used to hold passenger ids at stations and on trains
+ * without boxing them. Removing from the middle shifts later elements down, so
+ * the order of the list is kept.
+ * @author Suyu
+ * @version 1.0
+ */
+public class IntList {
+
+    // variables
+    private int[] values;
+    private int size = 0;
+
+    /**
+     * Creates a new empty IntList
+     */
+    public IntList(){
+        this(8);
+    }
+
+    /**
+     * Creates a new empty IntList with room for a number of values before it has to grow
+     * @param capacity the number of values the list can hold before growing
+     */
+    public IntList(int capacity){
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Adds a value to the end of this list
+     * @param value the value to add
+     */
+    public void add(int value){
+        if(size == values.length){
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Gets a value from this list
+     * @param i the index of the value, from 0 to size()-1
+     * @return the value at the index
+     */
+    public int get(int i){
+        return values[i];
+    }
+
+    /**
+     * Removes a value from this list, shifting all later values down by one index
+     * @param i the index of the value to remove, from 0 to size()-1
+     * @return the value removed
+     */
+    public int removeAt(int i){
+        int value = values[i];
+        System.arraycopy(values, i + 1, values, i, size - i - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Removes a value from this list in constant time by moving the last value into
+     * its place, so the order of values is not kept
+     * @param i the index of the value to remove, from 0 to size()-1
+     * @return the value removed
+     */
+    public int swapRemove(int i){
+        int value = values[i];
+        size--;
+        values[i] = values[size];
+        return value;
+    }
+
+    /**
+     * Sorts the values in this list into ascending order
+     */
+    public void sort(){
+        Arrays.sort(values, 0, size);
+    }
+
+    /**
+     * Gets the number of values in this list
+     * @return the number of values in this list
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Returns whether or not this list is empty
+     * @return true if there are no values in this list, false otherwise
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Removes all values from this list, keeping its capacity
+     */
+    public void clear(){
+        size = 0;
+    }
+}
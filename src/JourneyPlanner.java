@@ -0,0 +1,310 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * JourneyPlanner.java
+ * Plans passenger journeys by how long they take rather than by how far they go.
+ * Searches a graph with a node for each station and a node for each stop of each
+ * line, so a journey knows which line it is riding and changing lines can cost
+ * something:
+ * - riding from one stop of a line to the next takes the time a train needs to
+ *   travel between the stations, plus the time it stops at the next one
+ * - boarding a line at a station takes the expected wait for a train of that
+ *   line plus the transfer penalty
+ * - getting off a line at a station takes no time
+ * Every journey boards at least once, so the transfer penalty only makes
+ * journeys that change lines more often cost more.
+ *
+ * A line's trains go back and forth along it, so a train passes each station in
+ * each direction once per round trip, and the expected wait is half the time
+ * between trains. The graph is rebuilt whenever the network topology changes,
+ * and is kept in flat arrays with the edges of each node next to each other.
+ * Searches use an indexed binary heap and generation stamps like Dijkstra does.
+ *
+ * Journeys are handed out as the stations they pass through, like every other
+ * PathFinder, so the line each leg was planned on is not kept. Passengers board
+ * any train heading to the next station of their journey, which may be on a
+ * different line than the one planned where two lines run between the same
+ * stations.
+ * @author Suyu
+ * @version 1.0
+ */
+public class JourneyPlanner implements PathFinder {
+
+    // references to network stuff
+    private Network network;
+    private ArrayList<Station> stations; // ArrayList of all stations, index in list is the station id
+
+    // variables
+    private double transferPenalty; // in ticks
+    private int builtVersion = -1; // topology version the graph was built for, -1 if it needs to be rebuilt
+
+    // Graph - nodes 0 to numStations-1 are stations, the rest are stops of lines
+    private int numNodes = 0;
+    private int numStations = 0;
+    private int[] nodeStations = new int[0]; // id of the station each node is at
+    private int[] edgeStarts = new int[1]; // edges of node i are from edgeStarts[i] to edgeStarts[i+1]-1
+    private int[] edgeTargets = new int[0];
+    private double[] edgeTicks = new double[0];
+    private int[] lineStops = new int[0]; // station ids of the stops of the line being added
+
+    // Data for searches
+    private IndexedMinHeap unsettledNodes = new IndexedMinHeap(16);
+    private double[] ticksToNode = new double[0]; // shortest time to each node found thus far
+    private int[] previousNodes = new int[0]; // node before each node on the fastest journey to it
+    private int[] reachedGeneration = new int[0]; // generation in which each node's time was last set
+    private int[] settledGeneration = new int[0]; // generation in which each node's fastest journey was found
+    private int generation = 0;
+    private IntList journeyStations = new IntList(); // stations of the journey being put together, from the end
+
+    /**
+     * Creates a new JourneyPlanner for a network
+     * @param network                the Network whose lines journeys are planned on
+     * @param transferPenaltySeconds the extra time, in seconds, that boarding a line is
+     *                               counted as taking on top of the wait for a train
+     */
+    public JourneyPlanner(Network network, double transferPenaltySeconds){
+        this.network = network;
+        this.stations = network.getStations();
+        setTransferPenalty(transferPenaltySeconds);
+    }
+
+    /**
+     * Sets the extra time boarding a line is counted as taking. Journeys planned
+     * from then on use the new penalty.
+     * @param transferPenaltySeconds the transfer penalty in seconds
+     */
+    public void setTransferPenalty(double transferPenaltySeconds){
+        this.transferPenalty = transferPenaltySeconds*Network.TICKS_PER_SECOND;
+        builtVersion = -1;
+    }
+
+    /**
+     * Finds the fastest journey between two stations, counting the time spent
+     * riding, stopping at stations, and waiting for trains, and the transfer
+     * penalty for each line boarded. Stops searching as soon as the fastest
+     * journey to the ending station is found.
+     * @param start the starting station
+     * @param end   the ending station
+     * @return an ArrayList of the stations the journey passes through, in order,
+     *         or null if the ending station can't be reached
+     */
+    public ArrayList<Station> getPath(Station start, Station end){
+        if(builtVersion != network.getTopologyVersion()){
+            rebuild();
+        }
+        int startId = start.getId();
+        int endId = end.getId();
+        if((startId >= numStations) || (endId >= numStations)){ // stations added since the last rebuild aren't on any line
+            if(startId != endId){
+                return null;
+            }
+            ArrayList<Station> path = new ArrayList<Station>(1);
+            path.add(start);
+            return path;
+        }
+        if(!search(startId, endId)){
+            return null;
+        }
+
+        // walk back from the end, skipping the stops at the same station as the node after them
+        journeyStations.clear();
+        for(int node = endId; node != -1; node = previousNodes[node]){
+            int station = nodeStations[node];
+            if(journeyStations.isEmpty() || (journeyStations.get(journeyStations.size()-1) != station)){
+                journeyStations.add(station);
+            }
+        }
+        ArrayList<Station> path = new ArrayList<Station>(journeyStations.size());
+        for(int i=journeyStations.size()-1; i>=0; i--){
+            path.add(stations.get(journeyStations.get(i)));
+        }
+        return path;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm over the graph from a starting station, stopping
+     * as soon as the fastest journey to the target station is found
+     * @param startId  the id of the starting station
+     * @param targetId the id of the station to stop at
+     * @return true if the target station was reached
+     */
+    private boolean search(int startId, int targetId){
+        newGeneration();
+        ticksToNode[startId] = 0.0;
+        previousNodes[startId] = -1;
+        reachedGeneration[startId] = generation;
+        unsettledNodes.addOrDecrease(startId, 0.0);
+
+        while(!unsettledNodes.isEmpty()){
+            int closest = unsettledNodes.poll();
+            settledGeneration[closest] = generation;
+            if(closest == targetId){
+                unsettledNodes.clear();
+                return true;
+            }
+
+            double ticksToClosest = ticksToNode[closest];
+            for(int edge = edgeStarts[closest]; edge < edgeStarts[closest+1]; edge++){
+                int neighbour = edgeTargets[edge];
+                if(settledGeneration[neighbour] == generation){
+                    continue;
+                }
+                double ticksViaClosest = ticksToClosest + edgeTicks[edge];
+                if((reachedGeneration[neighbour] != generation) || (ticksViaClosest < ticksToNode[neighbour])){
+                    ticksToNode[neighbour] = ticksViaClosest;
+                    previousNodes[neighbour] = closest;
+                    reachedGeneration[neighbour] = generation;
+                    unsettledNodes.addOrDecrease(neighbour, ticksViaClosest);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts a new search generation
+     */
+    private void newGeneration(){
+        generation++;
+        if(generation == Integer.MAX_VALUE){ // stamps would wrap around, so start over
+            Arrays.fill(reachedGeneration, 0);
+            Arrays.fill(settledGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the network's current stations and lines. The
+     * edges of every node are counted first, so each node's edges can be put
+     * straight into place next to each other.
+     */
+    private void rebuild(){
+        LinkedList<MetroLine> lines = network.getLines();
+        numStations = stations.size();
+        numNodes = numStations;
+        for(MetroLine line:lines){
+            numNodes += line.getStations().size();
+        }
+        if(nodeStations.length < numNodes){
+            int capacity = Math.max(numNodes, nodeStations.length * 2);
+            nodeStations = new int[capacity];
+            edgeStarts = new int[capacity + 1];
+            ticksToNode = new double[capacity];
+            previousNodes = new int[capacity];
+            reachedGeneration = new int[capacity]; // new arrays have no stamps from older generations
+            settledGeneration = new int[capacity];
+        }
+        for(int i=0; i<numStations; i++){
+            nodeStations[i] = i;
+        }
+
+        // count the edges of each node in the slot after it, then add up the counts
+        // so each node's edges start where the previous node's end
+        Arrays.fill(edgeStarts, 0, numNodes + 1, 0);
+        int node = numStations;
+        for(MetroLine line:lines){
+            int numStops = line.getStations().size();
+            int i = 0;
+            for(Station stop:line.getStations()){
+                nodeStations[node] = stop.getId();
+                if(!line.getTrains().isEmpty()){
+                    edgeStarts[stop.getId() + 1]++; // boarding
+                }
+                edgeStarts[node + 1]++; // getting off
+                if(i > 0){
+                    edgeStarts[node + 1]++; // riding back
+                }
+                if(i < numStops-1){
+                    edgeStarts[node + 1]++; // riding forward
+                }
+                node++;
+                i++;
+            }
+        }
+        for(int i=0; i<numNodes; i++){
+            edgeStarts[i + 1] += edgeStarts[i];
+        }
+        int numEdges = edgeStarts[numNodes];
+        if(edgeTargets.length < numEdges){
+            edgeTargets = new int[Math.max(numEdges, edgeTargets.length * 2)];
+            edgeTicks = new double[edgeTargets.length];
+        }
+
+        // fill in the edges, using each node's start as where its next edge goes and
+        // then moving the starts back once every edge is in place
+        node = numStations;
+        for(MetroLine line:lines){
+            int numStops = line.getStations().size();
+            if(lineStops.length < numStops){
+                lineStops = new int[Math.max(numStops, lineStops.length * 2)];
+            }
+            int i = 0;
+            for(Station stop:line.getStations()){
+                lineStops[i] = stop.getId();
+                i++;
+            }
+
+            // a train rides the whole line and back once per round trip, stopping at every station
+            double oneWayTicks = 0;
+            for(i=0; i<numStops-1; i++){
+                oneWayTicks += getRideTicks(lineStops[i], lineStops[i + 1]);
+            }
+            double boardingTicks = oneWayTicks/Math.max(1, line.getTrains().size()) + transferPenalty;
+
+            for(i=0; i<numStops; i++){
+                int stopNode = node + i;
+                if(!line.getTrains().isEmpty()){
+                    addEdge(lineStops[i], stopNode, boardingTicks);
+                }
+                addEdge(stopNode, lineStops[i], 0.0);
+                if(i > 0){
+                    addEdge(stopNode, stopNode - 1, getRideTicks(lineStops[i], lineStops[i - 1]));
+                }
+                if(i < numStops-1){
+                    addEdge(stopNode, stopNode + 1, getRideTicks(lineStops[i], lineStops[i + 1]));
+                }
+            }
+            node += numStops;
+        }
+        for(int i=numNodes; i>0; i--){
+            edgeStarts[i] = edgeStarts[i - 1];
+        }
+        edgeStarts[0] = 0;
+        builtVersion = network.getTopologyVersion();
+    }
+
+    /**
+     * Adds an edge to the graph while it is being rebuilt
+     * @param from  the node the edge leaves from
+     * @param to    the node the edge goes to
+     * @param ticks the time taken to follow the edge, in ticks
+     */
+    private void addEdge(int from, int to, double ticks){
+        int edge = edgeStarts[from];
+        edgeTargets[edge] = to;
+        edgeTicks[edge] = ticks;
+        edgeStarts[from]++;
+    }
+
+    /**
+     * Gets the time taken to ride a train between two neighbouring stops of a
+     * line, including stopping at the second one
+     * @param fromId the id of the station ridden from
+     * @param toId   the id of the station ridden to
+     * @return the time taken in ticks
+     */
+    private double getRideTicks(int fromId, int toId){
+        double distance = stations.get(fromId).getConnections().get(stations.get(toId));
+        return Train.getTravelTicks(distance) + Train.getStopTicks();
+    }
+
+    /**
+     * Gets the number of nodes in the graph as it was last built
+     * @return the number of stations plus the number of stops of all lines
+     */
+    public int getNumNodes(){
+        return numNodes;
+    }
+}
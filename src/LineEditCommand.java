@@ -0,0 +1,89 @@
+/**
+ * LineEditCommand.java
+ * A single mouse input used to edit lines: a press, drag, or release at a point
+ * on the map. Commands are made on the UI thread, which moves the mouse's screen
+ * position onto the map through the camera, and applied to the network by the
+ * simulation thread, so they only hold raw map coordinates. Commands
+ * that have been applied also record the tick they were applied at, so a game
+ * can be replayed from its edit log.
+ * @author Suyu
+ * @version 1.0
+ */
+public final class LineEditCommand {
+
+    // Types of commands
+    public static final int PRESS = 0;
+    public static final int DRAG = 1;
+    public static final int RELEASE = 2;
+
+    // variables
+    private final int type;
+    private final int x, y;
+    private final int tick;
+
+    /**
+     * Creates a new LineEditCommand that has not been applied yet
+     * @param type the type of command, PRESS, DRAG, or RELEASE
+     * @param x    the x coordinate of the mouse on the map
+     * @param y    the y coordinate of the mouse on the map
+     */
+    public LineEditCommand(int type, int x, int y){
+        this(type, x, y, -1);
+    }
+
+    /**
+     * Creates a new LineEditCommand applied at a specific tick
+     * @param type the type of command, PRESS, DRAG, or RELEASE
+     * @param x    the x coordinate of the mouse on the map
+     * @param y    the y coordinate of the mouse on the map
+     * @param tick the tick the command was applied at, or -1 if it has not been applied
+     */
+    public LineEditCommand(int type, int x, int y, int tick){
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.tick = tick;
+    }
+
+    /**
+     * Gets the type of this command
+     * @return PRESS, DRAG, or RELEASE
+     */
+    public int getType(){
+        return type;
+    }
+
+    /**
+     * Gets the x coordinate of the mouse
+     * @return the x coordinate of the mouse on the map
+     */
+    public int getX(){
+        return x;
+    }
+
+    /**
+     * Gets the y coordinate of the mouse
+     * @return the y coordinate of the mouse on the map
+     */
+    public int getY(){
+        return y;
+    }
+
+    /**
+     * Gets the tick this command was applied at
+     * @return the number of ticks the network had run before this command was
+     *         applied, or -1 if it has not been applied
+     */
+    public int getTick(){
+        return tick;
+    }
+
+    /**
+     * Gets a String representation of this command, for edit logs
+     * @return the tick, type, and coordinates of this command
+     */
+    public String toString(){
+        String[] names = {"PRESS", "DRAG", "RELEASE"};
+        return tick + " " + names[type] + " " + x + " " + y;
+    }
+}
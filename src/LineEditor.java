@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * LineEditor.java
+ * Creates and extends MetroLines using TempMetroLines, by applying the
+ * LineEditCommands sent from the mouse. Runs on the simulation thread, at the
+ * start of a tick, so the network is only ever changed by the thread that
+ * updates it. Every command applied is added to an edit log.
+ * @author Suyu
+ * @version 1.0
+ */
+public class LineEditor {
+
+    // References to network stuff
+    private Network network;
+    private ArrayList<Station> stations;
+    private StationGridIndex stationIndex;
+
+    // Variables
+    private TempMetroLine tempLine = null;
+    private Station previousSelected = null;
+    private int multipleTerminusStationChoice = 0;
+    private ArrayList<MetroLine> linesTerminatingAtSelected = new ArrayList<MetroLine>();
+
+    // Commands
+    private LineEditCommand[] pending; // commands taken from the queue in the current tick
+    private ArrayList<LineEditCommand> log = new ArrayList<LineEditCommand>();
+
+    /**
+     * Creates a new LineEditor for a Network
+     * @param network the Network this LineEditor edits
+     * @param maxCommandsPerTick the most commands that can be taken from the queue in one tick
+     */
+    LineEditor(Network network, int maxCommandsPerTick){
+        this.network = network;
+        this.stations = network.getStations();
+        this.stationIndex = network.getStationIndex();
+        this.pending = new LineEditCommand[maxCommandsPerTick];
+    }
+
+    /**
+     * Applies all commands waiting in a queue, then, once the queue has been
+     * emptied, the presses and releases that overflowed it, which were all sent
+     * after the commands in the queue. A drag that is followed by another drag
+     * and that doesn't move the mouse on or off a station would only move the end
+     * of the temporary line, which the next drag does anyway, so it is skipped.
+     * @param queue    the queue of commands from the mouse
+     * @param overflow the presses and releases that didn't fit in the queue
+     * @param tick     the current tick, recorded in the edit log
+     */
+    void applyQueuedCommands(CommandQueue<LineEditCommand> queue, Queue<LineEditCommand> overflow, int tick){
+        int numPending = 0;
+        LineEditCommand command = null;
+        while((numPending < pending.length) && ((command = queue.poll()) != null)){
+            pending[numPending] = command;
+            numPending++;
+        }
+        boolean queueEmptied = (command == null);
+        for(int i=0; i<numPending; i++){
+            command = pending[i];
+            pending[i] = null;
+            boolean nextIsDrag = (i+1 < numPending) && (pending[i+1].getType() == LineEditCommand.DRAG);
+            if((command.getType() != LineEditCommand.DRAG) || !nextIsDrag || changesSelection(command)){
+                apply(command, tick);
+            }
+        }
+        if(queueEmptied){
+            while((command = overflow.poll()) != null){
+                apply(command, tick);
+            }
+        }
+    }
+
+    /**
+     * Applies a command to the network and adds it to the edit log
+     * @param command the command to apply
+     * @param tick    the current tick, recorded in the edit log
+     */
+    void apply(LineEditCommand command, int tick){
+        log.add(new LineEditCommand(command.getType(), command.getX(), command.getY(), tick));
+        if(command.getType() == LineEditCommand.PRESS){
+            press(command.getX(), command.getY());
+        }else if(command.getType() == LineEditCommand.DRAG){
+            drag(command.getX(), command.getY());
+        }else{
+            release();
+        }
+    }
+
+    /**
+     * Gets all commands applied so far, in the order they were applied
+     * @return an unmodifiable view of the edit log
+     */
+    public List<LineEditCommand> getLog(){
+        return Collections.unmodifiableList(log);
+    }
+
+    /**
+     * Checks if a drag command would do more than move the end of the temporary
+     * line, by moving the mouse on or off a station
+     * @param command the drag command
+     * @return true if the drag changes the stations on the temporary line or the
+     *         station the mouse is on
+     */
+    private boolean changesSelection(LineEditCommand command){
+        if(tempLine == null){
+            return false;
+        }
+        Station selected = stationSelected(command.getX(), command.getY());
+        return selected != previousSelected;
+    }
+
+    /**
+     * Handles a mouse press.
+     *
+     * Checks if the press is on a station, then establishes a new TempMetroLine in
+     * the network as an extension if the station was a terminus of an existing
+     * line, or as a new line if the station was not an existing line terminus. If
+     * multiple lines end at the station where the mouse was pressed, repeated mouse
+     * presses will cycle through extending the lines terminating at that station.
+     *
+     * @param pressX the x coordinate of the mouse on the map
+     * @param pressY the y coordinate of the mouse on the map
+     */
+    private void press(int pressX, int pressY){
+
+        // check if the mouse was pressed on a station
+        Station selected = stationSelected(pressX, pressY);
+
+        if(selected != null){ //i.e. if mouse press was on a station
+
+            // Figure out which lines (if any) this station is a terminus of
+            linesTerminatingAtSelected = network.getLinesTerminatingAtStation(selected);
+
+            // If this station is not a terminus of any line, add a tempLine as a new line, otherwise,
+            // add a tempLine as an extension of the line terminating at the selected station
+            if(linesTerminatingAtSelected.isEmpty()){
+                tempLine = network.newTempLine(selected);
+            }else{
+                // If multiple lines terminate at this station, cycle through them as the user
+                // tries extending from the station multiple times
+                multipleTerminusStationChoice ++;
+                if(multipleTerminusStationChoice >= linesTerminatingAtSelected.size()){
+                    multipleTerminusStationChoice = 0;
+                }
+                tempLine = network.newTempLine(selected, linesTerminatingAtSelected.get(multipleTerminusStationChoice));
+            }
+
+            // update this for reference later in drag
+            previousSelected = selected;
+        }
+    }
+
+    /**
+     * Handles a mouse release.
+     *
+     * Finalizes any TempMetroLine that has been created and resets variables to
+     * prepare for another mouse press.
+     */
+    private void release(){
+        if(tempLine != null){
+            network.finalizeTempLine();
+        }
+        tempLine = null;
+        previousSelected = null;
+    }
+
+    /**
+     * Handles a mouse drag (moved while button held down)
+     *
+     * Updates the TempMetroLine being drawn (if there is one): Updates the mouse
+     * point for the TempMetroLine so that the line extends to the mouse cursor.
+     * Adds a station to the TempMetroLine if the mouse is dragged onto a station
+     * not already on the line. Removes a station from the TempMetroLine if the
+     * mouse is dragged onto the last station that was added.
+     *
+     * @param mouseX the x coordinate of the mouse on the map
+     * @param mouseY the y coordinate of the mouse on the map
+     */
+    private void drag(int mouseX, int mouseY){
+        if(tempLine != null){
+            tempLine.updateMousePoint(mouseX, mouseY); // method ensures tempMetroLine extends to the mouse cursor
+
+            Station selected = stationSelected(mouseX, mouseY);
+            if((selected!=null)&&(selected!=previousSelected)){
+                tempLine.addRemoveStation(selected); // add or remove station depending on if it is already on the line; remove
+                                                     // if the station was the last one just added
+                previousSelected = selected; // prevents the same station from being added multiple times while the mouse is
+                                             // still on the same station
+            }else if(selected == null){
+                previousSelected = null;
+            }
+        }
+    }
+
+    /**
+     * Checks if a point on the map is on the circular icon of any station. Only
+     * stations in the cells of the station index around the point are checked.
+     * @param x the x coordinate of the point on the map
+     * @param y the y coordinate of the point on the map
+     * @return the Station that the point lies on, or null if the point is not on a station
+     */
+    private Station stationSelected(int x, int y){
+        int id = stationIndex.stationAt(x, y, Station.getOuterWidth() / 2);
+        if(id == -1){
+            return null;
+        }
+        return stations.get(id);
+    }
+}
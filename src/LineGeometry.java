@@ -0,0 +1,81 @@
+/**
+ * LineGeometry.java
+ * An immutable copy of the points of a line, in screen coordinates, along with
+ * the line's color. A new LineGeometry is made whenever a line changes, so it can
+ * be handed to the drawing thread and cached there for as long as it is the same
+ * object.
+ * @author Suyu
+ * @version 1.0
+ */
+public final class LineGeometry {
+
+    // variables
+    private final int colorIndex;
+    private final int[] xs;
+    private final int[] ys;
+
+    /**
+     * Creates a new LineGeometry from the points of a line
+     * @param colorIndex the index of the line's color in the line color palette
+     * @param points     the points of the line
+     * @param extraPoints points to add after the points of the line, as length 2 int
+     *                    arrays, null points are skipped
+     */
+    public LineGeometry(int colorIndex, PointBuffer points, int[]... extraPoints){
+        this.colorIndex = colorIndex;
+        int numExtra = 0;
+        for(int[] point:extraPoints){
+            if(point != null){
+                numExtra++;
+            }
+        }
+        xs = new int[points.size() + numExtra];
+        ys = new int[points.size() + numExtra];
+        int i = 0;
+        for(; i<points.size(); i++){
+            xs[i] = points.getX(i);
+            ys[i] = points.getY(i);
+        }
+        for(int[] point:extraPoints){
+            if(point != null){
+                xs[i] = point[0];
+                ys[i] = point[1];
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Gets the color of this line
+     * @return the index of this line's color in the line color palette
+     */
+    public int getColorIndex(){
+        return colorIndex;
+    }
+
+    /**
+     * Gets the number of points in this line
+     * @return the number of points in this line
+     */
+    public int getNumPoints(){
+        return xs.length;
+    }
+
+    /**
+     * Gets the x coordinate of a point
+     * @param i the index of the point
+     * @return the x coordinate of the point on the screen
+     */
+    public int getX(int i){
+        return xs[i];
+    }
+
+    /**
+     * Gets the y coordinate of a point
+     * @param i the index of the point
+     * @return the y coordinate of the point on the screen
+     */
+    public int getY(int i){
+        return ys[i];
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+
+/**
+ * LineSegmentIndex.java
+ * A uniform grid over the map that the segments of every line in a snapshot
+ * are put into, so the segments in a rectangle of the map can be found by only
+ * looking at the cells the rectangle covers instead of at every segment of
+ * every line. Used by the NetworkRenderer to only draw the parts of lines that
+ * are on the screen. Segment i of a line goes from point i to point i+1.
+ *
+ * Lines only change when the topology does, so the index is rebuilt from
+ * scratch then. Each segment is put into every cell its bounding box covers,
+ * and the entries in each cell are chained together through arrays, so
+ * rebuilding makes no garbage once the arrays have grown.
+ * @author Suyu
+ * @version 1.0
+ */
+public class LineSegmentIndex {
+
+    // Constants
+    private static final int CELL_SIZE = 8; // in grid spaces
+
+    // Cells
+    private double cellPixels;
+    private int cols, rows;
+    private int[] cellFirst; // first entry in each cell, or -1
+
+    // Entries - one for each cell a segment is in
+    private int numEntries = 0;
+    private int[] entryLines = new int[64];
+    private int[] entrySegments = new int[64];
+    private int[] nextEntry = new int[64]; // next entry in the same cell, or -1
+
+    // Lines in the index
+    private LineGeometry[] lines = new LineGeometry[0];
+    private int numLines = 0;
+
+    // Marks for segments already found by the current query, so a segment in several cells is only found once
+    private int[][] segmentQueries = new int[Network.MAX_LINES][0];
+    private int query = 0;
+
+    /**
+     * Creates a new empty LineSegmentIndex covering the map
+     * @param grid ScreenGrid object representing the game grid, whose screen size is the size of the map
+     */
+    public LineSegmentIndex(ScreenGrid grid){
+        cellPixels = grid.getGridSize() * CELL_SIZE;
+        cols = (int) Math.ceil(grid.getScreenW() / cellPixels) + 1;
+        rows = (int) Math.ceil(grid.getScreenH() / cellPixels) + 1;
+        cellFirst = new int[cols * rows];
+        Arrays.fill(cellFirst, -1);
+    }
+
+    /**
+     * Replaces everything in this index with the segments of the lines in a snapshot
+     * @param snapshot the RenderSnapshot containing the lines
+     */
+    public void build(RenderSnapshot snapshot){
+        Arrays.fill(cellFirst, -1);
+        numEntries = 0;
+        numLines = snapshot.getNumLines();
+        if(lines.length < numLines){
+            lines = new LineGeometry[numLines];
+        }
+        for(int line=0; line<numLines; line++){
+            LineGeometry geometry = snapshot.getLine(line);
+            lines[line] = geometry;
+            if(segmentQueries[line].length < geometry.getNumPoints()){
+                segmentQueries[line] = new int[geometry.getNumPoints() * 2];
+            }
+            for(int segment=0; segment<geometry.getNumPoints()-1; segment++){
+                int minCol = clampCol(cellOf(Math.min(geometry.getX(segment), geometry.getX(segment + 1))));
+                int maxCol = clampCol(cellOf(Math.max(geometry.getX(segment), geometry.getX(segment + 1))));
+                int minRow = clampRow(cellOf(Math.min(geometry.getY(segment), geometry.getY(segment + 1))));
+                int maxRow = clampRow(cellOf(Math.max(geometry.getY(segment), geometry.getY(segment + 1))));
+                for(int row = minRow; row <= maxRow; row++){
+                    for(int col = minCol; col <= maxCol; col++){
+                        addEntry(row * cols + col, line, segment);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a segment to a cell
+     * @param cell    the index of the cell
+     * @param line    the index of the line in the snapshot
+     * @param segment the index of the segment in the line
+     */
+    private void addEntry(int cell, int line, int segment){
+        if(numEntries == nextEntry.length){
+            entryLines = Arrays.copyOf(entryLines, numEntries * 2);
+            entrySegments = Arrays.copyOf(entrySegments, numEntries * 2);
+            nextEntry = Arrays.copyOf(nextEntry, numEntries * 2);
+        }
+        entryLines[numEntries] = line;
+        entrySegments[numEntries] = segment;
+        nextEntry[numEntries] = cellFirst[cell];
+        cellFirst[cell] = numEntries;
+        numEntries++;
+    }
+
+    /**
+     * Finds all segments whose bounding boxes overlap a rectangle of the map
+     * @param minX the x coordinate of the left edge of the rectangle on the map
+     * @param minY the y coordinate of the top edge of the rectangle on the map
+     * @param maxX the x coordinate of the right edge of the rectangle on the map
+     * @param maxY the y coordinate of the bottom edge of the rectangle on the map
+     * @param out  lists to add the indices of the segments found to, one for each
+     *             line in the index, in no particular order
+     */
+    public void withinRect(double minX, double minY, double maxX, double maxY, IntList[] out){
+        query++;
+        if(query == Integer.MAX_VALUE){ // start the marks over rather than let them wrap around
+            for(int[] marks:segmentQueries){
+                Arrays.fill(marks, 0);
+            }
+            query = 1;
+        }
+        int minCol = clampCol(cellOf(minX));
+        int maxCol = clampCol(cellOf(maxX));
+        int minRow = clampRow(cellOf(minY));
+        int maxRow = clampRow(cellOf(maxY));
+        for(int row = minRow; row <= maxRow; row++){
+            for(int col = minCol; col <= maxCol; col++){
+                for(int entry = cellFirst[row * cols + col]; entry != -1; entry = nextEntry[entry]){
+                    int line = entryLines[entry];
+                    int segment = entrySegments[entry];
+                    if(segmentQueries[line][segment] == query){
+                        continue;
+                    }
+                    segmentQueries[line][segment] = query;
+                    LineGeometry geometry = lines[line];
+                    if((Math.max(geometry.getX(segment), geometry.getX(segment + 1)) >= minX)
+                            && (Math.min(geometry.getX(segment), geometry.getX(segment + 1)) <= maxX)
+                            && (Math.max(geometry.getY(segment), geometry.getY(segment + 1)) >= minY)
+                            && (Math.min(geometry.getY(segment), geometry.getY(segment + 1)) <= maxY)){
+                        out[line].add(segment);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the cell a coordinate on the map is in
+     * @param mapCoordinate the x or y coordinate on the map
+     * @return the column or row of the cell, which may be outside the grid of cells
+     */
+    private int cellOf(double mapCoordinate){
+        return (int) Math.floor(mapCoordinate / cellPixels);
+    }
+
+    /**
+     * Clamps a column to the grid of cells
+     * @param col the column
+     * @return the nearest column in the grid of cells
+     */
+    private int clampCol(int col){
+        return Math.max(0, Math.min(cols - 1, col));
+    }
+
+    /**
+     * Clamps a row to the grid of cells
+     * @param row the row
+     * @return the nearest row in the grid of cells
+     */
+    private int clampRow(int row){
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+}
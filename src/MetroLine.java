@@ -1,8 +1,3 @@
-import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.Color;
-import java.awt.BasicStroke;
-import java.awt.geom.Path2D;
 import java.util.LinkedList;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,14 +8,15 @@ import java.util.Collections;
  * @author Suyu
  * @version 1.0
  */
-public class MetroLine implements DrawableGameObject{
+public class MetroLine{
 
     // variables
-    private static BasicStroke lineStroke;
-    private Color lineColor;
+    private int colorIndex;
     private LinkedList<Station> stations = new LinkedList<Station>();
-    private LinkedList<int[]> points = new LinkedList<int[]>();
-    private Path2D.Float path = new Path2D.Float();
+    private ArrayList<Station> stationsByIndex = new ArrayList<Station>(); // same stations, for trains to look up by index without walking the list
+    private PointBuffer points = new PointBuffer();
+    private IntList stationPoints = new IntList(); // index in points of each station's point, by index of the station
+    private LineGeometry geometry = null; // copy of the points for drawing, remade when the line changes
     private ArrayList<Train> trains = new ArrayList<Train>(); 
     
     /**
@@ -28,20 +24,17 @@ public class MetroLine implements DrawableGameObject{
      * stations, points, and color from the TempMetroLine.
      *  
      * @param tempLine the TempMetroLine to use to create a new MetroLine
-     * @throws ClassNotInitializedException if initializeClass() has not yet been
-     *                                      called yet
+     * @throws ClassNotInitializedException if Train.initializeClass() has not yet
+     *                                      been called yet
      */
     public MetroLine(TempMetroLine tempLine) throws ClassNotInitializedException{
-        if(!isInitialized()){
-            MetroLine.lineStroke = TempMetroLine.getStroke();
-            if(!isInitialized()){
-                throw new ClassNotInitializedException();
-            }
-        }
         this.stations = tempLine.getStations();
-        this.path = tempLine.getPath();
         this.points = tempLine.getPoints();
-        this.lineColor = tempLine.getColor();
+        this.colorIndex = tempLine.getColorIndex();
+        stationsByIndex.addAll(stations);
+        for(int i=0; i<stations.size(); i++){
+            stationPoints.add(tempLine.getStationPoint(i));
+        }
         trains.add(new Train(this));
     }
 
@@ -55,12 +48,12 @@ public class MetroLine implements DrawableGameObject{
 
         // ensure the tempLine is actually more than 1 station
         if(tempLine.hasMultipleStations()){
-            LinkedList<int[]> pointsToAdd = tempLine.getPoints();
+            PointBuffer pointsToAdd = tempLine.getPoints();
+            int numNewStations = tempLine.getStations().size();
             LinkedList<Station> stationsToAdd = new LinkedList<Station> (tempLine.getStations());
 
-            // Processing the tempLine - remove the first entries in the points and stations, 
+            // Processing the tempLine - skip the first point and remove the first station, 
             // since these are already part of this MetroLine
-            pointsToAdd.removeFirst(); 
             stationsToAdd.removeFirst();
 
             // case where the line is being extended from the 'end' of the data structures
@@ -68,25 +61,44 @@ public class MetroLine implements DrawableGameObject{
 
                 // add everything
                 this.stations.addAll(stationsToAdd);
-                this.points.addAll(pointsToAdd);
-                this.path.append(tempLine.getPath(), false);
+                stationsByIndex.addAll(stationsToAdd);
+                int firstNewPoint = this.points.size() - 1; // the tempLine's first point is this line's last
+                for(int i=1; i<numNewStations; i++){
+                    stationPoints.add(firstNewPoint + tempLine.getStationPoint(i));
+                }
+                for(int i=1; i<pointsToAdd.size(); i++){
+                    this.points.addLast(pointsToAdd.getX(i), pointsToAdd.getY(i));
+                }
+                geometry = null;
 
             // Case where line is being extended fron the 'beginning' of the data structures
             }else if(this.stations.getFirst()==tempLine.getStations().getFirst()){
 
-                // need to reverse everything before adding
-                Collections.reverse(pointsToAdd);
+                // need to reverse everything before adding - adding each point to the
+                // beginning in turn reverses the points
                 Collections.reverse(stationsToAdd);
                 this.stations.addAll(0, stationsToAdd);
-                this.points.addAll(0, pointsToAdd);
-
-                // remake path, since it's not possible to extend from the beginning of a Path2D
-                path.reset();
-                path = Path2DTools.makePathWithPoints(this.points);
-
-                // Update train's data since the indexes all changed
+                for(int i=1; i<pointsToAdd.size(); i++){
+                    this.points.addFirst(pointsToAdd.getX(i), pointsToAdd.getY(i));
+                }
+                geometry = null;
+
+                // Update train's data since the indexes all changed. The tempLine's point
+                // i ends up at index pointsToAdd.size()-1-i, and the old points move up by
+                // the number of points added
+                stationsByIndex.clear();
+                stationsByIndex.addAll(this.stations);
+                int pointsAdded = pointsToAdd.size() - 1;
+                IntList oldStationPoints = stationPoints;
+                stationPoints = new IntList(oldStationPoints.size() + numNewStations);
+                for(int i=numNewStations-1; i>=1; i--){
+                    stationPoints.add(pointsAdded - tempLine.getStationPoint(i));
+                }
+                for(int i=0; i<oldStationPoints.size(); i++){
+                    stationPoints.add(oldStationPoints.get(i) + pointsAdded);
+                }
                 for(Train train:trains){
-                    train.updateForLineBeginningExtension(pointsToAdd.size(), stationsToAdd.size());
+                    train.updateForLineBeginningExtension(pointsAdded, stationsToAdd.size());
                 }
             }
             
@@ -94,80 +106,84 @@ public class MetroLine implements DrawableGameObject{
     }
 
     /**
-     * Initializes class static variables with information from the game grid (screen 
-     * size). Must be called before any MetroLine instances are created
-     * @param grid the ScreenGrid object representing the game grid
+     * Gets a LinkedList of all stations on this line, in order
+     * @return a LinkedList of all stations on this line, in order
      */
-    public static void initializeClass(ScreenGrid grid){
-        lineStroke = new BasicStroke((int) Math.round(grid.getGridSize() * 0.2), BasicStroke.CAP_BUTT,
-                BasicStroke.JOIN_ROUND);
+    public LinkedList<Station> getStations(){
+        return stations;
     }
 
     /**
-     * Returns whether or not initializeClass() has been called using a valid game grid
-     * @return true if this class has been initialized with a valid game grid, false otherwise
+     * Gets a station on this line by its index, without walking the list of stations
+     * @param index the index of the station, from 0 to getNumStations()-1
+     * @return the station at that index
      */
-    public static boolean isInitialized(){
-        if(lineStroke == null){
-            return false;
-        }else{
-            return true;
-        }
+    public Station getStation(int index){
+        return stationsByIndex.get(index);
     }
 
     /**
-     * Gets a LinkedList of all stations on this line, in order
-     * @return a LinkedList of all stations on this line, in order
+     * Gets the number of stations on this line
+     * @return the number of stations on this line
      */
-    public LinkedList<Station> getStations(){
-        return stations;
+    public int getNumStations(){
+        return stationsByIndex.size();
     }
 
     /**
-     * Gets the color of this line
-     * @return A Color object; the color of this line
+     * Gets how far along this line a station is. Each station's point is kept when
+     * the line is made or extended, so no points are searched.
+     * @param index the index of the station, from 0 to getNumStations()-1
+     * @return the distance along the line from its first point to the station
      */
-    public Color getColor(){
-        return lineColor;
+    public double getStationDistance(int index){
+        return points.getDistance(stationPoints.get(index));
     }
 
     /**
-     * Gets a LinkedList of all points on this line, in order
-     * @return a LinkedList of all points on this line, in order
+     * Gets the color of this line
+     * @return the index of this line's color in the line color palette
      */
-    public LinkedList<int[]> getPoints(){
-        return points;
+    public int getColorIndex(){
+        return colorIndex;
     }
 
     /**
-     * Updates the state of all trains on this line
+     * Gets an immutable copy of the points and color of this line for drawing. The
+     * same object is returned until this line is extended.
+     * @return the LineGeometry of this line
      */
-    public void updateTrains() {
-        for(Train train:trains){
-            train.update();
+    public LineGeometry getGeometry(){
+        if(geometry == null){
+            geometry = new LineGeometry(colorIndex, points);
         }
+        return geometry;
     }
 
     /**
-     * Draws this MetroLine and associated trains on the screen
-     * @param g Graphics object to draw with
-     * @param grid ScreenGrid object of the game grid
+     * Gets all points on this line, in order. Points are only ever added, and the
+     * same PointBuffer is kept when the line is extended.
+     * @return a PointBuffer of all points on this line, in order
      */
-    public void draw(Graphics graphics, ScreenGrid grid) {
-
-        // set graphics stuff, need to cast to Graphics2D to use g.draw()
-        Graphics2D g = (Graphics2D) graphics;
-        g.setStroke(lineStroke);
-        g.setColor(lineColor);
+    public PointBuffer getPoints(){
+        return points;
+    }
 
-        // draw the line
-        g.draw(path);
+    /**
+     * Gets all trains running on this line
+     * @return an ArrayList of all trains on this line
+     */
+    public ArrayList<Train> getTrains(){
+        return trains;
+    }
 
-        // draw all trains on the line
-        for(Train train:trains){
-            train.draw(g,grid);
+    /**
+     * Updates the state of all trains on this line
+     */
+    public void updateTrains() {
+        for(int i=0; i<trains.size(); i++){ // by index, so no iterator is made every tick
+            trains.get(i).update();
         }
-
     }
 
 }
@@ -1,30 +1,31 @@
-import java.awt.Color;
-import java.awt.Graphics;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Network.java
  * The network of lines and stations, handling interactions between 
- * different network elements and changes to the network
+ * different network elements and changes to the network. Contains only the
+ * simulation, drawing is done by NetworkRenderer.
  * @author Suyu
  * @version 1.0
  */
 public class Network{
 
     // Game constants
-    private final int INITIAL_STATIONS = 3;
-    private final int GRID_DENSITY = 36; // higher is denser
-    private final int GRID_EDGE_BUFFER = 2; // number of grid spaces to be left empty around edges of screen
-    private final int ALPHA = 200;  // alpha values of line colors
-    private final Color[] LINE_COLORS = { new Color(255, 203, 12, ALPHA), new Color(22, 167, 83, ALPHA), 
-            new Color(31, 153, 213, ALPHA), new Color(179, 32, 120, ALPHA), new Color(248, 112, 5, ALPHA), 
-            new Color(136, 136, 136, ALPHA), new Color(149, 216, 163, ALPHA), new Color(239, 115, 171, ALPHA) };
-            // ^ this also defines the max number of lines
-
-    // Random
-    private Random random = new Random();
+    static final int TICKS_PER_SECOND = 50; // number of times the game state is updated per second of game time
+    static final int MAX_LINES = 8; // one line for each line color
+    private static final int INITIAL_STATIONS = 3;
+    private static final int GRID_DENSITY = 36; // higher is denser
+    private static final int GRID_EDGE_BUFFER = 2; // number of grid spaces to be left empty around edges of screen
+
+    // Random - all randomness in the simulation comes from this, so a seed reproduces a game
+    private long seed;
+    private Random random;
     
     // Game grid
     private ScreenGrid grid; 
@@ -35,8 +36,21 @@ public class Network{
     private TempMetroLine tempLine;
     private Alert alert;
 
+    // Drawing - station coordinates by id are shared with snapshots, entries are never changed once written
+    private int[] stationXs = new int[16];
+    private int[] stationYs = new int[16];
+    private AtomicReference<RenderSnapshot> snapshot = new AtomicReference<RenderSnapshot>();
+
+    // Line editing - edits from the mouse are queued and applied at the start of each tick
+    private static final int EDIT_QUEUE_CAPACITY = 256;
+    private CommandQueue<LineEditCommand> editQueue = new CommandQueue<LineEditCommand>(EDIT_QUEUE_CAPACITY);
+    private ConcurrentLinkedQueue<LineEditCommand> overflowEdits = new ConcurrentLinkedQueue<LineEditCommand>(); // presses and releases that didn't fit in the edit queue
+    private LineEditor lineEditor;
+    private int tick = 0; // number of ticks run so far
+
     // Station generation variables
     private StationPoissonDisc stationPoissonDisc;
+    private StationGridIndex stationIndex; // for finding stations near a point on the screen
     private boolean generateStations = true; // is set to false when there are no more valid locations for staitons
     private int stationGenerationChance = 20; // percent chance of a new station in each second
     private int[] newLocation;
@@ -44,6 +58,23 @@ public class Network{
     // Passenger generation and path finding 
     private Dijkstra dijkstra;
     private int passengerGenerationRate = 5; // percent change of a passenger appearing at any station in each second
+    private NetworkConfig config = new NetworkConfig(); // the current settings
+    private NetworkConfig startConfig; // the settings when the first tick ran, null before then
+    private final long ROUTE_CACHE_MAX_BYTES = 16L * 1024 * 1024; // approximate memory cap of the route cache
+    private final long ROUTE_TREES_MAX_BYTES = 64L * 1024 * 1024; // approximate memory cap of the route trees
+    private final long TEMPORARY_TREES_MAX_BYTES = 16L * 1024 * 1024; // approximate memory cap of one batch's temporary trees
+    private final long DEMAND_TABLES_MAX_BYTES = 32L * 1024 * 1024; // approximate memory cap of the destination alias tables
+    private final long ASSIGNMENT_TREES_MAX_BYTES = 64L * 1024 * 1024; // approximate memory cap of the assignment's trees
+    private RouteTrees routeTrees; // null when routing tables or the journey planner are used
+    private JourneyPlanner journeyPlanner; // null unless the journey planner is used
+    private CapacityAssignment capacityAssignment; // null when routing tables or the journey planner are used
+    private RouteCache routeCache; // null when routing tables are used
+    private DestinationSampler destinationSampler;
+    private PassengerStore passengerStore;
+    private int topologyVersion = 0; // incremented whenever connections between stations change
+    private IntList pathlessPassengers = new IntList(); // passengers whose paths are found in one batch
+    private IntList retriedPassengers = new IntList(); // passengers with no path that can now reach their destination
+    private IntList unreachableDestinations = new IntList(); // destinations of passengers that still can't reach them
 
     // Game info
     private Score score;
@@ -52,24 +83,139 @@ public class Network{
 
 
     /**
-     * Creates a new Network object and initializes all relevant classes and objects.
+     * Creates a new Network object sized to fit the screen and initializes all
+     * relevant classes and objects.
      * @param screenW The width of the screen in pixels
      * @param screenH The height of the screen in pixels
      */
     public Network(int screenW, int screenH){
-        grid = new ScreenGrid((int) Math.round(Math.sqrt(screenW * screenH)) / GRID_DENSITY, screenW, screenH,
-                GRID_EDGE_BUFFER);
+        this(screenW, screenH, 1);
+    }
+
+    /**
+     * Creates a new Network object on a map a number of screens wide and tall and
+     * initializes all relevant classes and objects. Grid spaces are the same size
+     * on the screen as in a network that fits the screen, so a larger map has more
+     * room for stations and has to be panned around with a Camera.
+     * @param screenW  The width of the screen in pixels
+     * @param screenH  The height of the screen in pixels
+     * @param mapScale how many screens wide and tall the map is
+     */
+    public Network(int screenW, int screenH, int mapScale){
+        this(new ScreenGrid((int) Math.round(Math.sqrt(screenW * screenH)) / GRID_DENSITY, screenW * mapScale,
+                screenH * mapScale, GRID_EDGE_BUFFER), new Random().nextLong());
+    }
+
+    /**
+     * Creates a new Network object on a given grid and initializes all relevant
+     * classes and objects. Two networks created with the same grid and seed, and
+     * given the same line edits at the same ticks, play out identically.
+     * @param grid the ScreenGrid object representing the game grid
+     * @param seed the seed for all randomness in the simulation
+     */
+    public Network(ScreenGrid grid, long seed){
+        this(grid, seed, INITIAL_STATIONS);
+    }
+
+    /**
+     * Creates a new Network object on a given grid with a number of starting
+     * stations. Networks built station by station with addStationAt() start with
+     * no stations.
+     * @param grid the ScreenGrid object representing the game grid
+     * @param seed the seed for all randomness in the simulation
+     * @param initialStations the number of stations to generate at the start
+     */
+    Network(ScreenGrid grid, long seed, int initialStations){
+        this.grid = grid;
+        this.seed = seed;
+        this.random = new Random(seed);
         Station.initializeClass(grid, this);
         Train.initializeClass(grid);
-        MetroLine.initializeClass(grid);
         TempMetroLine.initializeClass(grid);
         dijkstra = new Dijkstra(stations);
-        stationPoissonDisc = new StationPoissonDisc(2.1, 3.5, stations, grid);
-        Passenger.initializeClass(this, dijkstra);
-        for(int i=0; i<INITIAL_STATIONS; i++){
+        stationPoissonDisc = new StationPoissonDisc(2.1, 3.5, stations, grid, new Random(random.nextLong()));
+        stationIndex = new StationGridIndex(grid);
+        destinationSampler = new DestinationSampler(stations, grid, DEMAND_TABLES_MAX_BYTES);
+        createPathFinders();
+        for(int i=0; i<initialStations; i++){
             addStation();
         }
-        score = new Score(grid);
+        score = new Score();
+        lineEditor = new LineEditor(this, editQueue.getCapacity());
+        publishSnapshot();
+    }
+
+    /**
+     * Creates the objects that find passengers' paths for the current path finding
+     * mode, along with a new PassengerStore using them. With routing tables, the
+     * stations route passengers, so nothing else is made. Only safe while there
+     * are no passengers.
+     */
+    private void createPathFinders(){
+        if(config.usesRoutingTables()){
+            routeTrees = null;
+            capacityAssignment = null;
+            journeyPlanner = null;
+            routeCache = null;
+        }else if(config.usesJourneyPlanner()){
+            routeTrees = null;
+            capacityAssignment = null;
+            journeyPlanner = new JourneyPlanner(this, config.getTransferPenalty());
+            routeCache = new RouteCache(this, journeyPlanner, ROUTE_CACHE_MAX_BYTES);
+        }else{
+            journeyPlanner = null;
+            routeTrees = new RouteTrees(stations, dijkstra, ROUTE_TREES_MAX_BYTES, TEMPORARY_TREES_MAX_BYTES);
+            capacityAssignment = new CapacityAssignment(this, routeTrees, ASSIGNMENT_TREES_MAX_BYTES);
+            capacityAssignment.setDeterministic(config.isDeterministicAssignment());
+            routeCache = new RouteCache(this, routeTrees, ROUTE_CACHE_MAX_BYTES); // paths found with route weights aren't cached
+        }
+        passengerStore = new PassengerStore(this, routeCache, config.usesRoutingTables());
+    }
+
+    /**
+     * Replays a game from its edit log, by running a new network with the same grid,
+     * seed, and settings and applying each logged edit at the tick it was
+     * originally applied. Like any new Network, this initializes the game classes
+     * for the new network, so it should not be used while another network is
+     * running. Settings changed after the first tick of the original game aren't
+     * replayed, and a game using the capacity-aware assignment is only replayed
+     * exactly if the assignment was deterministic.
+     * @param grid   the ScreenGrid object representing the game grid of the original game
+     * @param seed   the seed of the original game
+     * @param config the settings of the original game when its first tick ran
+     * @param log    the edit log of the original game
+     * @param ticks  the number of ticks to run
+     * @return the replayed Network, in the state of the original game after the
+     *         same number of ticks
+     */
+    public static Network replay(ScreenGrid grid, long seed, NetworkConfig config, List<LineEditCommand> log,
+            int ticks){
+        Network network = new Network(grid, seed);
+        network.applyConfig(config);
+        int nextEdit = 0;
+        for(int i=0; i<ticks; i++){
+            while((nextEdit < log.size()) && (log.get(nextEdit).getTick() == network.tick)){
+                network.lineEditor.apply(log.get(nextEdit), network.tick);
+                nextEdit++;
+            }
+            network.runTick();
+        }
+        return network;
+    }
+
+    /**
+     * Adds a station at a specific location, instead of one picked by the poisson
+     * disc algorithm. Used to build networks directly, such as the synthetic
+     * networks used by benchmarks.
+     * @param gridX the x coordinate on the game grid of the new station
+     * @param gridY the y coordinate on the game grid of the new station
+     * @return the new station
+     */
+    Station addStationAt(int gridX, int gridY){
+        Station station = new Station(gridX, gridY, grid);
+        registerStation(station);
+        stationPoissonDisc.addActiveSample(station);
+        return station;
     }
 
     /**
@@ -81,14 +227,14 @@ public class Network{
 
         // use constructor that places station at center of map if there are no stations yet
         if(stations.size()==0){
-            stations.add(new Station(grid));
+            registerStation(new Station(grid));
             stationPoissonDisc.addActiveSample(stations.get(0)); // initializes the poisson disc algorithm with the first station       
         
         // Use poisson disc algorithm to generate stations
         }else if((generateStations) && (stations.size()>0)){
             newLocation = stationPoissonDisc.generateNewStationLocation();
             if(newLocation[0] != -1){
-                stations.add(new Station(newLocation, grid));
+                registerStation(new Station(newLocation, grid));
 
             // if newLocation is {-1,-1}, that means the algorithm ran out of valid
             // locations to put stations, so stop generating stations after that
@@ -99,6 +245,25 @@ public class Network{
     }
 
 
+    /**
+     * Adds a newly created station to the list of stations and the station index,
+     * and gives it an id matching its index in the list
+     * @param station the station to add
+     */
+    private void registerStation(Station station){
+        int id = stations.size();
+        if(id == stationXs.length){ // snapshots keep the old arrays, so they are never affected by this
+            stationXs = Arrays.copyOf(stationXs, id * 2);
+            stationYs = Arrays.copyOf(stationYs, id * 2);
+        }
+        stationXs[id] = station.getX();
+        stationYs[id] = station.getY();
+        station.setId(id);
+        stations.add(station);
+        stationIndex.add(id, station.getX(), station.getY());
+        destinationSampler.stationAdded(station);
+    }
+
     /**
      * Creates a new tempMetroLine that forms a new line and is not an extension of
      * an existing line, or display an alert that the maximum number of lines has been reached.
@@ -120,11 +285,11 @@ public class Network{
         if(extension != null){
             tempLine = new TempMetroLine(s, extension);
             return tempLine;
-        }else if(lines.size()<LINE_COLORS.length){
-            tempLine = new TempMetroLine(LINE_COLORS[lines.size()], s);
+        }else if(lines.size()<MAX_LINES){
+            tempLine = new TempMetroLine(lines.size(), s); // each new line gets the next line color
             return tempLine;
         }else if(!gameOver){  // to prevent the alert from changing after the game is over
-            alert = new Alert("Maximum number of lines reached", grid.getGridSize()*3/2, GameAreaPanel.FPS);
+            alert = new Alert("Maximum number of lines reached", grid.getGridSize()*3/2, TICKS_PER_SECOND);
         }
         return null;
         
@@ -134,9 +299,14 @@ public class Network{
      * Finalizes a tempMetroLine converting it into a new MetroLine or using it to
      * extend a MetroLine depending on what it was originally created for.
      * 
-     * This method also attempts to find new paths for all passengers that could not
-     * previously find a path to their destination, since the new line or extension
-     * may make it possible.
+     * This method also repairs the route trees with the new connections, and gives
+     * new routes to the passengers waiting or riding whose routes got shorter,
+     * including passengers that could not previously find a path to their
+     * destination. Only the stations that got closer to some destination, and
+     * trains heading to them, are looked at. If routing tables are used, the tables
+     * of all stations are rebuilt instead, and waiting passengers are regrouped by
+     * their new next stations. If the journey planner is used, there are no trees
+     * to repair, so only passengers with no path look for one again.
      * 
      * This method also updates the adjacency lists of all stations along the
      * tempLine to reflect new changes.
@@ -152,39 +322,120 @@ public class Network{
                 tempLine.getExtendingLine().extendLine(tempLine);
             }
 
-            // if any passenger has no path currently (because when they appeared the
-            // journey was impossible), try again because there's a new line now
-            for(Station station:stations){
-                station.findPathsForPassengersWithNoPath();
+            // passengers whose journeys got shorter (or possible at all) because of the
+            // new line take the new route
+            if(config.usesRoutingTables()){
+                dijkstra.buildRoutingTables();
+                for(Station station:stations){
+                    station.regroupPassengers(); // next stations may have changed
+                }
+            }else if(config.usesJourneyPlanner()){
+                findPathsForPassengersWithNoPath();
+            }else{
+                rerouteImprovedPassengers();
             }
 
         }
         tempLine = null;
     }
 
+    /**
+     * Repairs the route trees with the connections added by the last line edit, and
+     * gives new routes to the passengers whose routes got shorter: those waiting at
+     * stations that got closer to their destination, and those on trains heading to
+     * such stations. Passengers with no path to a destination without a route tree
+     * can't be checked by the repair, so those that can now reach their destination
+     * try to find a path again, all in one batch.
+     */
+    private void rerouteImprovedPassengers(){
+        IntList improvedStations = routeTrees.repair();
+        for(int i=0; i<improvedStations.size(); i++){
+            stations.get(improvedStations.get(i)).reroutePassengers();
+        }
+        for(MetroLine line:lines){
+            for(Train train:line.getTrains()){
+                if(routeTrees.isImproved(train.getNextStation())){
+                    train.reroutePassengers(passengerStore, routeTrees);
+                }
+            }
+        }
+        if(routeTrees.getNumPathlessDestinations() > 0){
+            findPathsToPathlessDestinations();
+        }
+    }
+
+    /**
+     * Finds paths in one batch for the waiting passengers with no path heading to
+     * destinations without a route tree, if they can now reach their destination.
+     * The destinations of the passengers that still can't are remembered for the
+     * next line edit.
+     */
+    private void findPathsToPathlessDestinations(){
+        pathlessPassengers.clear();
+        for(Station station:stations){
+            station.addPassengersWithNoPath(pathlessPassengers);
+        }
+        retriedPassengers.clear();
+        unreachableDestinations.clear();
+        for(int i=0; i<pathlessPassengers.size(); i++){
+            int passenger = pathlessPassengers.get(i);
+            int destination = passengerStore.getDestination(passenger);
+            if(!routeTrees.isPathlessDestination(destination)){ // the repair found a path if there is one
+                continue;
+            }
+            if(routeTrees.isConnected(passengerStore.getOrigin(passenger), destination)){
+                retriedPassengers.add(passenger);
+            }else{
+                unreachableDestinations.add(destination);
+            }
+        }
+        routeTrees.clearPathlessDestinations();
+        for(int i=0; i<unreachableDestinations.size(); i++){
+            routeTrees.addPathlessDestination(unreachableDestinations.get(i));
+        }
+        passengerStore.findPaths(retriedPassengers);
+        for(int i=0; i<retriedPassengers.size(); i++){
+            // passengers with no path never left the station they appeared at
+            stations.get(passengerStore.getOrigin(retriedPassengers.get(i))).regroupPassengersWithNoNextStation();
+        }
+    }
+
+    /**
+     * Finds paths in one batch for every waiting passenger that could not
+     * previously find a path to their destination
+     */
+    private void findPathsForPassengersWithNoPath(){
+        pathlessPassengers.clear();
+        for(Station station:stations){
+            station.addPassengersWithNoPath(pathlessPassengers);
+        }
+        passengerStore.findPaths(pathlessPassengers);
+        for(Station station:stations){
+            station.regroupPassengersWithNoNextStation();
+        }
+    }
+
     /**
      * Updates the graph adjacency lists of all stations along a tempMetroLine,
-     * reflecting new connections made by the new line/extension
+     * reflecting new connections made by the new line/extension, and records the
+     * new connections for the next repair of the route trees, if there are any.
+     * Also increments the topology version so that paths cached for the old
+     * network are not used.
      * @param tempLine the tempMetroLine that is being turned into a new line/extension
      */
     private void updateStationConnectionsOnTempLine(TempMetroLine tempLine){
+        topologyVersion++;
+
         // store in arraylist for faster random access
         ArrayList<Station> tempStns = new ArrayList<Station>();
         tempStns.addAll(tempLine.getStations());
 
-        // go through all stations
-        for(int i=0; i<tempStns.size(); i++){
-
-            // for termini add a connection to the second or second-to last station
-            if(i==0){
-                tempStns.get(0).addConnection(tempStns.get(1));
-            }else if(i==tempStns.size()-1){
-                tempStns.get(tempStns.size()-1).addConnection(tempStns.get(tempStns.size()-2));
-
-            // for all other stations add a conncetion to the stations before and after 
-            }else{
-                tempStns.get(i).addConnection(tempStns.get(i-1));
-                tempStns.get(i).addConnection(tempStns.get(i+1));
+        // connect each pair of consecutive stations both ways
+        for(int i=0; i<tempStns.size()-1; i++){
+            boolean added = tempStns.get(i).addConnection(tempStns.get(i+1));
+            tempStns.get(i+1).addConnection(tempStns.get(i));
+            if(added && (routeTrees != null)){
+                routeTrees.addConnection(tempStns.get(i), tempStns.get(i+1));
             }
         }
 
@@ -213,6 +464,14 @@ public class Network{
         return stations;
     }
 
+    /**
+     * Gets the index used to find stations near a point on the screen
+     * @return the StationGridIndex of all stations
+     */
+    public StationGridIndex getStationIndex(){
+        return stationIndex;
+    }
+
     /**
      * Gets the ArrayList of all MetroLines on the map
      * @return the ArrayList of all MetroLines on the map
@@ -221,6 +480,310 @@ public class Network{
         return lines;
     }
     
+    /**
+     * Gets the topology version of the network, which changes whenever connections
+     * between stations change
+     * @return the current topology version
+     */
+    public int getTopologyVersion(){
+        return topologyVersion;
+    }
+
+    /**
+     * Gets the store of all passengers travelling on the network
+     * @return the PassengerStore of this network
+     */
+    public PassengerStore getPassengerStore(){
+        return passengerStore;
+    }
+
+    /**
+     * Gets the shortest path trees kept up to date as lines are added and extended
+     * @return the RouteTrees of this network, or null if routing tables or the
+     *         journey planner are used
+     */
+    public RouteTrees getRouteTrees(){
+        return routeTrees;
+    }
+
+    /**
+     * Gets the sampler that picks the destinations of new passengers
+     * @return the DestinationSampler of this network
+     */
+    public DestinationSampler getDestinationSampler(){
+        return destinationSampler;
+    }
+
+    /**
+     * Gets the capacity-aware assignment that spreads passengers over less crowded
+     * paths when it is turned on
+     * @return the CapacityAssignment of this network, or null if routing tables or
+     *         the journey planner are used
+     */
+    public CapacityAssignment getCapacityAssignment(){
+        return capacityAssignment;
+    }
+
+    /**
+     * Gets the cache of paths used by passengers, including its hit and miss counts
+     * @return the RouteCache of this network, or null if routing tables are used
+     */
+    public RouteCache getRouteCache(){
+        return routeCache;
+    }
+
+    /**
+     * Gets the line currently being drawn by the player
+     * @return the TempMetroLine being drawn, or null if no line is being drawn
+     */
+    public TempMetroLine getTempLine(){
+        return tempLine;
+    }
+
+    /**
+     * Gets the alert currently shown to the player
+     * @return the current Alert, or null if there is no alert
+     */
+    public Alert getAlert(){
+        return alert;
+    }
+
+    /**
+     * Gets the player's score
+     * @return the Score object of this network
+     */
+    public Score getScore(){
+        return score;
+    }
+
+    /**
+     * Gets the random number generator used by the simulation
+     * @return the Random object of this network
+     */
+    public Random getRandom(){
+        return random;
+    }
+
+    /**
+     * Changes every setting of this network to match a NetworkConfig. The path
+     * finding mode can only be changed before the first tick.
+     * @param settings the settings to use
+     * @throws IllegalStateException if the path finding mode is changed after the
+     *                               simulation has started, or if the settings
+     *                               combine path finding modes that can't be
+     *                               used together
+     */
+    public void applyConfig(NetworkConfig settings){
+        // turn off whatever is on before turning on what isn't, so modes never clash on the way
+        if(!settings.isCapacityAware()){
+            setCapacityAwareAssignment(false);
+        }
+        if((settings.usesRoutingTables() != usesRoutingTables()) || (settings.usesJourneyPlanner() != usesJourneyPlanner())){
+            setRoutingTables(false);
+            setJourneyPlanner(false);
+            setRoutingTables(settings.usesRoutingTables());
+            setJourneyPlanner(settings.usesJourneyPlanner());
+        }
+        if(settings.usesJourneyPlanner()){
+            setTransferPenalty(settings.getTransferPenalty());
+        }
+        setDeterministicAssignment(settings.isDeterministicAssignment());
+        setCapacityAwareAssignment(settings.isCapacityAware());
+        setDemandModel(settings.getDemandModel());
+        setDemandEscalation(settings.hasDemandEscalation());
+        setStationGeneration(settings.hasStationGeneration());
+    }
+
+    /**
+     * Gets the settings this network had when its first tick ran, which can be used
+     * with the seed, grid, and edit log to replay the game
+     * @return a copy of the settings at the first tick, or of the current settings
+     *         if the first tick hasn't run yet
+     */
+    public NetworkConfig getStartConfig(){
+        if(startConfig == null){
+            return new NetworkConfig(config);
+        }
+        return new NetworkConfig(startConfig);
+    }
+
+    /**
+     * Sets whether passenger generation keeps speeding up once no more stations can
+     * be generated. This is what eventually ends a game, so it can be turned off for
+     * long running simulations.
+     * @param demandEscalation true to keep increasing the passenger generation rate,
+     *                         false to keep it constant
+     */
+    public void setDemandEscalation(boolean demandEscalation){
+        config.setDemandEscalation(demandEscalation);
+    }
+
+    /**
+     * Sets whether new stations keep appearing over time. Turning this off keeps
+     * the network the same size, so long runs and benchmarks measure the same
+     * network throughout. It doesn't count as running out of room for stations,
+     * so demand doesn't start escalating.
+     * @param stationGeneration true to generate new stations, false to keep the
+     *                          stations there are
+     */
+    public void setStationGeneration(boolean stationGeneration){
+        config.setStationGeneration(stationGeneration);
+    }
+
+    /**
+     * Sets whether passengers look up the next station of their journey in routing
+     * tables kept by every station, instead of each storing their whole path. The
+     * tables are rebuilt whenever a line is added or extended. Can only be changed
+     * before the first tick, while there are no passengers.
+     * @param useRoutingTables true to route passengers with routing tables, false to
+     *                         give each passenger a path
+     * @throws IllegalStateException if the simulation has already started, or if
+     *                               routing tables are turned on while the journey
+     *                               planner or the capacity-aware assignment is used
+     */
+    public void setRoutingTables(boolean useRoutingTables){
+        if(tick > 0){
+            throw new IllegalStateException("The routing mode can only be set before the first tick");
+        }
+        if(useRoutingTables && config.usesJourneyPlanner()){
+            throw new IllegalStateException("Routing tables can't be used with the journey planner");
+        }
+        if(useRoutingTables && (capacityAssignment != null) && capacityAssignment.isEnabled()){
+            throw new IllegalStateException("Routing tables can't be used with the capacity-aware assignment");
+        }
+        if(useRoutingTables != config.usesRoutingTables()){
+            config.setRoutingTables(useRoutingTables);
+            createPathFinders();
+        }
+        if(useRoutingTables){
+            dijkstra.buildRoutingTables(); // for the lines added so far
+        }
+    }
+
+    /**
+     * Returns whether passengers are routed with routing tables
+     * @return true if stations keep routing tables, false if passengers store paths
+     */
+    public boolean usesRoutingTables(){
+        return config.usesRoutingTables();
+    }
+
+    /**
+     * Sets whether passengers' paths are planned by the JourneyPlanner, by how long
+     * they take counting waits and transfers, instead of by distance with route
+     * trees. Journeys are handed to passengers as lists of stations, so a passenger
+     * boards any train heading to their next station, not necessarily one of the
+     * line the journey was planned on. Can only be changed before the first tick,
+     * while there are no passengers.
+     * @param useJourneyPlanner true to plan paths with the journey planner, false
+     *                          to find the shortest paths with route trees
+     * @throws IllegalStateException if the simulation has already started, or if
+     *                               the journey planner is turned on while routing
+     *                               tables or the capacity-aware assignment is used
+     */
+    public void setJourneyPlanner(boolean useJourneyPlanner){
+        if(tick > 0){
+            throw new IllegalStateException("The path finder can only be set before the first tick");
+        }
+        if(useJourneyPlanner && config.usesRoutingTables()){
+            throw new IllegalStateException("The journey planner can't be used with routing tables");
+        }
+        if(useJourneyPlanner && (capacityAssignment != null) && capacityAssignment.isEnabled()){
+            throw new IllegalStateException("The journey planner can't be used with the capacity-aware assignment");
+        }
+        if(useJourneyPlanner != config.usesJourneyPlanner()){
+            config.setJourneyPlanner(useJourneyPlanner);
+            createPathFinders();
+        }
+    }
+
+    /**
+     * Returns whether passengers' paths are planned by the journey planner
+     * @return true if the journey planner is used, false if route trees are
+     */
+    public boolean usesJourneyPlanner(){
+        return config.usesJourneyPlanner();
+    }
+
+    /**
+     * Sets the extra time the journey planner counts for boarding a line, so
+     * journeys that change lines less often can be preferred over slightly faster
+     * ones. Paths already found are kept until the network changes.
+     * @param transferPenaltySeconds the transfer penalty in seconds
+     * @throws IllegalStateException if the journey planner is not used
+     */
+    public void setTransferPenalty(double transferPenaltySeconds){
+        if(journeyPlanner == null){
+            throw new IllegalStateException("The transfer penalty only applies to the journey planner");
+        }
+        journeyPlanner.setTransferPenalty(transferPenaltySeconds);
+        config.setTransferPenalty(transferPenaltySeconds);
+    }
+
+    /**
+     * Sets how likely new passengers are to travel to each station. Passengers
+     * already travelling keep their destinations.
+     * @param demandModel the DemandModel to pick destinations with, or null for
+     *                    every other station to be equally likely
+     */
+    public void setDemandModel(DemandModel demandModel){
+        destinationSampler.setModel(demandModel);
+        config.setDemandModel(demandModel);
+    }
+
+    /**
+     * Sets whether new paths take into account how crowded the network is, using
+     * route weights solved in the background. Only available when paths are found
+     * with route trees.
+     * @param capacityAware true to spread passengers over less crowded paths, false
+     *                      to always use the shortest paths
+     * @throws IllegalStateException if turned on while routing tables or the
+     *                               journey planner are used
+     */
+    public void setCapacityAwareAssignment(boolean capacityAware){
+        if(capacityAssignment == null){
+            if(capacityAware){
+                throw new IllegalStateException("The capacity-aware assignment needs paths found with route trees");
+            }
+            return;
+        }
+        capacityAssignment.setEnabled(capacityAware);
+        config.setCapacityAware(capacityAware);
+    }
+
+    /**
+     * Sets whether the simulation waits for the capacity-aware assignment's solves
+     * when their weights are due. Without waiting, the weights are picked up
+     * whenever the solver has finished, which depends on how busy the computer is.
+     * With waiting, they are picked up at fixed ticks, so a network with the
+     * assignment turned on from the start plays out the same way every time for the
+     * same seed and edits, but a slow solve holds up the simulation.
+     * @param deterministic true to wait for the solves, false to keep the old
+     *                      weights until the solver has finished
+     */
+    public void setDeterministicAssignment(boolean deterministic){
+        config.setDeterministicAssignment(deterministic);
+        if(capacityAssignment != null){
+            capacityAssignment.setDeterministic(deterministic);
+        }
+    }
+
+    /**
+     * Makes a RenderSnapshot of the current state of the network and makes it the
+     * latest snapshot. Must be called from the thread updating the network.
+     */
+    public void publishSnapshot(){
+        snapshot.set(new RenderSnapshot(this, stationXs, stationYs));
+    }
+
+    /**
+     * Gets the latest RenderSnapshot of the network. Safe to call from any thread.
+     * @return the latest published RenderSnapshot
+     */
+    public RenderSnapshot getSnapshot(){
+        return snapshot.get();
+    }
+
     /**
      * Gets the game grid
      * @return the ScreenGrid object representing the game grid
@@ -238,16 +801,74 @@ public class Network{
     }
 
     /**
-     * Updates the game state, or displays "Game Over" and the score if the player
-     * has lost.
+     * Sends a line edit from the mouse to the network, to be applied at the start
+     * of the next tick. Safe to call from any thread, and never waits. If the edit
+     * queue is full, as it can be when the simulation falls behind, a drag is
+     * dropped, since the next drag moves the line anyway. A press or release can't
+     * be dropped, or a line would be left half drawn, so it goes on an unbounded
+     * overflow queue that is applied after the edit queue, and every drag after
+     * it is dropped until the overflow is applied so edits stay in order.
+     * @param command the LineEditCommand to apply
+     * @return true if the command was queued, false if it was a drag that was dropped
+     */
+    public boolean submitLineEdit(LineEditCommand command){
+        if(overflowEdits.isEmpty() && editQueue.offer(command)){
+            return true;
+        }
+        if(command.getType() == LineEditCommand.DRAG){
+            return false;
+        }
+        overflowEdits.add(command);
+        return true;
+    }
+
+    /**
+     * Gets all line edits applied so far, which can be used with the seed, grid, and
+     * starting settings to replay the game. Must be called from the thread updating the network.
+     * @return an unmodifiable view of the edit log, in the order edits were applied
+     */
+    public List<LineEditCommand> getEditLog(){
+        return lineEditor.getLog();
+    }
+
+    /**
+     * Gets the seed all randomness in this network comes from
+     * @return the seed of this network
+     */
+    public long getSeed(){
+        return seed;
+    }
+
+    /**
+     * Gets the number of ticks run so far
+     * @return the number of times the game has been updated
+     */
+    public int getTick(){
+        return tick;
+    }
+
+    /**
+     * Applies queued line edits, then updates the game state, or displays "Game
+     * Over" and the score if the player has lost.
      */
     public void update(){
+        lineEditor.applyQueuedCommands(editQueue, overflowEdits, tick);
+        runTick();
+    }
+
+    /**
+     * Updates the game state, or displays "Game Over" and the score if the player
+     * has lost. Either way, the tick is counted.
+     */
+    private void runTick(){
         if(!gameOver){
             updateGame();
+            return;
         }else if(!gameOverDisplayed){
             alert = new Alert("Game Over. Score: " + score.getScore(), grid.getGridSize()*3);
             gameOverDisplayed = true;
         }
+        tick++;
     }
 
     /**
@@ -256,8 +877,18 @@ public class Network{
      */
     public void updateGame(){
 
+        // remember the settings the game started with, for replays
+        if(startConfig == null){
+            startConfig = new NetworkConfig(config);
+        }
+
+        // pick up the latest route weights of the capacity-aware assignment
+        if(capacityAssignment != null){
+            capacityAssignment.update();
+        }
+
         // generate new stations randomly
-        if(random.nextInt(100*GameAreaPanel.FPS)<stationGenerationChance){
+        if(config.hasStationGeneration() && (random.nextInt(100*TICKS_PER_SECOND)<stationGenerationChance)){
             addStation();
         }
 
@@ -272,14 +903,22 @@ public class Network{
 
         // increase the passenger generation rate once stations stop generating, so the
         // player eventually has to lose
-        if (!generateStations) {
+        if (!generateStations && config.hasDemandEscalation()) {
             passengerGenerationRate++;
         }
 
+        // generate passengers at stations, finding all of their paths in one batch
+        pathlessPassengers.clear();
         for(Station station:stations){
-            // generate passengers at stations
-            station.generatePassengers(passengerGenerationRate);
+            station.generatePassengers(passengerGenerationRate, pathlessPassengers);
+        }
+        passengerStore.findPaths(pathlessPassengers);
+        for(int i=0; i<pathlessPassengers.size(); i++){
+            int passenger = pathlessPassengers.get(i);
+            stations.get(passengerStore.getOrigin(passenger)).addNewPassenger(passenger);
+        }
 
+        for(Station station:stations){
             // player loses if a station is overcrowded
             if(station.isOvercrowded()){
                 gameOver = true;
@@ -299,39 +938,7 @@ public class Network{
             }
         }
 
+        tick++;
     }
 
-    /**
-     * Draws all game objects on the screen.
-     * @param g Graphics object to draw with
-     */
-    public void draw(Graphics g) {
-
-        // draw all lines
-        for(int i=0; i<lines.size(); i++){
-            lines.get(i).draw(g,grid);
-        }
-
-        // draw temporary line
-        if(tempLine != null){
-            tempLine.draw(g, grid);
-        }
-
-        // draw all stations
-        for(int i=0; i<stations.size(); i++){
-            stations.get(i).draw(g, grid);
-        }
-        
-        // draw score display
-        score.draw(g, grid);
-
-        // draw alert if there is one
-        if(alert!=null){
-            alert.draw(g, grid);
-        }
-        
-    }
-
-
-
 }
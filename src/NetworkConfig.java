@@ -0,0 +1,191 @@
+/**
+ * NetworkConfig.java
+ * The settings a network runs with, other than its grid and seed: how paths are
+ * found, how destinations are picked, and whether stations and demand keep
+ * growing. A network keeps the settings it had when its first tick ran, which
+ * together with the grid, the seed, and the edit log are everything needed to
+ * replay the game.
+ * @author Suyu
+ * @version 1.0
+ */
+public class NetworkConfig {
+
+    // Constants
+    public static final double DEFAULT_TRANSFER_PENALTY_SECONDS = 2.0; // extra time the journey planner counts for boarding a line
+
+    // path finding
+    private boolean routingTables = false;
+    private boolean journeyPlanner = false;
+    private double transferPenaltySeconds = DEFAULT_TRANSFER_PENALTY_SECONDS;
+    private boolean capacityAware = false;
+    private boolean deterministicAssignment = false;
+
+    // growth and demand
+    private DemandModel demandModel = null;
+    private boolean demandEscalation = true;
+    private boolean stationGeneration = true;
+
+    /**
+     * Creates a new NetworkConfig with the settings a new network starts with
+     */
+    public NetworkConfig(){
+    }
+
+    /**
+     * Creates a new NetworkConfig with the same settings as another
+     * @param other the NetworkConfig to copy
+     */
+    public NetworkConfig(NetworkConfig other){
+        this.routingTables = other.routingTables;
+        this.journeyPlanner = other.journeyPlanner;
+        this.transferPenaltySeconds = other.transferPenaltySeconds;
+        this.capacityAware = other.capacityAware;
+        this.deterministicAssignment = other.deterministicAssignment;
+        this.demandModel = other.demandModel;
+        this.demandEscalation = other.demandEscalation;
+        this.stationGeneration = other.stationGeneration;
+    }
+
+    /**
+     * Returns whether passengers are routed with routing tables
+     * @return true if stations keep routing tables, false if passengers store paths
+     */
+    public boolean usesRoutingTables(){
+        return routingTables;
+    }
+
+    /**
+     * Sets whether passengers are routed with routing tables
+     * @param routingTables true to route passengers with routing tables
+     */
+    public void setRoutingTables(boolean routingTables){
+        this.routingTables = routingTables;
+    }
+
+    /**
+     * Returns whether passengers' paths are planned by the journey planner
+     * @return true if the journey planner is used, false if route trees are
+     */
+    public boolean usesJourneyPlanner(){
+        return journeyPlanner;
+    }
+
+    /**
+     * Sets whether passengers' paths are planned by the journey planner
+     * @param journeyPlanner true to plan paths with the journey planner
+     */
+    public void setJourneyPlanner(boolean journeyPlanner){
+        this.journeyPlanner = journeyPlanner;
+    }
+
+    /**
+     * Gets the extra time the journey planner counts for boarding a line
+     * @return the transfer penalty in seconds
+     */
+    public double getTransferPenalty(){
+        return transferPenaltySeconds;
+    }
+
+    /**
+     * Sets the extra time the journey planner counts for boarding a line
+     * @param transferPenaltySeconds the transfer penalty in seconds
+     */
+    public void setTransferPenalty(double transferPenaltySeconds){
+        this.transferPenaltySeconds = transferPenaltySeconds;
+    }
+
+    /**
+     * Returns whether new paths take into account how crowded the network is
+     * @return true if the capacity-aware assignment is on
+     */
+    public boolean isCapacityAware(){
+        return capacityAware;
+    }
+
+    /**
+     * Sets whether new paths take into account how crowded the network is
+     * @param capacityAware true to turn the capacity-aware assignment on
+     */
+    public void setCapacityAware(boolean capacityAware){
+        this.capacityAware = capacityAware;
+    }
+
+    /**
+     * Returns whether the simulation waits for the capacity-aware assignment's solves
+     * @return true if the assignment is deterministic
+     */
+    public boolean isDeterministicAssignment(){
+        return deterministicAssignment;
+    }
+
+    /**
+     * Sets whether the simulation waits for the capacity-aware assignment's solves
+     * @param deterministicAssignment true to wait for the solves
+     */
+    public void setDeterministicAssignment(boolean deterministicAssignment){
+        this.deterministicAssignment = deterministicAssignment;
+    }
+
+    /**
+     * Gets how likely new passengers are to travel to each station
+     * @return the DemandModel destinations are picked with, or null if every other
+     *         station is equally likely
+     */
+    public DemandModel getDemandModel(){
+        return demandModel;
+    }
+
+    /**
+     * Sets how likely new passengers are to travel to each station
+     * @param demandModel the DemandModel to pick destinations with, or null for
+     *                    every other station to be equally likely
+     */
+    public void setDemandModel(DemandModel demandModel){
+        this.demandModel = demandModel;
+    }
+
+    /**
+     * Returns whether passenger generation speeds up once no more stations can be
+     * generated
+     * @return true if demand escalates
+     */
+    public boolean hasDemandEscalation(){
+        return demandEscalation;
+    }
+
+    /**
+     * Sets whether passenger generation speeds up once no more stations can be
+     * generated
+     * @param demandEscalation true for demand to escalate
+     */
+    public void setDemandEscalation(boolean demandEscalation){
+        this.demandEscalation = demandEscalation;
+    }
+
+    /**
+     * Returns whether new stations keep appearing over time
+     * @return true if stations are generated
+     */
+    public boolean hasStationGeneration(){
+        return stationGeneration;
+    }
+
+    /**
+     * Sets whether new stations keep appearing over time
+     * @param stationGeneration true to generate new stations
+     */
+    public void setStationGeneration(boolean stationGeneration){
+        this.stationGeneration = stationGeneration;
+    }
+
+    /**
+     * Gets a summary of these settings
+     * @return a String listing every setting
+     */
+    public String toString(){
+        return "NetworkConfig[routingTables=" + routingTables + ", journeyPlanner=" + journeyPlanner
+                + ", transferPenalty=" + transferPenaltySeconds + "s, capacityAware=" + capacityAware
+                + ", deterministicAssignment=" + deterministicAssignment + ", demandModel=" + demandModel
+                + ", demandEscalation=" + demandEscalation + ", stationGeneration=" + stationGeneration + "]";
+    }
+}
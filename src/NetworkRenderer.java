@@ -0,0 +1,490 @@
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * NetworkRenderer.java
+ * Draws RenderSnapshots of a Network on the screen. All of the drawing state
+ * (colors, strokes, shapes, and text) is kept here, so the simulation classes
+ * themselves do not depend on AWT and can run without a display. Only snapshots
+ * are read, so drawing is safe while the simulation runs on another thread.
+ *
+ * The map is drawn through a Camera, which can show only part of a large map.
+ * Only what is on the screen is drawn: the stations and line segments in view are
+ * found through spatial indices, and trains off the screen are skipped, so the
+ * cost of a frame depends on how much is on the screen rather than on the size
+ * of the map. When zoomed far out, stations are drawn as single pixels and the
+ * numbers of passengers are hidden.
+ *
+ * Lines and station icons only change when the player edits a line, a station
+ * appears, or the camera moves, so they are drawn into two retained images
+ * instead of every frame: one for lines, drawn under trains, and one for station
+ * icons, drawn over them. Each frame only copies the two images and draws
+ * trains, the line being drawn, and text.
+ * @author Suyu
+ * @version 1.0
+ */
+public class NetworkRenderer {
+
+    // Constants
+    private static final double COS_45 = 1/Math.sqrt(2);
+    private static final int ALPHA = 200;  // alpha values of line colors
+    private static final Color[] LINE_COLORS = { new Color(255, 203, 12, ALPHA), new Color(22, 167, 83, ALPHA),
+            new Color(31, 153, 213, ALPHA), new Color(179, 32, 120, ALPHA), new Color(248, 112, 5, ALPHA),
+            new Color(136, 136, 136, ALPHA), new Color(149, 216, 163, ALPHA), new Color(239, 115, 171, ALPHA) };
+            // ^ one for each of the Network.MAX_LINES lines
+    private static final Color WARNING_COLOR = new Color(200,0,0); // station passenger count when approaching overcrowding
+    private static final Color ALERT_BG_COLOR = new Color(0,0,0, (float) 0.6);
+    private static final int ALERT_BG_BUFFER = 15;
+    private static final Color SPEED_COLOR = new Color(120,120,120);
+    private static final int MIN_ICON_PIXELS = 3; // stations smaller than this on the screen are drawn as single pixels
+    private static final double MIN_PASSENGERS_ZOOM = 0.5; // numbers of passengers are hidden when zoomed out further
+
+    // The game grid and the part of it on the screen
+    private ScreenGrid grid;
+    private Camera camera;
+
+    // Sizes of things on the map
+    private BasicStroke lineStroke;
+
+    // Shapes of trains at the zoom they were last drawn at
+    private double trainShapeZoom = -1;
+    private Shape[] trainShapes = new Shape[4]; // trains centered on (0,0), by rotation/45
+
+    // Retained layers - redrawn when the camera moves or the topology changes, otherwise stations are only ever added
+    private BufferedImage lineLayer, stationLayer;
+    private Viewport layerViewport = null; // viewport the layers were drawn for
+    private int lineLayerVersion = -1; // topology version the line layer was drawn for
+    private int stationLayerStations = 0; // number of stations drawn on the station layer
+
+    // Spatial indices of what is on the map, built from snapshots
+    private StationGridIndex stationIndex;
+    private int indexedStations = 0;
+    private LineSegmentIndex segmentIndex;
+    private IntList visibleStations = new IntList(); // ids of stations in view of layerViewport
+    private IntList[] visibleSegments = new IntList[Network.MAX_LINES]; // by line index
+    private Path2D.Float runPath = new Path2D.Float(); // reused to draw the visible segments of each line
+
+    // Text
+    private DisplayedNumber stationPaxDisplay;
+    private DisplayedNumber trainPaxDisplay;
+    private DisplayedText scoreDisplay;
+    private int displayedScore = 0;
+    private String displayedAlertText = null;
+    private int displayedAlertFontSize = 0;
+    private DisplayedText alertDisplay = null;
+    private DisplayedText speedDisplay;
+    private int displayedTimeScale = -1;
+    private int displayedTicksPerSecond = -1;
+
+    /**
+     * Creates a new NetworkRenderer showing the whole game grid at a zoom of 1,
+     * sizing everything drawn from the game grid
+     * @param grid the ScreenGrid object representing the game grid
+     */
+    public NetworkRenderer(ScreenGrid grid){
+        this(grid, new Camera(grid, grid.getScreenW(), grid.getScreenH()));
+    }
+
+    /**
+     * Creates a new NetworkRenderer showing the part of the game grid in view of a
+     * camera, sizing everything drawn from the game grid
+     * @param grid   the ScreenGrid object representing the game grid
+     * @param camera the Camera to draw through
+     */
+    public NetworkRenderer(ScreenGrid grid, Camera camera){
+        this.grid = grid;
+        this.camera = camera;
+        lineStroke = new BasicStroke((int) Math.round(grid.getGridSize() * 0.2), BasicStroke.CAP_BUTT,
+                BasicStroke.JOIN_ROUND);
+        stationIndex = new StationGridIndex(grid);
+        segmentIndex = new LineSegmentIndex(grid);
+        for(int i=0; i<visibleSegments.length; i++){
+            visibleSegments[i] = new IntList();
+        }
+        stationPaxDisplay = new DisplayedNumber(0, (int) Math.round(grid.getGridSize()*0.6), Color.BLACK, 0, 0);
+        trainPaxDisplay = new DisplayedNumber(0, (int) Math.round(grid.getGridSize()*0.4), Color.BLACK, 0, 0);
+        scoreDisplay = new DisplayedText("Score: 0", grid.getGridSize(), Color.BLACK);
+        speedDisplay = new DisplayedText("", (int) Math.round(grid.getGridSize()*0.6), SPEED_COLOR);
+    }
+
+    /**
+     * Gets the color used to draw a line
+     * @param colorIndex the color index of the line
+     * @return the Color of the line
+     */
+    public static Color getLineColor(int colorIndex){
+        return LINE_COLORS[colorIndex];
+    }
+
+    /**
+     * Draws all game objects in a snapshot on the screen.
+     * @param graphics Graphics object to draw with
+     * @param snapshot the RenderSnapshot to draw
+     * @param interpolation how far between the previous and latest tick to draw
+     *                      moving objects, from 0 (previous tick) to 1 (latest tick)
+     */
+    public void draw(Graphics graphics, RenderSnapshot snapshot, double interpolation){
+        Graphics2D g = (Graphics2D) graphics;
+        Viewport view = camera.getViewport();
+        updateLayers(g, snapshot, view);
+        boolean showPassengers = view.getZoom() >= MIN_PASSENGERS_ZOOM;
+
+        // draw lines in view
+        g.drawImage(lineLayer, 0, 0, null);
+
+        // draw trains in view
+        if(view.getZoom() != trainShapeZoom){
+            makeTrainShapes(view.getZoom());
+        }
+        for(int i=0; i<snapshot.getNumTrains(); i++){
+            drawTrain(g, snapshot, i, interpolation, view, showPassengers);
+        }
+
+        // draw temporary line
+        if(snapshot.getTempLine() != null){
+            AffineTransform screenTransform = g.getTransform();
+            g.translate(-view.getLeft() * view.getZoom(), -view.getTop() * view.getZoom());
+            g.scale(view.getZoom(), view.getZoom());
+            g.setStroke(lineStroke);
+            g.setColor(getLineColor(snapshot.getTempLine().getColorIndex()));
+            g.draw(Path2DTools.makePathWithPoints(snapshot.getTempLine()));
+            g.setTransform(screenTransform);
+        }
+
+        // draw stations in view and the number of passengers at each
+        g.drawImage(stationLayer, 0, 0, null);
+        if(showPassengers){
+            for(int i=0; i<visibleStations.size(); i++){
+                drawStationPassengers(g, snapshot, visibleStations.get(i), view);
+            }
+        }
+
+        // draw score display
+        drawScore(g, snapshot.getScore());
+
+        // draw alert if there is one
+        if(snapshot.getAlertText() != null){
+            drawAlert(g, snapshot.getAlertText(), snapshot.getAlertFontSize(), view);
+        }
+    }
+
+    /**
+     * Makes sure the retained line and station layers show the part of the network
+     * in a snapshot that is in view. Both layers are cleared and redrawn if the
+     * camera has moved since they were drawn, and the line layer is also redrawn if
+     * the topology has changed. Stations never move or disappear, so otherwise only
+     * stations added since the station layer was drawn are drawn onto it.
+     * @param g        Graphics2D object the layers will be drawn with, used to make
+     *                 layers in a format that is fast to copy to the screen
+     * @param snapshot the RenderSnapshot being drawn
+     * @param view     the Viewport being drawn
+     */
+    private void updateLayers(Graphics2D g, RenderSnapshot snapshot, Viewport view){
+        if((lineLayer == null) || (lineLayer.getWidth() != view.getWidth()) || (lineLayer.getHeight() != view.getHeight())){
+            lineLayer = g.getDeviceConfiguration().createCompatibleImage(view.getWidth(), view.getHeight(),
+                    Transparency.TRANSLUCENT);
+            stationLayer = g.getDeviceConfiguration().createCompatibleImage(view.getWidth(), view.getHeight(),
+                    Transparency.TRANSLUCENT);
+            layerViewport = null;
+        }
+
+        // keep the indices up to date
+        for(int i=indexedStations; i<snapshot.getNumStations(); i++){
+            stationIndex.add(i, snapshot.getStationX(i), snapshot.getStationY(i));
+        }
+        indexedStations = snapshot.getNumStations();
+        if(snapshot.getTopologyVersion() != lineLayerVersion){
+            segmentIndex.build(snapshot);
+        }
+
+        // redraw lines in view
+        if((snapshot.getTopologyVersion() != lineLayerVersion) || (view != layerViewport)){
+            Graphics2D layerGraphics = lineLayer.createGraphics();
+            clearLayer(layerGraphics, lineLayer);
+            layerGraphics.translate(-view.getLeft() * view.getZoom(), -view.getTop() * view.getZoom());
+            layerGraphics.scale(view.getZoom(), view.getZoom());
+            layerGraphics.setStroke(lineStroke);
+            drawVisibleLines(layerGraphics, snapshot, view);
+            layerGraphics.dispose();
+            lineLayerVersion = snapshot.getTopologyVersion();
+        }
+
+        // redraw stations in view
+        if(view != layerViewport){
+            Graphics2D layerGraphics = stationLayer.createGraphics();
+            clearLayer(layerGraphics, stationLayer);
+            visibleStations.clear();
+            double margin = grid.getGridSize() * 2; // room for the station and the number beside it
+            stationIndex.withinRect(grid.screenXToGrid((int) Math.floor(view.getLeft() - margin)),
+                    grid.screenYToGrid((int) Math.floor(view.getTop() - margin)),
+                    grid.screenXToGrid((int) Math.ceil(view.getRight() + margin)),
+                    grid.screenYToGrid((int) Math.ceil(view.getBottom() + margin)), visibleStations);
+            for(int i=0; i<visibleStations.size(); i++){
+                drawStationIcon(layerGraphics, snapshot, visibleStations.get(i), view);
+            }
+            layerGraphics.dispose();
+            stationLayerStations = snapshot.getNumStations();
+            layerViewport = view;
+        }
+
+        // draw new stations in view
+        if(snapshot.getNumStations() > stationLayerStations){
+            Graphics2D layerGraphics = stationLayer.createGraphics();
+            for(int i=stationLayerStations; i<snapshot.getNumStations(); i++){
+                if(view.isVisible(grid.gridXToScreen(snapshot.getStationX(i)), grid.gridYToScreen(snapshot.getStationY(i)),
+                        grid.getGridSize() * 2)){
+                    drawStationIcon(layerGraphics, snapshot, i, view);
+                    visibleStations.add(i);
+                }
+            }
+            layerGraphics.dispose();
+            stationLayerStations = snapshot.getNumStations();
+        }
+    }
+
+    /**
+     * Clears a retained layer to transparent
+     * @param layerGraphics Graphics2D object drawing on the layer
+     * @param layer         the layer
+     */
+    private static void clearLayer(Graphics2D layerGraphics, BufferedImage layer){
+        layerGraphics.setComposite(AlphaComposite.Clear);
+        layerGraphics.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+        layerGraphics.setComposite(AlphaComposite.SrcOver);
+    }
+
+    /**
+     * Draws the segments of lines that are in view. The visible segments of each
+     * line are sorted, and each run of consecutive segments is added to the line's
+     * path as one subpath. The whole path is drawn at once, so translucent lines
+     * that cross themselves look the same as when the whole line is drawn.
+     * @param g        Graphics2D object to draw with, already transformed to map coordinates
+     * @param snapshot the RenderSnapshot containing the lines
+     * @param view     the Viewport being drawn
+     */
+    private void drawVisibleLines(Graphics2D g, RenderSnapshot snapshot, Viewport view){
+        double margin = lineStroke.getLineWidth();
+        for(int i=0; i<snapshot.getNumLines(); i++){
+            visibleSegments[i].clear();
+        }
+        segmentIndex.withinRect(view.getLeft() - margin, view.getTop() - margin, view.getRight() + margin,
+                view.getBottom() + margin, visibleSegments);
+        for(int i=0; i<snapshot.getNumLines(); i++){
+            LineGeometry line = snapshot.getLine(i);
+            IntList segments = visibleSegments[i];
+            segments.sort();
+            runPath.reset();
+            int runStart = 0;
+            while(runStart < segments.size()){
+                int runEnd = runStart;
+                while((runEnd + 1 < segments.size()) && (segments.get(runEnd + 1) == segments.get(runEnd) + 1)){
+                    runEnd++;
+                }
+                runPath.moveTo(line.getX(segments.get(runStart)), line.getY(segments.get(runStart)));
+                for(int point=segments.get(runStart)+1; point<=segments.get(runEnd)+1; point++){
+                    runPath.lineTo(line.getX(point), line.getY(point));
+                }
+                runStart = runEnd + 1;
+            }
+            if(!segments.isEmpty()){
+                g.setColor(getLineColor(line.getColorIndex()));
+                g.draw(runPath);
+            }
+        }
+    }
+
+    /**
+     * Draws a train and the number of passengers on the train
+     * @param g Graphics2D object to draw with
+     * @param snapshot the RenderSnapshot containing the train
+     * @param i the index of the train in the snapshot
+     * @param interpolation how far between the previous and latest tick to draw the train
+     * @param view the Viewport being drawn
+     * @param showPassengers whether or not to draw the number of passengers
+     */
+    private void drawTrain(Graphics2D g, RenderSnapshot snapshot, int i, double interpolation, Viewport view,
+                           boolean showPassengers){
+        double mapX = snapshot.getTrainX(i, interpolation);
+        double mapY = snapshot.getTrainY(i, interpolation);
+        if(!view.isVisible(mapX, mapY, grid.getGridSize())){
+            return;
+        }
+        double x = view.mapXToScreen(mapX);
+        double y = view.mapYToScreen(mapY);
+
+        // draw the train graphic
+        g.setColor(getLineColor(snapshot.getTrainColorIndex(i)));
+        int centerX = (int) Math.round(x);
+        int centerY = (int) Math.round(y);
+        g.translate(centerX, centerY);
+        g.fill(trainShapes[snapshot.getTrainRotation(i)/45]);
+        g.translate(-centerX, -centerY);
+
+        // draw the display of the number of passengers
+        if(showPassengers){
+            trainPaxDisplay.changeNumber(snapshot.getTrainPassengers(i));
+            trainPaxDisplay.updatePosition((int) x, (int) y);
+            trainPaxDisplay.draw(g);
+        }
+    }
+
+    /**
+     * Makes the shapes of trains at every rotation for a zoom
+     * @param zoom the number of screen pixels per map pixel
+     */
+    private void makeTrainShapes(double zoom){
+        int halfTrainLength = (int) Math.round(grid.getGridSize()*0.45*zoom);
+        int halfTrainWidth = (int) Math.round(grid.getGridSize()*0.3*zoom);
+        for(int i=0; i<trainShapes.length; i++){
+            trainShapes[i] = makeTrainShape(i*45, halfTrainLength, halfTrainWidth);
+        }
+        trainShapeZoom = zoom;
+    }
+
+    /**
+     * Makes a Shape depicting a train centered on (0,0) at a specific orientation,
+     * which is translated to each train's position when drawn
+     * @param rotation the orientation of the train, as given by Train.getRotation()
+     * @param halfTrainLength half of the length of the train on the screen
+     * @param halfTrainWidth half of the width of the train on the screen
+     * @return a Shape representing the train
+     */
+    private static Shape makeTrainShape(int rotation, int halfTrainLength, int halfTrainWidth){
+        int centerX = 0;
+        int centerY = 0;
+        if(rotation == 90){
+            return new Rectangle(centerX-halfTrainWidth, centerY-halfTrainLength, halfTrainWidth*2, halfTrainLength*2);
+        }else if(rotation == 45){
+            return new Polygon(
+                    new int[] { (int) Math.round(centerX + (halfTrainLength + halfTrainWidth) * COS_45),
+                                (int) Math.round(centerX + (halfTrainLength - halfTrainWidth) * COS_45),
+                                (int) Math.round(centerX + (-halfTrainLength - halfTrainWidth) * COS_45),
+                                (int) Math.round(centerX + (-halfTrainLength + halfTrainWidth) * COS_45) },
+                    new int[] { (int) Math.round(centerY + (-halfTrainLength + halfTrainWidth) * COS_45),
+                                (int) Math.round(centerY + (-halfTrainLength - halfTrainWidth) * COS_45),
+                                (int) Math.round(centerY + (halfTrainLength - halfTrainWidth) * COS_45),
+                                (int) Math.round(centerY + (halfTrainLength + halfTrainWidth) * COS_45) },
+                    4);
+        }else if(rotation == 135){
+            return new Polygon(
+                    new int[] { (int) Math.round(centerX + (halfTrainLength + halfTrainWidth) * COS_45),
+                                (int) Math.round(centerX + (halfTrainLength - halfTrainWidth) * COS_45),
+                                (int) Math.round(centerX + (-halfTrainLength - halfTrainWidth) * COS_45),
+                                (int) Math.round(centerX + (-halfTrainLength + halfTrainWidth) * COS_45) },
+                    new int[] { (int) Math.round(centerY + (halfTrainLength - halfTrainWidth) * COS_45),
+                                (int) Math.round(centerY + (halfTrainLength + halfTrainWidth) * COS_45),
+                                (int) Math.round(centerY + (-halfTrainLength + halfTrainWidth) * COS_45),
+                                (int) Math.round(centerY + (-halfTrainLength - halfTrainWidth) * COS_45) },
+                    4);
+        }
+        return new Rectangle(centerX-halfTrainLength, centerY-halfTrainWidth, halfTrainLength*2, halfTrainWidth*2);
+    }
+
+    /**
+     * Draws the icon of a station, or a single pixel if the icon would be too
+     * small to see
+     * @param g Graphics2D object to draw with
+     * @param snapshot the RenderSnapshot containing the station
+     * @param i the id of the station
+     * @param view the Viewport being drawn
+     */
+    private void drawStationIcon(Graphics2D g, RenderSnapshot snapshot, int i, Viewport view){
+        int x = (int) Math.round(view.mapXToScreen(grid.gridXToScreen(snapshot.getStationX(i))));
+        int y = (int) Math.round(view.mapYToScreen(grid.gridYToScreen(snapshot.getStationY(i))));
+        int outerWidth = (int) Math.round(Station.getOuterWidth() * view.getZoom());
+        int innerWidth = (int) Math.round(Station.getInnerWidth() * view.getZoom());
+
+        g.setColor(Color.BLACK);
+        if(outerWidth < MIN_ICON_PIXELS){
+            g.fillRect(x, y, 1, 1);
+            return;
+        }
+        g.fillOval(x - outerWidth / 2, y - outerWidth / 2, outerWidth, outerWidth);
+        g.setColor(Color.WHITE);
+        g.fillOval(x - innerWidth / 2, y - innerWidth / 2, innerWidth, innerWidth);
+    }
+
+    /**
+     * Draws the number of passengers waiting at a station, in red when the station
+     * starts getting crowded
+     * @param g Graphics2D object to draw with
+     * @param snapshot the RenderSnapshot containing the station
+     * @param i the id of the station
+     * @param view the Viewport being drawn
+     */
+    private void drawStationPassengers(Graphics2D g, RenderSnapshot snapshot, int i, Viewport view){
+        int passengers = snapshot.getStationPassengers(i);
+        stationPaxDisplay.changeNumber(passengers);
+        if(passengers >= Station.OVERCROWDING_WARNING){
+            stationPaxDisplay.changeColor(WARNING_COLOR);
+        }else{
+            stationPaxDisplay.changeColor(Color.BLACK);
+        }
+        int x = (int) Math.round(view.mapXToScreen(grid.gridXToScreen(snapshot.getStationX(i))));
+        int y = (int) Math.round(view.mapYToScreen(grid.gridYToScreen(snapshot.getStationY(i))));
+        stationPaxDisplay.updatePosition(x + (int) Math.round(grid.getGridSize() * 3 / 4 * view.getZoom()), y);
+        stationPaxDisplay.draw(g);
+    }
+
+    /**
+     * Draws the player's score in the top left corner of the screen
+     * @param g Graphics2D object to draw with
+     * @param score the player's score
+     */
+    private void drawScore(Graphics2D g, int score){
+        if(score != displayedScore){
+            scoreDisplay.changeText("Score: " + score);
+            displayedScore = score;
+        }
+        scoreDisplay.draw(g, scoreDisplay.getWidth()/2 + grid.getGridSize()/2, grid.getGridSize()*3/4);
+    }
+
+    /**
+     * Draws how fast the game is running in the top right corner of the screen: the
+     * time scale, and the number of ticks actually run per second, which falls
+     * behind the time scale when the CPU can't keep up
+     * @param graphics Graphics object to draw with
+     * @param timeScale the time scale of the game loop, as given by GameLoop.getTimeScale()
+     * @param ticksPerSecond the number of ticks run per second
+     */
+    public void drawSpeed(Graphics graphics, int timeScale, int ticksPerSecond){
+        if((timeScale != displayedTimeScale) || (ticksPerSecond != displayedTicksPerSecond)){
+            String scaleText = (timeScale == GameLoop.MAX_SPEED) ? "max" : timeScale + "x";
+            speedDisplay.changeText(scaleText + "  " + ticksPerSecond + " ticks/s");
+            displayedTimeScale = timeScale;
+            displayedTicksPerSecond = ticksPerSecond;
+        }
+        speedDisplay.draw(graphics, camera.getViewport().getWidth() - speedDisplay.getWidth()/2 - grid.getGridSize()/2,
+                grid.getGridSize()*3/4);
+    }
+
+    /**
+     * Draws an alert in the center of the screen on a dark background
+     * @param g Graphics2D object to draw with
+     * @param text the text of the alert
+     * @param fontSize the font size of the alert
+     * @param view the Viewport being drawn
+     */
+    private void drawAlert(Graphics2D g, String text, int fontSize, Viewport view){
+        if((alertDisplay == null) || !text.equals(displayedAlertText) || (fontSize != displayedAlertFontSize)){
+            alertDisplay = new DisplayedText(text, fontSize, Color.WHITE);
+            displayedAlertText = text;
+            displayedAlertFontSize = fontSize;
+        }
+        g.setColor(ALERT_BG_COLOR);
+        g.fillRect((view.getWidth() - alertDisplay.getWidth()) / 2 - ALERT_BG_BUFFER,
+                (view.getHeight() - alertDisplay.getHeight()) / 2 - ALERT_BG_BUFFER,
+                alertDisplay.getWidth() + ALERT_BG_BUFFER * 2, alertDisplay.getHeight() + ALERT_BG_BUFFER * 2);
+        alertDisplay.draw(g, view.getWidth()/2, view.getHeight()/2);
+    }
+}
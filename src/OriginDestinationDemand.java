@@ -0,0 +1,93 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * OriginDestinationDemand.java
+ * A demand model given as a matrix of weights between stations, so a realistic
+ * pattern of demand can be loaded instead of a uniform or gravity one. Only the
+ * journeys set are stored, and every other journey has the default weight, so
+ * stations added later still get some demand unless the default is 0.
+ *
+ * Weights changed after the model is given to a network only take effect once
+ * it is given to the network again, since the network samples from tables made
+ * from the weights.
+ *
+ * A matrix can be loaded from a text file with one journey per line, given as the
+ * origin id, destination id, and weight separated by spaces. A line of the form
+ * "default weight" sets the default weight, which is otherwise 0, and blank lines
+ * and lines starting with # are skipped.
+ * @author Suyu
+ * @version 1.0
+ */
+public class OriginDestinationDemand implements DemandModel {
+
+    // variables
+    private HashMap<Long, Double> weights = new HashMap<Long, Double>(); // by origin id in the high 32 bits, destination id in the low
+    private double defaultWeight;
+
+    /**
+     * Creates a new OriginDestinationDemand with no weights set
+     * @param defaultWeight the weight of every journey whose weight isn't set
+     */
+    public OriginDestinationDemand(double defaultWeight){
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * Loads a matrix of weights from a text file
+     * @param fileName the name of the file to load
+     * @return the OriginDestinationDemand with the weights in the file
+     * @throws IOException if the file can't be read or a line can't be understood
+     */
+    public static OriginDestinationDemand load(String fileName) throws IOException{
+        OriginDestinationDemand demand = new OriginDestinationDemand(0.0);
+        try(BufferedReader reader = new BufferedReader(new FileReader(fileName))){
+            int lineNumber = 0;
+            String line;
+            while((line = reader.readLine()) != null){
+                lineNumber++;
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")){
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                try{
+                    if((fields.length == 2) && fields[0].equals("default")){
+                        demand.defaultWeight = Double.parseDouble(fields[1]);
+                    }else if(fields.length == 3){
+                        demand.setWeight(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]),
+                                Double.parseDouble(fields[2]));
+                    }else{
+                        throw new IOException(fileName + ":" + lineNumber + ": expected origin destination weight");
+                    }
+                }catch(NumberFormatException e){
+                    throw new IOException(fileName + ":" + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return demand;
+    }
+
+    /**
+     * Sets the weight of the journey from one station to another
+     * @param originId      the id of the station passengers appear at
+     * @param destinationId the id of the station they travel to
+     * @param weight        the weight of the journey, 0 if passengers never make it
+     */
+    public void setWeight(int originId, int destinationId, double weight){
+        weights.put(((long) originId << 32) | destinationId, weight);
+    }
+
+    /**
+     * Gets the weight of the journey between two stations
+     * @param origin      the station the passenger appears at
+     * @param destination a station other than the origin
+     * @return the weight set for the journey, or the default weight if none was set
+     */
+    public double getWeight(Station origin, Station destination){
+        Double weight = weights.get(((long) origin.getId() << 32) | destination.getId());
+        return (weight == null) ? defaultWeight : weight;
+    }
+}
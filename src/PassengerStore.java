@@ -0,0 +1,357 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PassengerStore.java
+ * All passengers travelling on the network, kept as parallel arrays indexed by
+ * passenger id instead of as objects. Stations and trains only hold passenger
+ * ids. Ids of delivered passengers are put on a free list and reused for new
+ * passengers, so once the arrays have grown to the largest number of passengers
+ * at one time, passengers coming and going make no garbage.
+ *
+ * Each passenger takes 4 ints (origin, destination, leg, and spawn tick), a
+ * reference to a path shared with other passengers, and an int on the free list.
+ *
+ * Paths for many passengers at once are found in batches grouped by destination,
+ * so the route trees for all of the destinations can be made together in
+ * parallel and every passenger heading to a destination is routed from its tree.
+ * @author Suyu
+ * @version 1.0
+ */
+public class PassengerStore {
+
+    // Network
+    private Network network;
+    private ArrayList<Station> stations;
+    private DestinationSampler destinationSampler;
+    private RouteCache routeCache;
+    private RouteTrees routeTrees; // null if paths are found without route trees
+    private CapacityAssignment capacityAssignment; // null if paths are never found with route weights
+    private boolean useRoutingTables; // if true, routes are looked up in the stations' next-hop tables
+
+    // Passengers by id
+    private int[] origins;
+    private int[] destinations; // -1 if there was no other station to travel to
+    private int[] legs; // index of the station the passenger was last seen at on their path
+    private int[] spawnTicks;
+    private List<Station>[] paths; // shared with other passengers, only used when not using routing tables
+
+    // Ids
+    private int capacity;
+    private int numIds = 0; // ids from numIds to capacity-1 have never been used
+    private int[] freeIds; // stack of ids of delivered passengers
+    private int numFree = 0;
+
+    // Batches of paths - passengers in a batch are chained together by destination
+    private int batch = 0;
+    private int[] destinationBatches = new int[0]; // batch in which each destination was last seen
+    private int[] firstInBatch = new int[0]; // first passenger in the batch heading to each destination
+    private int[] batchCounts = new int[0]; // number of passengers in the batch heading to each destination
+    private int[] nextInBatch; // next passenger in the batch heading to the same destination, or -1
+    private IntList batchDestinations = new IntList(); // destinations of the batch, each only once
+    private IntList roundDestinations = new IntList(); // destinations whose trees are made together
+    private IntList roundRequests = new IntList();
+
+    /**
+     * Creates a new empty PassengerStore
+     * @param network          the Network the passengers travel on
+     * @param routeCache       the RouteCache used to find paths, or null if routing
+     *                         tables are used
+     * @param useRoutingTables true if passengers should look up routes in the
+     *                         stations' routing tables instead of storing paths
+     */
+    public PassengerStore(Network network, RouteCache routeCache, boolean useRoutingTables){
+        this.network = network;
+        this.stations = network.getStations();
+        this.destinationSampler = network.getDestinationSampler();
+        this.routeCache = routeCache;
+        this.routeTrees = network.getRouteTrees();
+        this.capacityAssignment = network.getCapacityAssignment();
+        this.useRoutingTables = useRoutingTables;
+        allocate(64);
+    }
+
+    /**
+     * Resizes all arrays to hold a number of passengers, keeping existing passengers
+     * @param newCapacity the number of passengers the arrays can hold
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void allocate(int newCapacity){
+        if(origins == null){
+            origins = new int[newCapacity];
+            destinations = new int[newCapacity];
+            legs = new int[newCapacity];
+            spawnTicks = new int[newCapacity];
+            paths = (List<Station>[]) new List[newCapacity];
+            freeIds = new int[newCapacity];
+            nextInBatch = new int[newCapacity];
+        }else{
+            origins = Arrays.copyOf(origins, newCapacity);
+            destinations = Arrays.copyOf(destinations, newCapacity);
+            legs = Arrays.copyOf(legs, newCapacity);
+            spawnTicks = Arrays.copyOf(spawnTicks, newCapacity);
+            paths = Arrays.copyOf(paths, newCapacity);
+            freeIds = Arrays.copyOf(freeIds, newCapacity);
+            nextInBatch = Arrays.copyOf(nextInBatch, newCapacity);
+        }
+        capacity = newCapacity;
+    }
+
+    /**
+     * Creates a new passenger at a station and picks a destination with the
+     * network's demand model. The path is found afterwards with findPath or
+     * findPaths.
+     * @param origin the station where the passenger appears
+     * @param tick   the tick the passenger appears at
+     * @return the id of the new passenger
+     */
+    public int spawn(Station origin, int tick){
+        int id;
+        if(numFree > 0){
+            numFree--;
+            id = freeIds[numFree];
+        }else{
+            if(numIds == capacity){
+                allocate(capacity * 2);
+            }
+            id = numIds;
+            numIds++;
+        }
+        origins[id] = origin.getId();
+        destinations[id] = destinationSampler.pickDestination(origin, network.getRandom());
+        legs[id] = 0;
+        spawnTicks[id] = tick;
+        paths[id] = null;
+        return id;
+    }
+
+    /**
+     * Removes a passenger once they have been delivered, so their id can be reused
+     * @param id the id of the passenger
+     */
+    public void release(int id){
+        paths[id] = null;
+        freeIds[numFree] = id;
+        numFree++;
+    }
+
+    /**
+     * Returns whether or not a path has been found between a passenger's staring
+     * and destination stations. When routing tables are used, passengers do not
+     * store paths and always look up the next station in the routing tables, so
+     * this is always true.
+     * @param id the id of the passenger
+     * @return true if a path has been found, false otherwise.
+     */
+    public boolean hasPath(int id){
+        return useRoutingTables || (paths[id] != null);
+    }
+
+    /**
+     * Gets a path between a passenger's staring and destination stations from the
+     * route cache, which uses Dijkstra's algorithm if the path is not cached. Does
+     * nothing when routing tables are used.
+     * @param id the id of the passenger
+     */
+    public void findPath(int id){
+        if(!useRoutingTables && (destinations[id] != -1)){
+            paths[id] = getPath(stations.get(origins[id]), stations.get(destinations[id]));
+        }
+    }
+
+    /**
+     * Gets a path for one passenger. If the capacity-aware assignment has trees for
+     * the destination, each passenger's path is picked from them alone so passengers
+     * are spread over paths, and is not cached. Otherwise the path comes from the
+     * route cache.
+     * @param start the station the path starts at
+     * @param end   the passenger's destination
+     * @return the stations of the path, or null if there is no path
+     */
+    private List<Station> getPath(Station start, Station end){
+        if((capacityAssignment != null) && capacityAssignment.picksPathsTo(end.getId())){
+            return capacityAssignment.getPath(start, end);
+        }
+        return routeCache.getPath(start, end);
+    }
+
+    /**
+     * Finds paths for many passengers at once. The passengers are grouped by
+     * destination, and the route trees of the destinations are made together in
+     * parallel, as many at a time as fit, before each passenger's path is taken
+     * from the tree of their destination. Without route trees, each passenger's
+     * path is found on its own, and so is the path of each passenger whose path is
+     * picked from the capacity-aware assignment's trees. Does nothing when routing
+     * tables are used.
+     * @param ids the ids of the passengers, each only once
+     */
+    public void findPaths(IntList ids){
+        if(useRoutingTables || ids.isEmpty()){
+            return;
+        }
+        if(routeTrees == null){
+            for(int i=0; i<ids.size(); i++){
+                findPath(ids.get(i));
+            }
+            return;
+        }
+
+        // chain the passengers together by destination
+        newBatch();
+        for(int i=0; i<ids.size(); i++){
+            int id = ids.get(i);
+            int destination = destinations[id];
+            if(destination == -1){
+                continue;
+            }
+            if((capacityAssignment != null) && capacityAssignment.picksPathsTo(destination)){
+                findPath(id);
+                continue;
+            }
+            if(destinationBatches[destination] != batch){
+                destinationBatches[destination] = batch;
+                firstInBatch[destination] = -1;
+                batchCounts[destination] = 0;
+                batchDestinations.add(destination);
+            }
+            nextInBatch[id] = firstInBatch[destination];
+            firstInBatch[destination] = id;
+            batchCounts[destination]++;
+        }
+
+        // make the trees for a round of destinations, then route everyone heading there
+        int roundSize = routeTrees.getMaxTemporaryTrees();
+        for(int start=0; start<batchDestinations.size(); start+=roundSize){
+            int end = Math.min(batchDestinations.size(), start + roundSize);
+            roundDestinations.clear();
+            roundRequests.clear();
+            for(int i=start; i<end; i++){
+                roundDestinations.add(batchDestinations.get(i));
+                roundRequests.add(batchCounts[batchDestinations.get(i)]);
+            }
+            routeTrees.makeTrees(roundDestinations, roundRequests);
+            for(int i=start; i<end; i++){
+                for(int id = firstInBatch[batchDestinations.get(i)]; id != -1; id = nextInBatch[id]){
+                    findPath(id);
+                }
+            }
+        }
+        routeTrees.dropTemporaryTrees();
+    }
+
+    /**
+     * Starts a new batch of paths, growing the per-destination arrays if stations
+     * have been added since the last batch
+     */
+    private void newBatch(){
+        int n = stations.size();
+        if(destinationBatches.length < n){
+            int newLength = Math.max(n, destinationBatches.length * 2);
+            destinationBatches = Arrays.copyOf(destinationBatches, newLength);
+            firstInBatch = Arrays.copyOf(firstInBatch, newLength);
+            batchCounts = Arrays.copyOf(batchCounts, newLength);
+        }
+        batchDestinations.clear();
+        batch++;
+        if(batch == Integer.MAX_VALUE){ // stamps would wrap around, so start over
+            Arrays.fill(destinationBatches, 0);
+            batch = 1;
+        }
+    }
+
+    /**
+     * Gives a passenger a new path from the station they are at, or are about to
+     * arrive at on a train, to their destination. Used when a shorter route opens
+     * up partway through their journey. Does nothing when routing tables are used.
+     * @param id      the id of the passenger
+     * @param current the station the new path starts at
+     */
+    public void reroute(int id, Station current){
+        if(!useRoutingTables && (destinations[id] != -1)){
+            paths[id] = getPath(current, stations.get(destinations[id]));
+            legs[id] = 0;
+        }
+    }
+
+    /**
+     * Gets the next station on a passenger's journey from the station they are
+     * currently at.
+     * @param id      the id of the passenger
+     * @param current the station the passenger is currently at
+     * @return the next station on the passenger's journey, or null if the passenger
+     *         has reached their destination station or if a path has not yet been found.
+     */
+    public Station getNextOnPath(int id, Station current){
+        if(destinations[id] == -1){
+            return null;
+        }
+        if(useRoutingTables){
+            return current.getNextHop(stations.get(destinations[id]));
+        }
+        List<Station> path = paths[id];
+        if(path != null){
+            // catch up with the stations passed while riding a train
+            int leg = legs[id];
+            while((leg < path.size()-1) && (path.get(leg) != current)){
+                leg++;
+            }
+            legs[id] = leg;
+            if(leg < path.size()-1){
+                return path.get(leg + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the station where a passenger appeared
+     * @param id the id of the passenger
+     * @return the id of the passenger's starting station
+     */
+    public int getOrigin(int id){
+        return origins[id];
+    }
+
+    /**
+     * Gets the station a passenger is travelling to
+     * @param id the id of the passenger
+     * @return the id of the passenger's destination station, or -1 if they have none
+     */
+    public int getDestination(int id){
+        return destinations[id];
+    }
+
+    /**
+     * Gets the tick a passenger appeared at
+     * @param id the id of the passenger
+     * @return the tick the passenger was created at
+     */
+    public int getSpawnTick(int id){
+        return spawnTicks[id];
+    }
+
+    /**
+     * Gets the number of passengers currently on the network
+     * @return the number of passengers that have not been delivered yet
+     */
+    public int size(){
+        return numIds - numFree;
+    }
+
+    /**
+     * Gets the number of passengers this store can hold before it has to grow
+     * @return the length of the passenger arrays
+     */
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * Gets a String summarizing this store
+     * @return the number of passengers and the capacity of this store
+     */
+    public String toString(){
+        return "PassengerStore[passengers=" + size() + ", capacity=" + capacity + "]";
+    }
+}
@@ -1,5 +1,4 @@
 import java.awt.geom.Path2D;
-import java.util.LinkedList;
 
 /**
  * A collection of methods to use with java.awt.geom.Path2D objects.
@@ -8,15 +7,15 @@ import java.util.LinkedList;
 public class Path2DTools {
 
     /**
-     * Creates a Path2D.Float object connecting a list of points with straight lines
-     * @param points a LinkedList of length 2 int arrays representing the coordinates making up the path
-     * @return the Path2D.Float object consisting of the points in the LinkedList joined by straight lines
+     * Creates a Path2D.Float object connecting the points of a line with straight lines
+     * @param line the LineGeometry containing the coordinates making up the path
+     * @return the Path2D.Float object consisting of the points of the line joined by straight lines
      */
-    public static Path2D.Float makePathWithPoints(LinkedList<int[]> points){
+    public static Path2D.Float makePathWithPoints(LineGeometry line){
         Path2D.Float path = new Path2D.Float();
-        path.moveTo(points.getFirst()[0], points.getFirst()[1]);
-        for(int i=0; i<points.size(); i++){
-            path.lineTo(points.get(i)[0], points.get(i)[1]);
+        path.moveTo(line.getX(0), line.getY(0));
+        for(int i=1; i<line.getNumPoints(); i++){
+            path.lineTo(line.getX(i), line.getY(i));
         }
         return path;
     }
@@ -0,0 +1,20 @@
+import java.util.ArrayList;
+
+/**
+ * PathFinder.java
+ * Something that can find the path a passenger should take between two stations,
+ * used by the RouteCache to find the paths it doesn't have yet.
+ * @author Suyu
+ * @version 1.0
+ */
+public interface PathFinder {
+
+    /**
+     * Finds the path a passenger should take between two stations
+     * @param start the starting station
+     * @param end   the ending station
+     * @return an ArrayList of stations to travel along to get from start to end,
+     *         or null if there is no path between the stations
+     */
+    public ArrayList<Station> getPath(Station start, Station end);
+}
@@ -0,0 +1,234 @@
+import java.util.Arrays;
+
+/**
+ * PointBuffer.java
+ * The points of a line in screen coordinates, packed into one int array as x and
+ * y pairs instead of being kept as a list of arrays. Points can be read by index
+ * in constant time, and added to either end in amortized constant time, since the
+ * points are kept in the middle of the array with room to grow on both sides.
+ *
+ * The length and direction of each segment between two points, and the distance
+ * along the line to each point, are worked out once after the points change and
+ * kept until they change again.
+ * @author Suyu
+ * @version 1.0
+ */
+public class PointBuffer {
+
+    // Constants
+    private static final int INITIAL_CAPACITY = 8; // in points
+
+    // Points
+    private int[] coords = new int[INITIAL_CAPACITY * 2]; // x and y of each point, one after the other
+    private int start = INITIAL_CAPACITY; // index in coords of the x of the first point
+    private int size = 0; // number of points
+
+    // Segments, worked out when needed - segment i goes from point i to point i+1
+    private boolean segmentsStale = true;
+    private double[] segmentLengths = new double[0];
+    private double[] directionXs = new double[0]; // x component of the unit vector along each segment
+    private double[] directionYs = new double[0];
+    private double[] distances = new double[0]; // distance along the line from the first point to each point
+
+    /**
+     * Adds a point to the end of this buffer
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     */
+    public void addLast(int x, int y){
+        if(start + size * 2 == coords.length){
+            grow();
+        }
+        coords[start + size * 2] = x;
+        coords[start + size * 2 + 1] = y;
+        size++;
+        segmentsStale = true;
+    }
+
+    /**
+     * Adds a point to the beginning of this buffer, so it becomes point 0
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     */
+    public void addFirst(int x, int y){
+        if(start == 0){
+            grow();
+        }
+        start -= 2;
+        coords[start] = x;
+        coords[start + 1] = y;
+        size++;
+        segmentsStale = true;
+    }
+
+    /**
+     * Removes the last point in this buffer
+     */
+    public void removeLast(){
+        size--;
+        segmentsStale = true;
+    }
+
+    /**
+     * Doubles the size of the array of points, putting the points back in the
+     * middle so there is room on both sides
+     */
+    private void grow(){
+        int[] newCoords = new int[coords.length * 2];
+        int newStart = (newCoords.length / 2 - size) & ~1; // must stay even
+        System.arraycopy(coords, start, newCoords, newStart, size * 2);
+        coords = newCoords;
+        start = newStart;
+    }
+
+    /**
+     * Gets the number of points in this buffer
+     * @return the number of points
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Gets the x coordinate of a point
+     * @param i the index of the point, from 0 to size()-1
+     * @return the x coordinate of the point on the screen
+     */
+    public int getX(int i){
+        return coords[start + i * 2];
+    }
+
+    /**
+     * Gets the y coordinate of a point
+     * @param i the index of the point, from 0 to size()-1
+     * @return the y coordinate of the point on the screen
+     */
+    public int getY(int i){
+        return coords[start + i * 2 + 1];
+    }
+
+    /**
+     * Gets the x coordinate of the last point
+     * @return the x coordinate of the last point on the screen
+     */
+    public int getLastX(){
+        return getX(size - 1);
+    }
+
+    /**
+     * Gets the y coordinate of the last point
+     * @return the y coordinate of the last point on the screen
+     */
+    public int getLastY(){
+        return getY(size - 1);
+    }
+
+    /**
+     * Gets the length of a segment
+     * @param i the index of the segment, from 0 to size()-2, where segment i goes
+     *          from point i to point i+1
+     * @return the length of the segment in pixels
+     */
+    public double getSegmentLength(int i){
+        updateSegments();
+        return segmentLengths[i];
+    }
+
+    /**
+     * Gets the x component of the direction of a segment
+     * @param i the index of the segment, from 0 to size()-2
+     * @return the x component of the unit vector from point i to point i+1, or 0 if
+     *         the two points are at the same location
+     */
+    public double getDirectionX(int i){
+        updateSegments();
+        return directionXs[i];
+    }
+
+    /**
+     * Gets the y component of the direction of a segment
+     * @param i the index of the segment, from 0 to size()-2
+     * @return the y component of the unit vector from point i to point i+1, or 0 if
+     *         the two points are at the same location
+     */
+    public double getDirectionY(int i){
+        updateSegments();
+        return directionYs[i];
+    }
+
+    /**
+     * Gets the distance along the line from the first point to a point
+     * @param i the index of the point, from 0 to size()-1
+     * @return the sum of the lengths of all segments before the point, in pixels
+     */
+    public double getDistance(int i){
+        updateSegments();
+        return distances[i];
+    }
+
+    /**
+     * Gets the length of the whole line
+     * @return the distance along the line from the first point to the last point,
+     *         in pixels, or 0 if there are no points
+     */
+    public double getLength(){
+        if(size == 0){
+            return 0;
+        }
+        return getDistance(size - 1);
+    }
+
+    /**
+     * Finds the segment at a distance along the line with a binary search over the
+     * distances to each point
+     * @param distance the distance along the line from the first point, in pixels
+     * @return the index of the segment the distance falls on, from 0 to size()-2.
+     *         A distance exactly at a point between two segments gives the later
+     *         segment, except at the last point.
+     */
+    public int findSegment(double distance){
+        updateSegments();
+        int low = 0;
+        int high = size - 2;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(distances[mid] <= distance){
+                low = mid;
+            }else{
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Works out the lengths and directions of all segments and the distances to all
+     * points, if the points have changed since they were last worked out
+     */
+    private void updateSegments(){
+        if(!segmentsStale){
+            return;
+        }
+        if(distances.length < size){
+            int capacity = Math.max(size, distances.length * 2);
+            segmentLengths = Arrays.copyOf(segmentLengths, capacity);
+            directionXs = Arrays.copyOf(directionXs, capacity);
+            directionYs = Arrays.copyOf(directionYs, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+        }
+        double distance = 0;
+        for(int i=0; i<size; i++){
+            distances[i] = distance;
+            if(i < size - 1){
+                int dx = getX(i + 1) - getX(i);
+                int dy = getY(i + 1) - getY(i);
+                double length = Math.sqrt((double) dx * dx + (double) dy * dy);
+                segmentLengths[i] = length;
+                directionXs[i] = (length == 0) ? 0 : dx / length;
+                directionYs[i] = (length == 0) ? 0 : dy / length;
+                distance += length;
+            }
+        }
+        segmentsStale = false;
+    }
+}
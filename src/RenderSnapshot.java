@@ -0,0 +1,260 @@
+import java.util.ArrayList;
+
+/**
+ * RenderSnapshot.java
+ * An immutable copy of everything needed to draw one frame of the game, made by
+ * the simulation thread after it updates the network. The drawing thread only
+ * ever reads snapshots, so it never touches the network while the simulation is
+ * changing it, and neither thread needs a lock.
+ *
+ * Data that never changes once published (station positions, line geometry) is
+ * shared between snapshots instead of copied.
+ * @author Suyu
+ * @version 1.0
+ */
+public final class RenderSnapshot {
+
+    // Stations - positions are shared with the network, only the first numStations entries are used
+    private final int numStations;
+    private final int[] stationXs, stationYs;
+    private final int[] stationPassengers;
+
+    // Trains
+    private final int numTrains;
+    private final double[] trainXs, trainYs;
+    private final double[] trainPreviousXs, trainPreviousYs;
+    private final int[] trainRotations;
+    private final int[] trainPassengers;
+    private final int[] trainColorIndices;
+
+    // Lines
+    private final int topologyVersion;
+    private final LineGeometry[] lines;
+    private final LineGeometry tempLine;
+
+    // Game info
+    private final int score;
+    private final String alertText;
+    private final int alertFontSize;
+
+    /**
+     * Creates a new RenderSnapshot of the current state of a network. Must be
+     * called from the thread that updates the network.
+     * @param network the Network to copy
+     * @param stationXs the x coordinates of all stations on the grid, indexed by station id
+     * @param stationYs the y coordinates of all stations on the grid, indexed by station id
+     */
+    RenderSnapshot(Network network, int[] stationXs, int[] stationYs){
+
+        // stations
+        ArrayList<Station> stations = network.getStations();
+        numStations = stations.size();
+        this.stationXs = stationXs;
+        this.stationYs = stationYs;
+        stationPassengers = new int[numStations];
+        for(int i=0; i<numStations; i++){
+            stationPassengers[i] = stations.get(i).getNumPassengers();
+        }
+
+        // lines and trains
+        lines = new LineGeometry[network.getLines().size()];
+        int trainCount = 0;
+        int i = 0;
+        for(MetroLine line:network.getLines()){
+            lines[i] = line.getGeometry();
+            trainCount += line.getTrains().size();
+            i++;
+        }
+        numTrains = trainCount;
+        trainXs = new double[numTrains];
+        trainYs = new double[numTrains];
+        trainPreviousXs = new double[numTrains];
+        trainPreviousYs = new double[numTrains];
+        trainRotations = new int[numTrains];
+        trainPassengers = new int[numTrains];
+        trainColorIndices = new int[numTrains];
+        i = 0;
+        for(MetroLine line:network.getLines()){
+            for(Train train:line.getTrains()){
+                trainXs[i] = train.getX();
+                trainYs[i] = train.getY();
+                trainPreviousXs[i] = train.getPreviousX();
+                trainPreviousYs[i] = train.getPreviousY();
+                trainRotations[i] = train.getRotation();
+                trainPassengers[i] = train.getNumPassengers();
+                trainColorIndices[i] = line.getColorIndex();
+                i++;
+            }
+        }
+        topologyVersion = network.getTopologyVersion();
+        if(network.getTempLine() != null){
+            tempLine = network.getTempLine().getGeometry();
+        }else{
+            tempLine = null;
+        }
+
+        // game info
+        score = network.getScore().getScore();
+        if(network.getAlert() != null){
+            alertText = network.getAlert().getText();
+            alertFontSize = network.getAlert().getFontSize();
+        }else{
+            alertText = null;
+            alertFontSize = 0;
+        }
+    }
+
+    /**
+     * Gets the number of stations
+     * @return the number of stations in this snapshot
+     */
+    public int getNumStations(){
+        return numStations;
+    }
+
+    /**
+     * Gets the x coordinate of a station
+     * @param i the id of the station
+     * @return the x coordinate of the station on the game grid
+     */
+    public int getStationX(int i){
+        return stationXs[i];
+    }
+
+    /**
+     * Gets the y coordinate of a station
+     * @param i the id of the station
+     * @return the y coordinate of the station on the game grid
+     */
+    public int getStationY(int i){
+        return stationYs[i];
+    }
+
+    /**
+     * Gets the number of passengers waiting at a station
+     * @param i the id of the station
+     * @return the number of passengers waiting at the station
+     */
+    public int getStationPassengers(int i){
+        return stationPassengers[i];
+    }
+
+    /**
+     * Gets the number of trains
+     * @return the number of trains in this snapshot
+     */
+    public int getNumTrains(){
+        return numTrains;
+    }
+
+    /**
+     * Gets the x coordinate of the center of a train between the previous tick and
+     * the tick of this snapshot
+     * @param i the index of the train
+     * @param interpolation how far between the ticks to get the position, from 0
+     *                      (previous tick) to 1 (this snapshot's tick)
+     * @return the interpolated x coordinate of the train on the screen
+     */
+    public double getTrainX(int i, double interpolation){
+        return trainPreviousXs[i] + (trainXs[i] - trainPreviousXs[i]) * interpolation;
+    }
+
+    /**
+     * Gets the y coordinate of the center of a train between the previous tick and
+     * the tick of this snapshot
+     * @param i the index of the train
+     * @param interpolation how far between the ticks to get the position, from 0
+     *                      (previous tick) to 1 (this snapshot's tick)
+     * @return the interpolated y coordinate of the train on the screen
+     */
+    public double getTrainY(int i, double interpolation){
+        return trainPreviousYs[i] + (trainYs[i] - trainPreviousYs[i]) * interpolation;
+    }
+
+    /**
+     * Gets the orientation of a train
+     * @param i the index of the train
+     * @return the rotation of the train, as given by Train.getRotation()
+     */
+    public int getTrainRotation(int i){
+        return trainRotations[i];
+    }
+
+    /**
+     * Gets the number of passengers on a train
+     * @param i the index of the train
+     * @return the number of passengers on the train
+     */
+    public int getTrainPassengers(int i){
+        return trainPassengers[i];
+    }
+
+    /**
+     * Gets the color of a train
+     * @param i the index of the train
+     * @return the color index of the train's line
+     */
+    public int getTrainColorIndex(int i){
+        return trainColorIndices[i];
+    }
+
+    /**
+     * Gets the topology version of the network when this snapshot was made, which
+     * changes whenever lines are added or extended
+     * @return the topology version of the network
+     */
+    public int getTopologyVersion(){
+        return topologyVersion;
+    }
+
+    /**
+     * Gets the number of lines
+     * @return the number of lines in this snapshot
+     */
+    public int getNumLines(){
+        return lines.length;
+    }
+
+    /**
+     * Gets the geometry of a line. The same LineGeometry object is returned by
+     * every snapshot until the line changes.
+     * @param i the index of the line
+     * @return the LineGeometry of the line
+     */
+    public LineGeometry getLine(int i){
+        return lines[i];
+    }
+
+    /**
+     * Gets the geometry of the line being drawn by the player, including the part
+     * following the mouse
+     * @return the LineGeometry of the temporary line, or null if no line is being drawn
+     */
+    public LineGeometry getTempLine(){
+        return tempLine;
+    }
+
+    /**
+     * Gets the player's score
+     * @return the player's score
+     */
+    public int getScore(){
+        return score;
+    }
+
+    /**
+     * Gets the text of the alert shown to the player
+     * @return the text of the alert, or null if there is no alert
+     */
+    public String getAlertText(){
+        return alertText;
+    }
+
+    /**
+     * Gets the font size of the alert shown to the player
+     * @return the font size of the alert in pixels
+     */
+    public int getAlertFontSize(){
+        return alertFontSize;
+    }
+}
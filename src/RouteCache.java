@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RouteCache.java
+ * A cache of shortest paths between pairs of stations, so passengers appearing
+ * with the same start and destination can share one path instead of each
+ * having it found again. Paths handed out are immutable and shared between
+ * passengers.
+ *
+ * Cached paths are only valid for the network topology version they were found
+ * in, so the whole cache is dropped when the version changes. When the estimated
+ * size of the cache goes over its memory cap, the least recently used paths are
+ * evicted.
+ * @author Suyu
+ * @version 1.0
+ */
+public class RouteCache {
+
+    // Rough memory estimates used for the memory cap, in bytes
+    private static final int ENTRY_BYTES = 96; // map entry, boxed key and list wrapper
+    private static final int STATION_BYTES = 8; // one reference in the path's array
+
+    // marks a pair of stations with no path between them, so failed searches are also cached
+    private static final List<Station> NO_PATH = Collections.emptyList();
+
+    // references to network stuff
+    private Network network;
+    private PathFinder pathFinder;
+
+    // cached paths, in order from least to most recently used
+    private LinkedHashMap<Long, List<Station>> paths = new LinkedHashMap<Long, List<Station>>(256, 0.75f, true);
+    private int topologyVersion;
+    private long maxBytes;
+    private long usedBytes = 0;
+
+    // statistics
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a new empty RouteCache for a network
+     * @param network    the Network whose topology version the cached paths depend on
+     * @param pathFinder the PathFinder used to find paths that are not cached
+     * @param maxBytes   the approximate maximum amount of memory the cached paths may use
+     */
+    public RouteCache(Network network, PathFinder pathFinder, long maxBytes){
+        this.network = network;
+        this.pathFinder = pathFinder;
+        this.maxBytes = maxBytes;
+        this.topologyVersion = network.getTopologyVersion();
+    }
+
+    /**
+     * Gets the shortest path between two stations, from the cache if it has
+     * already been found for the current network topology.
+     *
+     * @param start the starting station
+     * @param end   the ending station
+     * @return an unmodifiable List of stations to travel along to get from start to
+     *         end, or null if there is no path between the stations
+     */
+    public List<Station> getPath(Station start, Station end){
+
+        // paths found for an older version of the network may no longer be the shortest
+        if(topologyVersion != network.getTopologyVersion()){
+            clear();
+            topologyVersion = network.getTopologyVersion();
+        }
+
+        Long key = ((long) start.getId() << 32) | (end.getId() & 0xFFFFFFFFL);
+        List<Station> path = paths.get(key);
+        if(path != null){
+            hits++;
+        }else{
+            misses++;
+            ArrayList<Station> foundPath = pathFinder.getPath(start, end);
+            if(foundPath == null){
+                path = NO_PATH;
+            }else{
+                path = Collections.unmodifiableList(foundPath);
+            }
+            paths.put(key, path);
+            usedBytes += estimateBytes(path);
+            evictToFit();
+        }
+
+        if(path == NO_PATH){
+            return null;
+        }
+        return path;
+    }
+
+    /**
+     * Removes the least recently used paths until the estimated memory used by this
+     * cache is under the memory cap
+     */
+    private void evictToFit(){
+        Iterator<Map.Entry<Long, List<Station>>> it = paths.entrySet().iterator();
+        while((usedBytes > maxBytes) && it.hasNext()){
+            usedBytes -= estimateBytes(it.next().getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory used by one cached path
+     * @param path the cached path
+     * @return the approximate number of bytes used to cache the path
+     */
+    private static long estimateBytes(List<Station> path){
+        return ENTRY_BYTES + (long) STATION_BYTES * path.size();
+    }
+
+    /**
+     * Removes all paths from this cache. Passengers already holding a path keep it.
+     */
+    public void clear(){
+        paths.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Gets the number of paths currently in this cache
+     * @return the number of paths currently in this cache
+     */
+    public int size(){
+        return paths.size();
+    }
+
+    /**
+     * Gets the estimated amount of memory used by this cache
+     * @return the approximate number of bytes used by the cached paths
+     */
+    public long getUsedBytes(){
+        return usedBytes;
+    }
+
+    /**
+     * Gets the number of times a requested path was already in this cache
+     * @return the number of cache hits
+     */
+    public long getHits(){
+        return hits;
+    }
+
+    /**
+     * Gets the number of times a requested path had to be found by the PathFinder
+     * @return the number of cache misses
+     */
+    public long getMisses(){
+        return misses;
+    }
+
+    /**
+     * Gets the number of paths removed from this cache to stay under the memory cap
+     * @return the number of evicted paths
+     */
+    public long getEvictions(){
+        return evictions;
+    }
+
+    /**
+     * Gets the fraction of path requests that were answered from this cache
+     * @return the hit rate from 0 to 1, or 0 if no paths have been requested
+     */
+    public double getHitRate(){
+        if(hits + misses == 0){
+            return 0;
+        }
+        return (double) hits / (hits + misses);
+    }
+
+    /**
+     * Gets a summary of this cache's statistics
+     * @return a String with the hit and miss counts, hit rate, and memory use of this cache
+     */
+    public String toString(){
+        return String.format("RouteCache[hits=%d, misses=%d, hitRate=%.3f, evictions=%d, entries=%d, bytes=%d]",
+                hits, misses, getHitRate(), evictions, paths.size(), usedBytes);
+    }
+}
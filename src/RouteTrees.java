@@ -0,0 +1,566 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * RouteTrees.java
+ * Shortest path trees towards the destinations passengers are travelling to,
+ * kept up to date as lines are added and extended instead of being thrown away.
+ * Each tree holds, for every station, the distance to the tree's destination and
+ * the next station towards it. A tree is made with one full Dijkstra search the
+ * first time a path to its destination is asked for, and answers every later
+ * path to that destination by following next stations.
+ *
+ * Connections between stations are only ever added, so distances only ever get
+ * shorter. When connections are added, each tree is repaired by a Dijkstra
+ * search that starts from the ends of the new connections that got closer to the
+ * destination and only spreads to stations that get closer too, so the work done
+ * depends on how much the new line changes rather than on the size of the
+ * network. The stations that got closer to each destination are marked, so the
+ * passengers whose routes got shorter can be found and given new routes.
+ *
+ * Trees take about 16 bytes per station each. Once a new tree would go over the
+ * memory cap, paths to destinations without a tree are found with a plain
+ * Dijkstra search between the two stations instead, which can't be repaired, so
+ * passengers with those paths only get new routes if they had no path at all.
+ * The destinations without trees that some passenger found no path to are
+ * remembered, and the groups of stations joined by connections are kept, so
+ * after a repair only the passengers heading to those destinations that can now
+ * reach them need to look for a path again.
+ *
+ * When many paths are needed at once, the trees for all of their destinations are
+ * made together in one parallel batch. Destinations that don't fit under the cap
+ * but that several of the paths head to get temporary trees for the batch, which
+ * are dropped once the paths have been found.
+ * @author Suyu
+ * @version 1.0
+ */
+public class RouteTrees implements PathFinder {
+
+    // Rough memory estimate used for the memory cap, in bytes
+    private static final int STATION_BYTES = 16; // a distance, a next station, and a repair mark
+
+    // references to network stuff
+    private ArrayList<Station> stations; // ArrayList of all stations, index in list is the station id
+    private Dijkstra dijkstra;
+
+    // Trees by destination id, null if there is no tree towards the destination
+    private double[][] distances = new double[0][];
+    private int[][] nextHops = new int[0][];
+    private int[][] improvedRepairs = new int[0][]; // repair in which each station last got closer to the destination
+    private IntList treeDestinations = new IntList(); // destinations with trees, in no particular order
+    private long maxBytes;
+    private long usedBytes = 0;
+    private long pathsWithoutTrees = 0; // paths found without a kept tree because a tree would not fit
+    private IntList pathlessDestinations = new IntList(); // destinations without trees some passenger found no path to
+    private int[] pathlessStamps = new int[0]; // pathlessRound if a destination is in pathlessDestinations
+    private int pathlessRound = 1;
+
+    // Groups of connected stations, as a disjoint set forest by station id
+    private int[] componentParents = new int[0];
+
+    // Batches
+    private IntList batchRoots = new IntList(); // destinations of the trees made by the current batch
+    private double[][] batchDistances = new double[0][];
+    private int[][] batchNextHops = new int[0][];
+    private long maxTemporaryBytes;
+    private IntList temporaryDestinations = new IntList(); // destinations with temporary trees, by slot
+    private double[][] temporaryDistances = new double[0][]; // by slot, kept between batches to be reused
+    private int[][] temporaryNextHops = new int[0][];
+    private int[] temporarySlots = new int[0]; // slot+1 of each destination's temporary tree, or 0
+
+    // Repairs
+    private IntList newConnectionsA = new IntList(); // ends of connections added since the last repair
+    private IntList newConnectionsB = new IntList();
+    private int repair = 0;
+    private int[] stationImprovedRepairs = new int[0]; // repair in which each station last got closer to any destination
+    private IntList improvedStations = new IntList(); // stations that got closer to any destination in the last repair
+    private IndexedMinHeap unsettledStations = new IndexedMinHeap(16);
+
+    /**
+     * Creates a new RouteTrees object with no trees
+     * @param stations an ArrayList of all stations in the network
+     * @param dijkstra the Dijkstra object used to make new trees, and find paths
+     *                 when a new tree would not fit
+     * @param maxBytes the approximate maximum amount of memory the trees may use
+     * @param maxTemporaryBytes the approximate maximum amount of memory the
+     *                          temporary trees of one batch may use
+     */
+    public RouteTrees(ArrayList<Station> stations, Dijkstra dijkstra, long maxBytes, long maxTemporaryBytes){
+        this.stations = stations;
+        this.dijkstra = dijkstra;
+        this.maxBytes = maxBytes;
+        this.maxTemporaryBytes = maxTemporaryBytes;
+        for(Station station:stations){ // connections made before these trees
+            for(int i=0; i<station.getNumConnections(); i++){
+                joinComponents(station.getId(), station.getConnectionId(i));
+            }
+        }
+    }
+
+    /**
+     * Gets the shortest path between two stations, making the tree towards the
+     * ending station if there isn't one yet and it fits under the memory cap
+     *
+     * @param start the starting station
+     * @param end   the ending station
+     * @return an ArrayList of stations to travel along to get from start to end,
+     *         or null if there is no path between the stations
+     */
+    public ArrayList<Station> getPath(Station start, Station end){
+        int destination = end.getId();
+        if(!hasTree(destination)){
+            ArrayList<Station> path;
+            if((destination < temporarySlots.length) && (temporarySlots[destination] != 0)){
+                int slot = temporarySlots[destination] - 1;
+                path = followTree(temporaryDistances[slot], temporaryNextHops[slot], start, end);
+            }else if(!hasRoomForTree()){
+                path = dijkstra.dijkstraPath(start, end);
+            }else{
+                makeTree(destination);
+                return followTree(distances[destination], nextHops[destination], start, end);
+            }
+            pathsWithoutTrees++;
+            if(path == null){
+                addPathlessDestination(destination);
+            }
+            return path;
+        }
+        return followTree(distances[destination], nextHops[destination], start, end);
+    }
+
+    /**
+     * Gets the path from a station to the destination of a tree by following the
+     * next stations of the tree
+     * @param treeDistances the distances of the tree
+     * @param treeNextHops  the next stations of the tree
+     * @param start         the starting station
+     * @param end           the destination of the tree
+     * @return an ArrayList of stations to travel along to get from start to end,
+     *         or null if there is no path between the stations
+     */
+    private ArrayList<Station> followTree(double[] treeDistances, int[] treeNextHops, Station start, Station end){
+        int destination = end.getId();
+        int startId = start.getId();
+        if((startId >= treeDistances.length) || (treeDistances[startId] == Double.POSITIVE_INFINITY)){
+            return null;
+        }
+
+        // count the stations first so the list is allocated once at the right size
+        int length = 1;
+        for(int id = startId; id != destination; id = treeNextHops[id]){
+            length++;
+        }
+        ArrayList<Station> path = new ArrayList<Station>(length);
+        for(int id = startId; id != destination; id = treeNextHops[id]){
+            path.add(stations.get(id));
+        }
+        path.add(end);
+        return path;
+    }
+
+    /**
+     * Returns whether or not one more tree fits under the memory cap
+     * @return true if a new tree would not go over the memory cap, false otherwise
+     */
+    private boolean hasRoomForTree(){
+        return usedBytes + (long) STATION_BYTES * stations.size() <= maxBytes;
+    }
+
+    /**
+     * Makes the tree towards a destination with a full Dijkstra search
+     * @param destination the id of the destination station
+     */
+    private void makeTree(int destination){
+        addTree(destination);
+        dijkstra.shortestPathTree(destination, distances[destination], nextHops[destination]);
+    }
+
+    /**
+     * Makes room for a new tree towards a destination, without searching for its
+     * paths yet
+     * @param destination the id of the destination station
+     */
+    private void addTree(int destination){
+        int n = stations.size();
+        if(destination >= distances.length){
+            int capacity = Math.max(destination + 1, distances.length * 2);
+            distances = Arrays.copyOf(distances, capacity);
+            nextHops = Arrays.copyOf(nextHops, capacity);
+            improvedRepairs = Arrays.copyOf(improvedRepairs, capacity);
+        }
+        distances[destination] = new double[n];
+        nextHops[destination] = new int[n];
+        improvedRepairs[destination] = new int[n];
+        treeDestinations.add(destination);
+        usedBytes += (long) STATION_BYTES * n;
+    }
+
+    /**
+     * Makes the trees needed to find many paths at once, in one parallel batch.
+     * Destinations without a tree get one that is kept if it fits under the memory
+     * cap. Otherwise, if more than one of the paths heads there, they get a
+     * temporary tree while there is room for it, until dropTemporaryTrees is
+     * called. Paths to any other destinations are found with plain searches.
+     * @param destinations the ids of the destinations of the paths, each only once
+     * @param requests     the number of paths heading to each destination, by
+     *                     index in destinations
+     */
+    public void makeTrees(IntList destinations, IntList requests){
+        dropTemporaryTrees();
+        int n = stations.size();
+        if(temporarySlots.length < n){
+            temporarySlots = Arrays.copyOf(temporarySlots, Math.max(n, temporarySlots.length * 2));
+        }
+        batchRoots.clear();
+        for(int i=0; i<destinations.size(); i++){
+            int destination = destinations.get(i);
+            if(hasTree(destination)){
+                continue;
+            }
+            if(hasRoomForTree()){
+                addTree(destination);
+                addBatchRoot(destination, distances[destination], nextHops[destination]);
+            }else if((requests.get(i) > 1) && (temporaryDestinations.size() < getMaxTemporaryTrees())){
+                int slot = temporaryDestinations.size();
+                if(slot == temporaryDistances.length){
+                    temporaryDistances = Arrays.copyOf(temporaryDistances, Math.max(4, slot * 2));
+                    temporaryNextHops = Arrays.copyOf(temporaryNextHops, Math.max(4, slot * 2));
+                }
+                if((temporaryDistances[slot] == null) || (temporaryDistances[slot].length < n)){
+                    temporaryDistances[slot] = new double[n];
+                    temporaryNextHops[slot] = new int[n];
+                }
+                temporaryDestinations.add(destination);
+                temporarySlots[destination] = slot + 1;
+                addBatchRoot(destination, temporaryDistances[slot], temporaryNextHops[slot]);
+            }
+        }
+        dijkstra.shortestPathTrees(batchRoots, batchDistances, batchNextHops);
+        for(int i=0; i<batchRoots.size(); i++){ // don't hold on to arrays that trees may replace as they grow
+            batchDistances[i] = null;
+            batchNextHops[i] = null;
+        }
+    }
+
+    /**
+     * Adds a tree to the current batch
+     * @param destination   the id of the destination of the tree
+     * @param treeDistances the array to fill with the distances of the tree
+     * @param treeNextHops  the array to fill with the next stations of the tree
+     */
+    private void addBatchRoot(int destination, double[] treeDistances, int[] treeNextHops){
+        int index = batchRoots.size();
+        if(index == batchDistances.length){
+            batchDistances = Arrays.copyOf(batchDistances, Math.max(4, index * 2));
+            batchNextHops = Arrays.copyOf(batchNextHops, Math.max(4, index * 2));
+        }
+        batchRoots.add(destination);
+        batchDistances[index] = treeDistances;
+        batchNextHops[index] = treeNextHops;
+    }
+
+    /**
+     * Drops the temporary trees of the last batch. Their arrays are kept to be
+     * reused by the next batch.
+     */
+    public void dropTemporaryTrees(){
+        for(int i=0; i<temporaryDestinations.size(); i++){
+            temporarySlots[temporaryDestinations.get(i)] = 0;
+        }
+        temporaryDestinations.clear();
+    }
+
+    /**
+     * Gets the most temporary trees one batch can make without going over their
+     * memory cap
+     * @return the number of temporary trees that fit, at least 1
+     */
+    public int getMaxTemporaryTrees(){
+        return (int) Math.max(1, maxTemporaryBytes / ((long) STATION_BYTES * Math.max(1, stations.size())));
+    }
+
+    /**
+     * Returns whether or not there is a tree towards a destination
+     * @param destination the id of the destination station
+     * @return true if there is a tree towards the destination, false otherwise
+     */
+    public boolean hasTree(int destination){
+        return (destination < distances.length) && (distances[destination] != null);
+    }
+
+    /**
+     * Records a connection added between two stations, to be taken into account by
+     * the next repair. The connection must already be in both stations' adjacency lists.
+     * @param a one of the stations
+     * @param b the other station
+     */
+    public void addConnection(Station a, Station b){
+        newConnectionsA.add(a.getId());
+        newConnectionsB.add(b.getId());
+        joinComponents(a.getId(), b.getId());
+    }
+
+    /**
+     * Returns whether there is any path between two stations
+     * @param a the id of one of the stations
+     * @param b the id of the other station
+     * @return true if the stations are joined by connections, false otherwise
+     */
+    public boolean isConnected(int a, int b){
+        return findComponent(a) == findComponent(b);
+    }
+
+    /**
+     * Finds the station standing for the group of stations joined by connections
+     * that a station is in, shortening the way there for later
+     * @param id the id of the station
+     * @return the id of the station standing for the group
+     */
+    private int findComponent(int id){
+        growComponents();
+        int root = id;
+        while(componentParents[root] != root){
+            root = componentParents[root];
+        }
+        while(componentParents[id] != root){
+            int parent = componentParents[id];
+            componentParents[id] = root;
+            id = parent;
+        }
+        return root;
+    }
+
+    /**
+     * Joins the groups of connected stations two stations are in
+     * @param a the id of one of the stations
+     * @param b the id of the other station
+     */
+    private void joinComponents(int a, int b){
+        int rootA = findComponent(a);
+        int rootB = findComponent(b);
+        if(rootA != rootB){
+            componentParents[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Adds the stations added since the groups of connected stations last grew,
+     * each in a group of its own
+     */
+    private void growComponents(){
+        int oldLength = componentParents.length;
+        int n = stations.size();
+        if(oldLength < n){
+            int capacity = Math.max(n, oldLength * 2);
+            componentParents = Arrays.copyOf(componentParents, capacity);
+            for(int i=oldLength; i<capacity; i++){
+                componentParents[i] = i;
+            }
+        }
+    }
+
+    /**
+     * Remembers that a passenger found no path to a destination without a tree
+     * @param destination the id of the destination station
+     */
+    public void addPathlessDestination(int destination){
+        if(destination >= pathlessStamps.length){
+            pathlessStamps = Arrays.copyOf(pathlessStamps, Math.max(destination + 1, pathlessStamps.length * 2));
+        }
+        if(pathlessStamps[destination] != pathlessRound){
+            pathlessStamps[destination] = pathlessRound;
+            pathlessDestinations.add(destination);
+        }
+    }
+
+    /**
+     * Returns whether some passenger found no path to a destination without a tree
+     * since the pathless destinations were last cleared
+     * @param destination the id of the destination station
+     * @return true if the destination is a pathless destination, false otherwise
+     */
+    public boolean isPathlessDestination(int destination){
+        return (destination < pathlessStamps.length) && (pathlessStamps[destination] == pathlessRound);
+    }
+
+    /**
+     * Gets the number of destinations without trees that some passenger found no
+     * path to since they were last cleared
+     * @return the number of pathless destinations
+     */
+    public int getNumPathlessDestinations(){
+        return pathlessDestinations.size();
+    }
+
+    /**
+     * Forgets every pathless destination, once the passengers heading to them have
+     * looked for paths again
+     */
+    public void clearPathlessDestinations(){
+        pathlessDestinations.clear();
+        pathlessRound++;
+        if(pathlessRound == Integer.MAX_VALUE){ // stamps would wrap around, so start over
+            Arrays.fill(pathlessStamps, 0);
+            pathlessRound = 1;
+        }
+    }
+
+    /**
+     * Brings every tree up to date with the connections added since the last
+     * repair, marking the stations that got closer to each destination
+     * @return the ids of the stations that got closer to any destination, which
+     *         stay valid until the next repair
+     */
+    public IntList repair(){
+        dropTemporaryTrees(); // they would no longer be shortest
+        repair++;
+        improvedStations.clear();
+        if(stationImprovedRepairs.length < stations.size()){
+            stationImprovedRepairs = Arrays.copyOf(stationImprovedRepairs,
+                    Math.max(stations.size(), stationImprovedRepairs.length * 2));
+        }
+        if(!newConnectionsA.isEmpty()){
+            for(int i=0; i<treeDestinations.size(); i++){
+                repairTree(treeDestinations.get(i));
+            }
+        }
+        newConnectionsA.clear();
+        newConnectionsB.clear();
+        return improvedStations;
+    }
+
+    /**
+     * Brings the tree towards one destination up to date with the connections
+     * added since the last repair. Each new connection that gives one of its ends a
+     * shorter distance to the destination starts a Dijkstra search, which only
+     * continues to stations whose distance gets shorter through the stations it
+     * settles. Distances that stay the same are left alone, so routes don't change
+     * between paths of equal length.
+     * @param destination the id of the destination station
+     */
+    private void repairTree(int destination){
+        growTree(destination);
+        double[] treeDistances = distances[destination];
+        int[] treeNextHops = nextHops[destination];
+        int[] treeImprovedRepairs = improvedRepairs[destination];
+
+        // relax the new connections in both directions
+        for(int i=0; i<newConnectionsA.size(); i++){
+            int a = newConnectionsA.get(i);
+            int b = newConnectionsB.get(i);
+            double distance = stations.get(a).getConnections().get(stations.get(b));
+            relax(treeDistances, treeNextHops, a, b, distance);
+            relax(treeDistances, treeNextHops, b, a, distance);
+        }
+
+        // spread the shorter distances out from the stations that got closer
+        while(!unsettledStations.isEmpty()){
+            int closest = unsettledStations.poll();
+            treeImprovedRepairs[closest] = repair;
+            if(stationImprovedRepairs[closest] != repair){
+                stationImprovedRepairs[closest] = repair;
+                improvedStations.add(closest);
+            }
+            Station closestStation = stations.get(closest);
+            for(int i=0; i<closestStation.getNumConnections(); i++){
+                relax(treeDistances, treeNextHops, closest, closestStation.getConnectionId(i),
+                        closestStation.getConnectionDistance(i));
+            }
+        }
+    }
+
+    /**
+     * Gives a station a shorter distance to the destination of a tree through a
+     * connected station, if the path through the connected station is shorter
+     * @param treeDistances the distances of the tree
+     * @param treeNextHops  the next stations of the tree
+     * @param via           the id of the connected station
+     * @param id            the id of the station
+     * @param distance      the length of the connection between the stations
+     */
+    private void relax(double[] treeDistances, int[] treeNextHops, int via, int id, double distance){
+        double distanceVia = treeDistances[via] + distance;
+        if(distanceVia < treeDistances[id]){
+            treeDistances[id] = distanceVia;
+            treeNextHops[id] = via;
+            unsettledStations.addOrDecrease(id, distanceVia);
+        }
+    }
+
+    /**
+     * Makes room in a tree for stations added since it was made. New stations
+     * start out unable to reach the destination. Trees grow by a quarter at a
+     * time, so growing all of them at every line edit doesn't copy every tree,
+     * without going too far over the memory cap.
+     * @param destination the id of the destination station
+     */
+    private void growTree(int destination){
+        int oldLength = distances[destination].length;
+        int n = stations.size();
+        if(oldLength < n){
+            int capacity = Math.max(n, oldLength + oldLength/4);
+            distances[destination] = Arrays.copyOf(distances[destination], capacity);
+            Arrays.fill(distances[destination], oldLength, capacity, Double.POSITIVE_INFINITY);
+            nextHops[destination] = Arrays.copyOf(nextHops[destination], capacity);
+            Arrays.fill(nextHops[destination], oldLength, capacity, -1);
+            improvedRepairs[destination] = Arrays.copyOf(improvedRepairs[destination], capacity);
+            usedBytes += (long) STATION_BYTES * (capacity - oldLength);
+        }
+    }
+
+    /**
+     * Returns whether or not a station got closer to any destination in the last repair
+     * @param station the station
+     * @return true if the station has a shorter path to some destination than it
+     *         did before the last repair, false otherwise
+     */
+    public boolean isImproved(Station station){
+        int id = station.getId();
+        return (id < stationImprovedRepairs.length) && (stationImprovedRepairs[id] == repair);
+    }
+
+    /**
+     * Returns whether or not a station got closer to a destination in the last
+     * repair, which means a passenger there heading to the destination has a
+     * shorter route than before
+     * @param destination the id of the destination station
+     * @param station     the station
+     * @return true if the station has a shorter path to the destination than it
+     *         did before the last repair, false otherwise
+     */
+    public boolean isImproved(int destination, Station station){
+        if(!hasTree(destination)){
+            return false;
+        }
+        int[] treeImprovedRepairs = improvedRepairs[destination];
+        int id = station.getId();
+        return (id < treeImprovedRepairs.length) && (treeImprovedRepairs[id] == repair);
+    }
+
+    /**
+     * Gets the number of trees
+     * @return the number of destinations with a tree
+     */
+    public int size(){
+        return treeDestinations.size();
+    }
+
+    /**
+     * Gets the number of paths found with a plain search or a temporary tree
+     * because a new tree would have gone over the memory cap
+     * @return the number of paths found without a kept tree
+     */
+    public long getPathsWithoutTrees(){
+        return pathsWithoutTrees;
+    }
+
+    /**
+     * Gets a summary of these trees
+     * @return a String with the number of trees, paths found without a tree,
+     *         pathless destinations, and memory use
+     */
+    public String toString(){
+        return String.format("RouteTrees[trees=%d, pathsWithoutTrees=%d, pathlessDestinations=%d, bytes=%d]",
+                treeDestinations.size(), pathsWithoutTrees, pathlessDestinations.size(), usedBytes);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * RouteWeights.java
+ * The immutable result of the capacity-aware assignment: the paths passengers
+ * are spread over. The assignment makes a connection cost more the more
+ * passengers are expected to travel along it compared to the seats on the
+ * trains running along it, so its paths go around crowded connections when there
+ * is a similar path that isn't crowded.
+ *
+ * The assignment loads every passenger onto their cheapest path several times,
+ * under costs that change as the flows settle, and its flows are the average of
+ * those loadings. The tree each loading put passengers on is kept for the
+ * destinations with the most passengers, so passengers can be spread over paths
+ * the same way: each follows the tree of one loading picked at random. Loadings
+ * that made the same tree for a destination share it.
+ *
+ * Trees are only meaningful for the topology version they were solved for.
+ * @author Suyu
+ * @version 1.0
+ */
+public final class RouteWeights {
+
+    // variables
+    private final int topologyVersion;
+    private final int[][][] trees; // next station towards each destination from each station, by loading and destination id
+    private final double maxLoad; // highest expected passengers per unit of capacity over all connections
+
+    /**
+     * Creates a new RouteWeights. The arrays are kept, not copied, and must not be
+     * changed afterwards.
+     * @param topologyVersion the topology version the trees were solved for
+     * @param trees           the id of the next station towards each destination from
+     *                        each station, or -1 if there is none, by loading and
+     *                        destination id, with null for destinations without trees
+     * @param maxLoad         the highest expected passengers per unit of capacity over all connections
+     */
+    RouteWeights(int topologyVersion, int[][][] trees, double maxLoad){
+        this.topologyVersion = topologyVersion;
+        this.trees = trees;
+        this.maxLoad = maxLoad;
+    }
+
+    /**
+     * Returns whether trees were kept for a destination
+     * @param destinationId the id of the destination station
+     * @return true if every loading has a tree towards the destination
+     */
+    public boolean hasTrees(int destinationId){
+        return (destinationId < trees[0].length) && (trees[0][destinationId] != null);
+    }
+
+    /**
+     * Gets the tree of one loading towards a destination
+     * @param loading       the index of the loading, from 0 to getNumLoadings()-1
+     * @param destinationId the id of the destination station, which must have trees
+     * @return the id of the next station towards the destination from each station,
+     *         by station id, or -1 for the destination and stations that can't reach
+     *         it. Must not be changed.
+     */
+    public int[] getTree(int loading, int destinationId){
+        return trees[loading][destinationId];
+    }
+
+    /**
+     * Gets the approximate memory used by the trees, counting shared trees once
+     * @return the number of bytes used by the trees
+     */
+    public long getTreeBytes(){
+        long bytes = 0;
+        for(int destination=0; destination<trees[0].length; destination++){
+            for(int loading=0; loading<trees.length; loading++){
+                int[] tree = trees[loading][destination];
+                if((tree != null) && ((loading == 0) || (tree != trees[loading - 1][destination]))){
+                    bytes += 4L * tree.length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the number of loadings the assignment's flows are the average of
+     * @return the number of loadings, which is the number of iterations the
+     *         assignment was solved with
+     */
+    public int getNumLoadings(){
+        return trees.length;
+    }
+
+    /**
+     * Gets the topology version these trees were solved for
+     * @return the topology version
+     */
+    public int getTopologyVersion(){
+        return topologyVersion;
+    }
+
+    /**
+     * Gets the most crowded connection's expected load
+     * @return the highest expected number of passengers over all connections, as a
+     *         fraction of the connection's capacity
+     */
+    public double getMaxLoad(){
+        return maxLoad;
+    }
+}
@@ -86,6 +86,24 @@ public class ScreenGrid {
         return gridTopLeftY + gridSize * y;
     }
 
+    /**
+     * Converts an x coordinate from screen coordinates to grid coordinates
+     * @param x the x coordinate on the screen
+     * @return the corresponding x coordinate on the grid, which may be between grid points
+     */
+    public double screenXToGrid(int x) {
+        return (double) (x - gridTopLeftX) / gridSize;
+    }
+
+    /**
+     * Converts a y coordinate from screen coordinates to grid coordinates
+     * @param y the y coordinate on the screen
+     * @return the corresponding y coordinate on the grid, which may be between grid points
+     */
+    public double screenYToGrid(int y) {
+        return (double) (y - gridTopLeftY) / gridSize;
+    }
+
     /**
      * Converts an xy coordinate pair from grid coordinates to screen coordinates
      * @param xy the coordinate on the grid in the form of a length 2 int array
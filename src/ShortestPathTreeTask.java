@@ -0,0 +1,54 @@
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ShortestPathTreeTask.java
+ * One share of a batch of shortest path trees, run on a ForkJoinPool. The roots
+ * of a batch are dealt out to the tasks in turn, so every task gets a similar
+ * amount of work, and each task searches with its own Dijkstra object since a
+ * Dijkstra object can only run one search at a time.
+ * @author Suyu
+ * @version 1.0
+ */
+public class ShortestPathTreeTask extends RecursiveAction {
+
+    // Constants
+    private static final long serialVersionUID = 1L;
+
+    // The task's share of the batch
+    private Dijkstra dijkstra;
+    private IntList rootIds;
+    private int first; // index of the first root in this task's share
+    private int stride; // number of tasks the roots are dealt out to
+
+    // Trees by index in rootIds
+    private double[][] distances;
+    private int[][] nextHops;
+
+    /**
+     * Creates a new ShortestPathTreeTask for every stride-th root of a batch
+     * @param dijkstra  the Dijkstra object only this task searches with
+     * @param rootIds   the ids of the root stations of the whole batch
+     * @param first     the index in rootIds of the first root this task makes a tree for
+     * @param stride    the number of tasks the batch is split into
+     * @param distances the arrays to fill with the distances of each tree, by index in rootIds
+     * @param nextHops  the arrays to fill with the next stations of each tree, by index in rootIds
+     */
+    public ShortestPathTreeTask(Dijkstra dijkstra, IntList rootIds, int first, int stride, double[][] distances,
+            int[][] nextHops){
+        this.dijkstra = dijkstra;
+        this.rootIds = rootIds;
+        this.first = first;
+        this.stride = stride;
+        this.distances = distances;
+        this.nextHops = nextHops;
+    }
+
+    /**
+     * Makes the trees of this task's share of the batch
+     */
+    protected void compute(){
+        for(int i=first; i<rootIds.size(); i+=stride){
+            dijkstra.shortestPathTree(rootIds.get(i), distances[i], nextHops[i]);
+        }
+    }
+}
@@ -13,12 +13,17 @@ class StartButtonListener implements ActionListener {
   // the JFrame associated with this StartButtonListener
   JFrame parentFrame;
 
+  // how many screens wide and tall the map of the game is
+  int mapScale;
+
   /**
    * Creates a new StartButtonListener with an associated JFrame
-   * @param parent the JFrame associated with this StartButtonListener
+   * @param parent   the JFrame associated with this StartButtonListener
+   * @param mapScale how many screens wide and tall the map of the game started is
    */
-  StartButtonListener(JFrame parent) {
+  StartButtonListener(JFrame parent, int mapScale) {
     parentFrame = parent;
+    this.mapScale = mapScale;
   }
 
   /**
@@ -30,6 +35,6 @@ class StartButtonListener implements ActionListener {
   public void actionPerformed(ActionEvent event) {
     System.out.println("Starting new Game");
     parentFrame.dispose();
-    new GameFrame(); // create a new frame after removing the current one
+    new GameFrame(mapScale); // create a new frame after removing the current one
   }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import java.awt.BorderLayout;
+import java.awt.GridLayout;
 import java.awt.Toolkit;
 
 /**
@@ -14,6 +15,9 @@ import java.awt.Toolkit;
 class StartingFrame extends JFrame { 
 
   JFrame thisFrame;
+
+  // how many screens wide and tall the map is in a large city
+  private static final int LARGE_CITY_MAP_SCALE = 16;
   
   /**
    * Creates a new StartingFrame and initializes stuff
@@ -32,15 +36,21 @@ class StartingFrame extends JFrame {
     JPanel mainPanel = new JPanel();
     mainPanel.setLayout(new BorderLayout());
 
-    // Create a JButton for the centerPanel
+    // Create JButtons for the normal game and a large city to pan and zoom around
     JButton startButton = new JButton("START");
-    startButton.addActionListener(new StartButtonListener(this));
+    startButton.addActionListener(new StartButtonListener(this, 1));
+    JButton largeCityButton = new JButton("LARGE CITY");
+    largeCityButton.addActionListener(new StartButtonListener(this, LARGE_CITY_MAP_SCALE));
+    JPanel buttonPanel = new JPanel();
+    buttonPanel.setLayout(new GridLayout(2, 1));
+    buttonPanel.add(startButton);
+    buttonPanel.add(largeCityButton);
     
     // Create a JLabel for the screen
     JLabel startLabel = new JLabel("<HTML><H1>Metro Lines</H1></HTML>",JLabel.CENTER);
     
     //Add all panels to the mainPanel according to border layout
-    mainPanel.add(startButton,BorderLayout.SOUTH);
+    mainPanel.add(buttonPanel,BorderLayout.SOUTH);
     mainPanel.add(startLabel,BorderLayout.CENTER);
     
     //add the main panel to the frame
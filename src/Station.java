@@ -1,8 +1,4 @@
-import java.awt.Graphics;
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.ListIterator;
-import java.util.Random;
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -11,29 +7,32 @@ import java.util.HashMap;
  * @author Suyu
  * @version 1.0
  */
-class Station implements DrawableGameObject{
+class Station{
 
     // Static variables - define size of stations on screen
     private static int stationCircleInnerWidth = 0;
     private static int stationCircleOuterWidth = 0;
-    private static int numberDisplayFontSize;
     private static Network network;
 
-    // Random
-    private Random random = new Random();
-
     // variables
+    private int id = -1; // dense index of this station in the network, used for path finding
     private int x, y;
-    private ArrayList<Passenger> passengers = new ArrayList<Passenger>();
-    private DisplayedNumber paxNumberDisplay;
+    private IntBuckets passengers = new IntBuckets(); // ids of passengers waiting at this station, by id of their next station
+    private IntList regrouping = new IntList(); // reused while moving passengers between buckets
 
     // Connections - for path finding
     private HashMap<Station, Double> connectedStations = new HashMap<Station, Double>();
+    private int[] connectionIds = new int[4]; // same connections stored as primitive arrays for fast iteration
+    private double[] connectionDistances = new double[4];
+    private int numConnections = 0;
+    private int[] nextHops = new int[0]; // routing table - id of the next station towards each destination id, -1 if unreachable
 
     // Overcrowding
     static final int OVERCROWDING_WARNING = 15;
     static final int OVERCROWDING_LIMIT = 20;
-    static final Color WARNING_COLOR = new Color(200,0,0);
+
+    // Key of the group of waiting passengers that have no route to their destination yet
+    private static final int NO_NEXT_STATION = -1;
 
     /**
      * Creates a new station at the location specified by two integer coordinates
@@ -49,8 +48,6 @@ class Station implements DrawableGameObject{
         }
         this.x = gridX;
         this.y = gridY;
-        this.paxNumberDisplay = new DisplayedNumber(0, numberDisplayFontSize, Color.BLACK,
-                grid.gridXToScreen(x) + grid.getGridSize() * 3 / 4, grid.gridYToScreen(y));
     }
 
     /**
@@ -83,7 +80,6 @@ class Station implements DrawableGameObject{
     public static void initializeClass(ScreenGrid grid, Network network){
         stationCircleInnerWidth = (int) Math.round(grid.getGridSize()*0.5);
         stationCircleOuterWidth = (int) Math.round(grid.getGridSize()*0.8);
-        numberDisplayFontSize = (int) Math.round(grid.getGridSize()*0.6);
         Station.network = network;
     }
 
@@ -99,6 +95,23 @@ class Station implements DrawableGameObject{
         }
     }
 
+    /**
+     * Sets the id of this station. Station ids are dense indices starting from 0,
+     * matching this station's position in the network's list of stations.
+     * @param id the id of this station
+     */
+    public void setId(int id){
+        this.id = id;
+    }
+
+    /**
+     * Gets the id of this station
+     * @return the id of this station, or -1 if it has not been added to a network
+     */
+    public int getId(){
+        return id;
+    }
+
     /**
      * Gets the x coordinate of this station
      * @return the x coordinate of this station on the game grid
@@ -131,14 +144,42 @@ class Station implements DrawableGameObject{
         return stationCircleOuterWidth;
     }
 
+    /**
+     * Gets the diameter of the white inner circle of all stations
+     * @return the diameter of the inner circle of a station, in units of pixels on the screen
+     */
+    public static int getInnerWidth(){
+        return stationCircleInnerWidth;
+    }
+
+    /**
+     * Gets the number of passengers waiting at this station
+     * @return the number of passengers waiting at this station
+     */
+    public int getNumPassengers(){
+        return passengers.size();
+    }
+
     /**
      * Adds a connection in this station's adjacency list of connected stations.
      * Also automatically calculates the distance to that station.
      * 
      * @param station the station to connect to this station
+     * @return true if the stations were not already connected, false otherwise
      */
-    public void addConnection(Station station){
-        connectedStations.put(station, getMetroMapDistance(station));
+    public boolean addConnection(Station station){
+        double distance = getMetroMapDistance(station);
+        if(connectedStations.put(station, distance) == null){
+            if(numConnections == connectionIds.length){
+                connectionIds = Arrays.copyOf(connectionIds, numConnections * 2);
+                connectionDistances = Arrays.copyOf(connectionDistances, numConnections * 2);
+            }
+            connectionIds[numConnections] = station.getId();
+            connectionDistances[numConnections] = distance;
+            numConnections++;
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -153,73 +194,196 @@ class Station implements DrawableGameObject{
     }
 
     /**
-     * Attempts to find paths for all passengers at this station that could not
-     * previously find a path to their destination
+     * Gets the number of stations connected to this one
+     * @return the number of stations connected to this one
+     */
+    public int getNumConnections(){
+        return numConnections;
+    }
+
+    /**
+     * Gets the id of a connected station. Used with getConnectionDistance() to
+     * iterate over connections without creating any objects.
+     * @param i the index of the connection, from 0 to getNumConnections()-1
+     * @return the id of the connected station
+     */
+    public int getConnectionId(int i){
+        return connectionIds[i];
+    }
+
+    /**
+     * Gets the distance to a connected station in grid units
+     * @param i the index of the connection, from 0 to getNumConnections()-1
+     * @return the distance to the connected station in grid units
+     */
+    public double getConnectionDistance(int i){
+        return connectionDistances[i];
+    }
+
+    /**
+     * Clears this station's routing table and resizes it to hold an entry for
+     * every station in the network. All destinations are marked unreachable.
+     * @param numStations the number of stations in the network
+     */
+    public void resetNextHops(int numStations){
+        if(nextHops.length != numStations){
+            nextHops = new int[numStations];
+        }
+        Arrays.fill(nextHops, -1);
+    }
+
+    /**
+     * Sets the entry in this station's routing table for a destination
+     * @param destinationId the id of the destination station
+     * @param nextHopId     the id of the next station to travel to from this station
+     *                      to get to the destination
+     */
+    public void setNextHop(int destinationId, int nextHopId){
+        nextHops[destinationId] = nextHopId;
+    }
+
+    /**
+     * Looks up the next station to travel to from this station to get to a
+     * destination in this station's routing table
+     * @param destination the destination station
+     * @return the next station on the shortest path to the destination, or null if
+     *         the destination is this station or cannot be reached from this station,
+     *         so callers must check for the destination themselves
+     */
+    public Station getNextHop(Station destination){
+        int destinationId = destination.getId();
+        if((destinationId >= nextHops.length) || (nextHops[destinationId] == -1)){
+            return null;
+        }
+        return network.getStations().get(nextHops[destinationId]);
+    }
+
+    /**
+     * Adds all passengers waiting at this station to a list, leaving them waiting
+     * @param out the list to add the ids of the passengers to
+     */
+    public void addWaitingPassengersTo(IntList out){
+        passengers.copyTo(out);
+    }
+
+    /**
+     * Adds the passengers at this station that could not previously find a path to
+     * their destination to a list, so paths can be found for them all in one batch
+     * @param out the list to add the ids of the passengers to
      */
-    public void findPathsForPassengersWithNoPath(){
-        for(Passenger passenger:passengers){
-            if(!passenger.hasPath()){
-                passenger.findPath();
+    public void addPassengersWithNoPath(IntList out){
+        PassengerStore passengerStore = network.getPassengerStore();
+        for(int i=0; i<passengers.size(NO_NEXT_STATION); i++){
+            int passenger = passengers.get(NO_NEXT_STATION, i);
+            if(!passengerStore.hasPath(passenger)){
+                out.add(passenger);
             }
         }
     }
 
     /**
-     * Adds a passenger to this station. Intended for use when train drops off a
-     * passenger at this station to transfer to another line.
-     * 
-     * @param passenger the Passenger that is transferring.
+     * Groups the passengers at this station that had no next station again by their
+     * next station, once paths may have been found for them
      */
-    private void addTransferringPassenger(Passenger passenger){
-        passengers.add(passenger);
+    public void regroupPassengersWithNoNextStation(){
+        regrouping.clear();
+        passengers.drainTo(NO_NEXT_STATION, regrouping);
+        for(int i=0; i<regrouping.size(); i++){
+            addWaitingPassenger(regrouping.get(i));
+        }
     }
 
     /**
-     * Checks passengers at this station and on a train that has stopped at this
-     * station and determines whether any passengers should board or alight the
-     * train at this station, then moves or removes passengers from the train and/or
-     * this station accordingly. Also increments the player's score if a passenger
-     * is delivered to their destination.
-     * 
+     * Gives new routes to the passengers waiting at this station whose routes got
+     * shorter in the last repair of the network's route trees, and groups all
+     * passengers waiting here again by their next station
+     */
+    public void reroutePassengers(){
+        PassengerStore passengerStore = network.getPassengerStore();
+        RouteTrees routeTrees = network.getRouteTrees();
+        regrouping.clear();
+        passengers.drainTo(regrouping);
+        for(int i=0; i<regrouping.size(); i++){
+            int passenger = regrouping.get(i);
+            if(routeTrees.isImproved(passengerStore.getDestination(passenger), this)){
+                passengerStore.reroute(passenger, this);
+            }
+            addWaitingPassenger(passenger);
+        }
+    }
+
+    /**
+     * Groups all passengers waiting at this station again by their next station.
+     * Needed whenever the routes of passengers waiting here may have changed, such
+     * as when routing tables are rebuilt.
+     */
+    public void regroupPassengers(){
+        regrouping.clear();
+        passengers.drainTo(regrouping);
+        for(int i=0; i<regrouping.size(); i++){
+            addWaitingPassenger(regrouping.get(i));
+        }
+    }
+
+    /**
+     * Adds a passenger to the group of passengers waiting at this station for the
+     * next station on their journey. Used both for new passengers and for
+     * passengers that a train drops off here to transfer to another line.
+     *
+     * @param passenger the id of the passenger
+     */
+    private void addWaitingPassenger(int passenger){
+        Station next = network.getPassengerStore().getNextOnPath(passenger, this);
+        if(next == null){
+            passengers.add(NO_NEXT_STATION, passenger);
+        }else{
+            passengers.add(next.getId(), passenger);
+        }
+    }
+
+    /**
+     * Lets passengers on a train that has stopped at this station get off if this
+     * is where they planned to get off, and lets passengers waiting at this station
+     * board the train if it is going to their next station. Passengers that get off
+     * here are delivered if this is their destination, and the player's score is
+     * incremented, otherwise they wait to transfer to another line.
+     *
+     * Passengers are grouped by where they're going on both the train and the
+     * station, so only the passengers that get off here and the passengers waiting
+     * for the train's next station are looked at.
+     *
      * @param train the train that has stopped at this station.
      */
     public void boardAndAlight(Train train){
 
         // variables
-        ListIterator<Passenger> paxListIt = train.getPassengers().listIterator(train.getPassengers().size());
-        Passenger passenger;
+        PassengerStore passengerStore = network.getPassengerStore();
+        IntBuckets onTrain = train.getPassengers();
+        int passenger;
 
-        // for each passenger on the train
-        while(paxListIt.hasPrevious()){
-            passenger = paxListIt.previous();
+        // for each passenger getting off the train here
+        for(int i=onTrain.size(id)-1; i>=0; i--){
+            passenger = onTrain.get(id, i);
 
             // if this station is the passenger's destination
-            if(passenger.getNextOnPath() == null){
-                paxListIt.remove(); // remove from train
+            if(passengerStore.getDestination(passenger) == id){
+                passengerStore.release(passenger);
                 network.incrementScore(); // increment player's score
 
-            // if the passenger wants to transfer
-            }else if(passenger.getNextOnPath() != train.getNextStation()){
-                paxListIt.remove(); // remove from train
-                this.addTransferringPassenger(passenger); // add to station
+            // if the passenger wants to transfer, or can't get any further for now and
+            // waits with no next station until a new line reaches their destination
+            }else{
+                this.addWaitingPassenger(passenger); // add to station
             }
         }
+        onTrain.clear(id); // remove from train
 
-        paxListIt = passengers.listIterator(passengers.size());
-        // for each passenger waiting at this station and while train is not full
-        while(paxListIt.hasPrevious() && !train.full()){
-            passenger = paxListIt.previous();
-
-            // board the train if the station it is heading to is the same as the passenger's intended next station
-            if(passenger.getNextOnPath() == train.getNextStation()){
-                paxListIt.remove(); // remove from station
-                train.boardPassenger(passenger); // add to train
-            }
+        // board passengers heading to the train's next station while the train is not full
+        Station trainNext = train.getNextStation();
+        while((passengers.size(trainNext.getId()) > 0) && !train.full()){
+            passenger = passengers.removeLast(trainNext.getId()); // remove from station
+            train.boardPassenger(passenger, train.findAlightingStation(passenger, passengerStore)); // add to train
         }
-
-        // update the number of passengers displayed on both the train and station
-        train.updatePaxDisplay(); 
-        this.updatePaxDisplay();
     }
 
     /**
@@ -239,19 +403,30 @@ class Station implements DrawableGameObject{
     /**
      * Generates passengers randomly based on the current passenger generation rate,
      * which is the percent chance of a passenger appearing at any station in each
-     * second. Also updates the display of the number of passengers at the station
+     * second. New passengers don't have paths yet and aren't waiting here until
+     * they are added with addNewPassenger, so the paths of all passengers
+     * generated in a tick can be found in one batch.
      * 
      * @param passengerGenerationRate the change of a passenger generating at a
      *                                station in each second
+     * @param out                     the list to add the ids of new passengers to
      */
-    public void generatePassengers(int passengerGenerationRate) {
-        if(random.nextInt(100*GameAreaPanel.FPS)<passengerGenerationRate){
-            passengers.add(new Passenger(this));
-            updatePaxDisplay();
+    public void generatePassengers(int passengerGenerationRate, IntList out) {
+        if(network.getRandom().nextInt(100*Network.TICKS_PER_SECOND)<passengerGenerationRate){
+            out.add(network.getPassengerStore().spawn(this, network.getTick()));
         }
 
     }
 
+    /**
+     * Adds a passenger generated at this station to the passengers waiting here,
+     * once their path has been found
+     * @param passenger the id of the passenger
+     */
+    public void addNewPassenger(int passenger){
+        addWaitingPassenger(passenger);
+    }
+
     /**
      * Gets whether or not this station is approaching the overcrowding limit
      * @return true if this station is approaching the overcrowding limit, false otherwise
@@ -275,38 +450,4 @@ class Station implements DrawableGameObject{
             return false;
         }       
     }
-
-    /**
-     * Updates the display of the number of passengers waiting at this station, and
-     * changes the color of the number to red when the station starts getting
-     * crowded
-     */
-    public void updatePaxDisplay(){
-        paxNumberDisplay.changeNumber(passengers.size()); 
-        if(this.approachingOvercrowding()){
-            paxNumberDisplay.changeColor(WARNING_COLOR);
-        }else{
-            paxNumberDisplay.changeColor(Color.BLACK);
-        }
-    }
-
-    /**
-     * Draws this station and the number of passengers in the station on the screen
-     * @param g Graphics object to draw with
-     * @param grid ScreenGrid object of the game grid
-     */
-    public void draw(Graphics g, ScreenGrid grid) {
-        
-        // draw the station icon
-        g.setColor(Color.BLACK);
-        g.fillOval(grid.gridXToScreen(x) - stationCircleOuterWidth / 2,
-                grid.gridYToScreen(y) - stationCircleOuterWidth/2, stationCircleOuterWidth, stationCircleOuterWidth);
-        g.setColor(Color.WHITE);
-        g.fillOval(grid.gridXToScreen(x) - stationCircleInnerWidth / 2,
-                grid.gridYToScreen(y) - stationCircleInnerWidth / 2, stationCircleInnerWidth, stationCircleInnerWidth);
-
-        // draw the display of the number of passengers
-        paxNumberDisplay.draw(g);
-        
-    }
 }
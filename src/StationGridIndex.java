@@ -0,0 +1,224 @@
+import java.util.Arrays;
+
+/**
+ * StationGridIndex.java
+ * A uniform grid over the game grid that stations are put into as they are
+ * created, so finding the stations near a point on the screen only looks at the
+ * few cells around the point instead of at every station. Used to find the
+ * station under the mouse when editing lines, and to find the stations in view
+ * when drawing. Answers queries for all stations within a radius or rectangle
+ * and for the nearest station.
+ *
+ * Stations are kept as ids and grid coordinates rather than Station objects, so
+ * the drawing thread can keep an index of its own built from snapshots. The
+ * stations in each cell are chained together by their ids, so adding a station
+ * makes no garbage once the arrays have grown.
+ * @author Suyu
+ * @version 1.0
+ */
+public class StationGridIndex {
+
+    // Constants
+    private static final int CELL_SIZE = 4; // grid spaces along each side of a cell
+
+    // information from the game
+    private ScreenGrid grid;
+
+    // Stations by id
+    private int[] xs = new int[16]; // coordinates on the game grid
+    private int[] ys = new int[16];
+
+    // Cells
+    private int cols, rows;
+    private int[] cellFirst; // id of the first station in each cell, -1 if the cell is empty
+    private int[] nextInCell = new int[16]; // id of the next station in the same cell, by station id, -1 at the end
+
+    /**
+     * Creates a new empty StationGridIndex covering a game grid
+     * @param grid ScreenGrid object representing the game grid
+     */
+    public StationGridIndex(ScreenGrid grid){
+        this.grid = grid;
+        this.cols = grid.getW() / CELL_SIZE + 1;
+        this.rows = grid.getH() / CELL_SIZE + 1;
+        this.cellFirst = new int[cols * rows];
+        Arrays.fill(cellFirst, -1);
+    }
+
+    /**
+     * Adds a station to this index
+     * @param id    the id of the station
+     * @param gridX the x coordinate of the station on the game grid
+     * @param gridY the y coordinate of the station on the game grid
+     */
+    public void add(int id, int gridX, int gridY){
+        if(id >= nextInCell.length){
+            int capacity = Math.max(id + 1, nextInCell.length * 2);
+            nextInCell = Arrays.copyOf(nextInCell, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        xs[id] = gridX;
+        ys[id] = gridY;
+        int cell = clampRow(cellOf(gridY)) * cols + clampCol(cellOf(gridX));
+        nextInCell[id] = cellFirst[cell];
+        cellFirst[cell] = id;
+    }
+
+    /**
+     * Finds the station at a point on the screen
+     * @param screenX the x coordinate of the point on the screen
+     * @param screenY the y coordinate of the point on the screen
+     * @param radius  how close the center of the station has to be to the point, in pixels
+     * @return the id of the station closest to the point that is less than the
+     *         radius away from it, or -1 if there is none
+     */
+    public int stationAt(int screenX, int screenY, double radius){
+        int closest = -1;
+        double closestDistance = radius;
+        int minCol = clampCol(cellOf(grid.screenXToGrid(screenX) - radius / grid.getGridSize()));
+        int maxCol = clampCol(cellOf(grid.screenXToGrid(screenX) + radius / grid.getGridSize()));
+        int minRow = clampRow(cellOf(grid.screenYToGrid(screenY) - radius / grid.getGridSize()));
+        int maxRow = clampRow(cellOf(grid.screenYToGrid(screenY) + radius / grid.getGridSize()));
+        for(int row = minRow; row <= maxRow; row++){
+            for(int col = minCol; col <= maxCol; col++){
+                for(int id = cellFirst[row * cols + col]; id != -1; id = nextInCell[id]){
+                    double distance = distanceTo(id, screenX, screenY);
+                    if(distance < closestDistance){
+                        closest = id;
+                        closestDistance = distance;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Finds all stations within a radius of a point on the screen
+     * @param screenX the x coordinate of the point on the screen
+     * @param screenY the y coordinate of the point on the screen
+     * @param radius  the radius around the point, in pixels
+     * @param out     the list to add the ids of the stations to, in no particular order
+     */
+    public void withinRadius(int screenX, int screenY, double radius, IntList out){
+        int minCol = clampCol(cellOf(grid.screenXToGrid(screenX) - radius / grid.getGridSize()));
+        int maxCol = clampCol(cellOf(grid.screenXToGrid(screenX) + radius / grid.getGridSize()));
+        int minRow = clampRow(cellOf(grid.screenYToGrid(screenY) - radius / grid.getGridSize()));
+        int maxRow = clampRow(cellOf(grid.screenYToGrid(screenY) + radius / grid.getGridSize()));
+        for(int row = minRow; row <= maxRow; row++){
+            for(int col = minCol; col <= maxCol; col++){
+                for(int id = cellFirst[row * cols + col]; id != -1; id = nextInCell[id]){
+                    if(distanceTo(id, screenX, screenY) <= radius){
+                        out.add(id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the station nearest to a point on the screen. Cells are searched in
+     * rings of growing size around the point's cell, stopping once no station in a
+     * further ring could be closer than the closest one found.
+     * @param screenX the x coordinate of the point on the screen
+     * @param screenY the y coordinate of the point on the screen
+     * @return the id of the nearest station, or -1 if there are no stations
+     */
+    public int nearest(int screenX, int screenY){
+        int centerCol = clampCol(cellOf(grid.screenXToGrid(screenX)));
+        int centerRow = clampRow(cellOf(grid.screenYToGrid(screenY)));
+        double cellPixels = CELL_SIZE * grid.getGridSize();
+        int closest = -1;
+        double closestDistance = Double.MAX_VALUE;
+        for(int ring = 0; ring <= Math.max(cols, rows); ring++){
+            // every station in this ring or further is at least this far from the point
+            if(closestDistance <= (ring - 1) * cellPixels){
+                break;
+            }
+            for(int row = centerRow - ring; row <= centerRow + ring; row++){
+                if((row < 0) || (row >= rows)){
+                    continue;
+                }
+                // the top and bottom rows of the ring are whole, the rest only have their ends
+                int colStep = ((row == centerRow - ring) || (row == centerRow + ring)) ? 1 : Math.max(ring * 2, 1);
+                for(int col = centerCol - ring; col <= centerCol + ring; col += colStep){
+                    if((col < 0) || (col >= cols)){
+                        continue;
+                    }
+                    for(int id = cellFirst[row * cols + col]; id != -1; id = nextInCell[id]){
+                        double distance = distanceTo(id, screenX, screenY);
+                        if(distance < closestDistance){
+                            closest = id;
+                            closestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Finds all stations in a rectangle of the game grid
+     * @param minGridX the x coordinate of the left edge of the rectangle on the game grid
+     * @param minGridY the y coordinate of the top edge of the rectangle on the game grid
+     * @param maxGridX the x coordinate of the right edge of the rectangle on the game grid
+     * @param maxGridY the y coordinate of the bottom edge of the rectangle on the game grid
+     * @param out      the list to add the ids of the stations to, in no particular order
+     */
+    public void withinRect(double minGridX, double minGridY, double maxGridX, double maxGridY, IntList out){
+        int minCol = clampCol(cellOf(minGridX));
+        int maxCol = clampCol(cellOf(maxGridX));
+        int minRow = clampRow(cellOf(minGridY));
+        int maxRow = clampRow(cellOf(maxGridY));
+        for(int row = minRow; row <= maxRow; row++){
+            for(int col = minCol; col <= maxCol; col++){
+                for(int id = cellFirst[row * cols + col]; id != -1; id = nextInCell[id]){
+                    if((xs[id] >= minGridX) && (xs[id] <= maxGridX) && (ys[id] >= minGridY) && (ys[id] <= maxGridY)){
+                        out.add(id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the distance from a station to a point on the screen
+     * @param id      the id of the station
+     * @param screenX the x coordinate of the point on the screen
+     * @param screenY the y coordinate of the point on the screen
+     * @return the distance between the center of the station and the point, in pixels
+     */
+    private double distanceTo(int id, int screenX, int screenY){
+        return Math.hypot(grid.gridXToScreen(xs[id]) - screenX, grid.gridYToScreen(ys[id]) - screenY);
+    }
+
+    /**
+     * Gets the column or row of the cell a grid coordinate is in, which may be
+     * outside the index
+     * @param gridCoordinate the x or y coordinate on the game grid
+     * @return the column or row of the cell
+     */
+    private static int cellOf(double gridCoordinate){
+        return (int) Math.floor(gridCoordinate / CELL_SIZE);
+    }
+
+    /**
+     * Moves a column into the index
+     * @param col the column of a cell
+     * @return the nearest column in the index
+     */
+    private int clampCol(int col){
+        return Math.max(0, Math.min(col, cols - 1));
+    }
+
+    /**
+     * Moves a row into the index
+     * @param row the row of a cell
+     * @return the nearest row in the index
+     */
+    private int clampRow(int row){
+        return Math.max(0, Math.min(row, rows - 1));
+    }
+}
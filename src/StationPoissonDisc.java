@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -7,6 +8,12 @@ import java.util.Random;
  * a simplified implementation of Bridson's algorithm. Ensures that stations
  * generate in a random-looking pattern but also propogate outwards from the
  * starting point and are spread out evenly
+ *
+ * As in Bridson's algorithm, stations are also kept in a background grid of
+ * cells as wide as the minimum spacing, so checking whether a point is too close
+ * to a station only has to look at the stations in the 3x3 cells around it. The
+ * minimum spacing bounds how many stations fit in a cell, so each check takes
+ * the same time however many stations there are.
  * 
  * @author Suyu
  * @version 1.0
@@ -14,19 +21,27 @@ import java.util.Random;
 public class StationPoissonDisc {
 
     // Random
-    private Random random = new Random();
+    private Random random;
 
     // information from the game
     private ScreenGrid grid;
     private ArrayList<Station> stations; // reference to list in Network
 
     // variables 
-    private ArrayList<int[]> activeSamples = new ArrayList<int[]>(); // used for generation of new stations
+    private IntList activeSampleXs = new IntList(); // active samples used for generation of new stations
+    private IntList activeSampleYs = new IntList();
     private double minStationSpacing;
     private double maxStationSpacing;
     private final int MAX_SAMPLE_ATTEMPTS = 5; // the maximum number of times the algorithm will look for points around 
                                                // any existing station before excluding the station    
 
+    // Background grid - stations in each cell are chained together by their index in the list of stations
+    private double cellSize;
+    private int gridCols, gridRows;
+    private int[] cellFirst; // index of the first station in each cell, -1 if the cell is empty
+    private int[] nextInCell = new int[16]; // index of the next station in the same cell, by station index, -1 at the end
+    private int numIndexed = 0; // stations are only ever added, so stations from this index on aren't in the grid yet
+
     /**
      * Creates a new StationPoissonDisc object with an initial minimum and maximum
      * station spacing and information from the game
@@ -35,15 +50,19 @@ public class StationPoissonDisc {
      * @param maxSpacing the maximum spacing allowed between stations
      * @param stations the ArrayList of Station objects in the network
      * @param grid ScreenGrid object representing the game grid
+     * @param random the Random object used to pick station locations
      */
-    public StationPoissonDisc(double minSpacing, double maxSpacing, ArrayList<Station> stations, ScreenGrid grid){
+    public StationPoissonDisc(double minSpacing, double maxSpacing, ArrayList<Station> stations, ScreenGrid grid,
+            Random random){
+        this.random = random;
         this.minStationSpacing = minSpacing;
         this.maxStationSpacing = maxSpacing;
         this.stations = stations;
         this.grid = grid;
         for(Station station:stations){ // all initial stations are considered part of the active samples
-            this.activeSamples.add(new int[]{station.getX(),station.getY()});
+            addActiveSample(station);
         }
+        rebuildBackgroundGrid();
     }
 
     /**
@@ -51,17 +70,100 @@ public class StationPoissonDisc {
      * @param station the station to be added
      */
     public void addActiveSample(Station station){
-        this.activeSamples.add(new int[]{station.getX(),station.getY()});
+        this.activeSampleXs.add(station.getX());
+        this.activeSampleYs.add(station.getY());
     }
 
     /**
-     * Changes the minimum and maximum station spacing.
+     * Changes the minimum and maximum station spacing. The background grid is
+     * rebuilt if the minimum spacing changed, since cells are as wide as it.
      * @param minSpacing the new minimum station spacing
      * @param maxSpacing the new maximum station spacing.
      */
     public void updateStationSpacing(double minSpacing, double maxSpacing){
+        boolean minSpacingChanged = (minSpacing != this.minStationSpacing);
         this.minStationSpacing = minSpacing;
         this.maxStationSpacing = maxSpacing;
+        if(minSpacingChanged){
+            rebuildBackgroundGrid();
+        }
+    }
+
+    /**
+     * Makes a new empty background grid with cells as wide as the minimum station
+     * spacing, then adds all stations to it
+     */
+    private void rebuildBackgroundGrid(){
+        cellSize = Math.max(minStationSpacing, 1);
+        gridCols = (int) (grid.getW() / cellSize) + 1;
+        gridRows = (int) (grid.getH() / cellSize) + 1;
+        if((cellFirst == null) || (cellFirst.length < gridCols * gridRows)){
+            cellFirst = new int[gridCols * gridRows];
+        }
+        Arrays.fill(cellFirst, -1);
+        numIndexed = 0;
+        indexNewStations();
+    }
+
+    /**
+     * Adds stations that were added to the network since the background grid was
+     * last updated to the grid
+     */
+    private void indexNewStations(){
+        if(nextInCell.length < stations.size()){
+            nextInCell = Arrays.copyOf(nextInCell, Math.max(stations.size(), nextInCell.length * 2));
+        }
+        while(numIndexed < stations.size()){
+            Station station = stations.get(numIndexed);
+            int cell = cellIndex(cellOf(station.getX()), cellOf(station.getY()));
+            nextInCell[numIndexed] = cellFirst[cell];
+            cellFirst[cell] = numIndexed;
+            numIndexed++;
+        }
+    }
+
+    /**
+     * Gets the column or row of the background grid cell a coordinate is in
+     * @param coordinate the x or y coordinate on the game grid
+     * @return the column or row of the cell
+     */
+    private int cellOf(int coordinate){
+        return (int) (coordinate / cellSize);
+    }
+
+    /**
+     * Gets the index of a background grid cell in the cell array
+     * @param col the column of the cell
+     * @param row the row of the cell
+     * @return the index of the cell
+     */
+    private int cellIndex(int col, int row){
+        return row * gridCols + col;
+    }
+
+    /**
+     * Checks if a point is closer than the minimum spacing to any station. Only the
+     * stations in the cells next to the point's cell can be that close, so no
+     * other stations are checked, and checking stops at the first station that is
+     * too close.
+     * @param x the x coordinate of the point on the game grid
+     * @param y the y coordinate of the point on the game grid
+     * @return true if there is a station too close to the point, false otherwise
+     */
+    private boolean tooCloseToStation(int x, int y){
+        indexNewStations();
+        int col = cellOf(x);
+        int row = cellOf(y);
+        for(int r = Math.max(row-1, 0); r <= Math.min(row+1, gridRows-1); r++){
+            for(int c = Math.max(col-1, 0); c <= Math.min(col+1, gridCols-1); c++){
+                for(int i = cellFirst[cellIndex(c, r)]; i != -1; i = nextInCell[i]){
+                    if(Math.hypot(stations.get(i).getX() - x, stations.get(i).getY() - y) < minStationSpacing){
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -86,10 +188,10 @@ public class StationPoissonDisc {
         double angle;
 
         // keep repeating until a valid location is found or until all stations are excluded
-        while ((result[0] == -1) && (activeSamples.size() > 0)) {
+        while ((result[0] == -1) && (activeSampleXs.size() > 0)) {
 
             // select a random station from the list of active samples (stations that have not been excluded)
-            selectedSampleIndex = random.nextInt(activeSamples.size());
+            selectedSampleIndex = random.nextInt(activeSampleXs.size());
 
             // randomly sample points around the station chosen that are between the minimum
             // and maximum distances away from the station until either a valid location is found or until the
@@ -100,23 +202,16 @@ public class StationPoissonDisc {
                 // randomly sampling points that are in the appropriate region around the chosen station
                 distanceFromSelected = Math.sqrt(random.nextDouble()) * (maxStationSpacing - minStationSpacing) + minStationSpacing;
                 angle = random.nextDouble() * 2 * Math.PI;
-                result[0] = (int) Math.round(activeSamples.get(selectedSampleIndex)[0] + Math.cos(angle) * distanceFromSelected);
-                result[1] = (int) Math.round(activeSamples.get(selectedSampleIndex)[1] + Math.sin(angle) * distanceFromSelected);
+                result[0] = (int) Math.round(activeSampleXs.get(selectedSampleIndex) + Math.cos(angle) * distanceFromSelected);
+                result[1] = (int) Math.round(activeSampleYs.get(selectedSampleIndex) + Math.sin(angle) * distanceFromSelected);
                
                 // checking if the new point is in the grid 
                 if((result[0]<0)||(result[1]<0)||(result[0]>grid.getW())||(result[1]>grid.getH())){
                     result[0] = -1;
                     result[1] = -1;
-                }else{
-
-                    // checking if the new point is too close to any other stations
-                    for (int i = 0; i < stations.size(); i++) {
-                        if (Math.hypot(stations.get(i).getX() - result[0],
-                                stations.get(i).getY() - result[1]) < minStationSpacing) {
-                            result[0] = -1;
-                            result[1] = -1;
-                        }
-                    }
+                }else if(tooCloseToStation(result[0], result[1])){ // checking if the new point is too close to any other stations
+                    result[0] = -1;
+                    result[1] = -1;
                 }
                 // increment number of attempts
                 sampleAttempts++;
@@ -125,16 +220,19 @@ public class StationPoissonDisc {
 
             // if the maximum number of attempts for sampling points around this station was
             // reached, remove it from the list of active samples to prevent it from being
-            // used again
+            // used again. The order of active samples doesn't matter, so the last one is
+            // moved into its place instead of shifting all later ones down
             if(sampleAttempts>MAX_SAMPLE_ATTEMPTS){
-                activeSamples.remove(selectedSampleIndex); 
+                activeSampleXs.swapRemove(selectedSampleIndex);
+                activeSampleYs.swapRemove(selectedSampleIndex);
             }
 
         } // end of looping through random stations
         
         // add the newly generated point to the list of points to be sampled in the future
-        if(activeSamples.size() > 0){
-            activeSamples.add(result);
+        if(activeSampleXs.size() > 0){
+            activeSampleXs.add(result[0]);
+            activeSampleYs.add(result[1]);
         }        
 
         return result;
@@ -1,8 +1,3 @@
-import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.Color;
-import java.awt.BasicStroke;
-import java.awt.geom.Path2D;
 import java.util.LinkedList;
 
 /**
@@ -11,36 +6,34 @@ import java.util.LinkedList;
  * @author Suyu
  * @version 1.0
  */
-public class TempMetroLine implements DrawableGameObject{
+public class TempMetroLine{
 
     // Static variables
-    private static BasicStroke lineStroke;
     private static ScreenGrid grid; // reference to game grid
 
     // variables
-    private Color lineColor;
+    private int colorIndex;
     private MetroLine extendingLine = null;
     private LinkedList<Station> stations = new LinkedList<Station>();
-    private LinkedList<int[]> points = new LinkedList<int[]>();
-    private Path2D.Float path = new Path2D.Float();
+    private PointBuffer points = new PointBuffer();
+    private IntList stationPoints = new IntList(); // index in points of each station's point, in the order of the stations
     private int[] lastIntermediatePoint = null;
-    private int[] mousePoint = new int[2];
-    private int[] mouseIntermediatePoint = new int[2];    
-    private Path2D.Float pathToMouse = new Path2D.Float();
+    private int[] mousePoint = null; // null until the mouse has been dragged
+    private int[] mouseIntermediatePoint = null;
 
     /**
      * Creates a new TempMetroLine that is not extending and existing line, starting
      * at a specific station and with a specific color
-     * @param color   the color of this TempMetroLine
-     * @param station the station that this TempMetroLine starts at
+     * @param colorIndex the index of the color of this TempMetroLine in the line color palette
+     * @param station    the station that this TempMetroLine starts at
      * @throws ClassNotInitializedException if initializeClass() has not yet been
      *                                      called yet
      */
-    public TempMetroLine(Color color, Station station) throws ClassNotInitializedException{
+    public TempMetroLine(int colorIndex, Station station) throws ClassNotInitializedException{
         if(!isInitialized()){
             throw new ClassNotInitializedException();
         }
-        lineColor = color;
+        this.colorIndex = colorIndex;
         addRemoveStation(station);
     }
 
@@ -52,7 +45,7 @@ public class TempMetroLine implements DrawableGameObject{
      *                                      called yet
      */
     public TempMetroLine(Station station, MetroLine extendingLine) throws ClassNotInitializedException{
-        this(extendingLine.getColor(),station);
+        this(extendingLine.getColorIndex(),station);
         this.extendingLine = extendingLine;
     }
 
@@ -62,8 +55,6 @@ public class TempMetroLine implements DrawableGameObject{
      * @param grid the ScreenGrid object representing the game grid
      */
     public static void initializeClass(ScreenGrid grid){
-        lineStroke = new BasicStroke((int) Math.round(grid.getGridSize() * 0.2), BasicStroke.CAP_BUTT,
-                BasicStroke.JOIN_ROUND);
         TempMetroLine.grid = grid;
     }
 
@@ -72,7 +63,7 @@ public class TempMetroLine implements DrawableGameObject{
      * @return true if this class has been initialized with a valid game grid, false otherwise
      */
     public static boolean isInitialized(){
-        if(lineStroke == null){
+        if(grid == null){
             return false;
         }else{
             return true;
@@ -120,35 +111,54 @@ public class TempMetroLine implements DrawableGameObject{
     }
 
     /**
-     * Gets the Path2D.Float object used to draw this TempMetroLine
-     * @return the Path2D.Float object used to draw this TempMetroLine
+     * Gets all points on this TempMetroLine, in order
+     * @return a PointBuffer of all points on this TempMetroLine, in order
      */
-    public Path2D.Float getPath(){
-        return path;
+    public PointBuffer getPoints(){
+        return points;
     }
 
     /**
-     * Gets a LinkedList of all points on this TempMetroLine, in order
-     * @return a LinkedList of all points on this , in order
+     * Gets the index of a station's point among the points of this TempMetroLine
+     * @param stationIndex the index of the station in the list of stations
+     * @return the index of the point at the station
      */
-    public LinkedList<int[]> getPoints(){
-        return points;
+    public int getStationPoint(int stationIndex){
+        return stationPoints.get(stationIndex);
     }
 
     /**
      * Gets the color of this TempMetroLine
-     * @return A Color object; the color of this TempMetroLine
+     * @return the index of this TempMetroLine's color in the line color palette
+     */
+    public int getColorIndex(){
+        return colorIndex;
+    }
+
+    /**
+     * Gets an immutable copy of the points of this TempMetroLine for drawing,
+     * including the part following the mouse cursor
+     * @return the LineGeometry of this TempMetroLine
+     */
+    public LineGeometry getGeometry(){
+        return new LineGeometry(colorIndex, points, mouseIntermediatePoint, mousePoint);
+    }
+
+    /**
+     * Gets the point of the mouse cursor this TempMetroLine extends to
+     * @return the location of the mouse on the screen as a length 2 int array, or
+     *         null if the mouse has not been dragged yet
      */
-    public Color getColor(){
-        return lineColor;
+    public int[] getMousePoint(){
+        return mousePoint;
     }
 
     /**
-     * Gets the BasicStroke object used to draw this TempMetroLine
-     * @return A BasicStroke object; the stroke of this TempMetroLine
+     * Gets the intermediate point between the end of this TempMetroLine and the mouse cursor
+     * @return the intermediate point as a length 2 int array, or null if none is needed
      */
-    public static BasicStroke getStroke(){
-        return lineStroke;
+    public int[] getMouseIntermediatePoint(){
+        return mouseIntermediatePoint;
     }
 
     /**
@@ -170,17 +180,13 @@ public class TempMetroLine implements DrawableGameObject{
         // remove station if there is more than 1 station and if the station is already on this TempMetroLine
         if((stations.size()>1)&&(station == stations.getLast())){
             stations.removeLast();
+            stationPoints.removeAt(stationPoints.size() - 1);
 
             // remove point at removed station and point leading to removed station, if there is one
-            while (!((grid.gridXToScreen(stations.getLast().getX()) == points.getLast()[0])
-                    && (grid.gridYToScreen(stations.getLast().getY()) == points.getLast()[1]))) {
+            while(points.size() > stationPoints.get(stationPoints.size() - 1) + 1){
                 points.removeLast();
             }
 
-            // redo the path to reflect change, using the points stored in the ArrayList
-            path.reset();
-            path = Path2DTools.makePathWithPoints(points);
-
         // don't do anything if this tempLine is extending an existing line and the user
         // attempts to connect the tempLine to a station already on the line being extended
         }else if((this.isExtendingLine())&&(extendingLine.getStations().contains(station))){
@@ -189,27 +195,30 @@ public class TempMetroLine implements DrawableGameObject{
         }else if(!stations.contains(station)){
             stations.add(station);
 
-            // if this is the first station, start the path and add a point to the points arraylist
+            // if this is the first station, add a point to the points list
             if(stations.size()==1){
-                path.moveTo(grid.gridXToScreen(station.getX()), grid.gridYToScreen(station.getY()));
-                points.add(grid.gridXYToScreen(station.getXY()));
+                points.addLast(grid.gridXToScreen(station.getX()), grid.gridYToScreen(station.getY()));
             
             // if not the first station, check if any intermediate points are needed to get
             // from the previous station to this one. Intermediate points are needed when
             // this station and the previous one don't fall on the same horizontal,
             // vertical, or 45 deg line.
             }else{
-                lastIntermediatePoint = findIntermediatePoint((int) path.getCurrentPoint().getX(),
-                        (int) path.getCurrentPoint().getY(), grid.gridXToScreen(station.getX()), grid.gridYToScreen(station.getY()));
+                lastIntermediatePoint = findIntermediatePoint(points.getLastX(), points.getLastY(),
+                        grid.gridXToScreen(station.getX()), grid.gridYToScreen(station.getY()));
                 
-                // add the points to the path and list of points
+                // add the points to the list of points
                 if(lastIntermediatePoint!=null){
-                    path.lineTo(lastIntermediatePoint[0], lastIntermediatePoint[1]);
-                    points.add(lastIntermediatePoint);
+                    points.addLast(lastIntermediatePoint[0], lastIntermediatePoint[1]);
                 }
-                path.lineTo(grid.gridXToScreen(station.getX()), grid.gridYToScreen(station.getY()));
-                points.add(grid.gridXYToScreen(station.getXY()));
+                points.addLast(grid.gridXToScreen(station.getX()), grid.gridYToScreen(station.getY()));
             }
+            stationPoints.add(points.size() - 1);
+        }
+
+        // keep the part of the line following the mouse connected to the new last station
+        if(mousePoint != null){
+            updateMousePoint(mousePoint[0], mousePoint[1]);
         }
     }
 
@@ -262,34 +271,11 @@ public class TempMetroLine implements DrawableGameObject{
      * @param mouseY the y coordinate of the mouse on the screen
      */
     public void updateMousePoint(int mouseX, int mouseY){
-        mousePoint[0] = mouseX;
-        mousePoint[1] = mouseY;
+        mousePoint = new int[]{mouseX, mouseY};
 
         // find the intermediate point needed to connect the last station on the
         // tempLine to the mouse with nice angled lines
-        mouseIntermediatePoint = findIntermediatePoint((int) path.getCurrentPoint().getX(),
-                (int) path.getCurrentPoint().getY(), mouseX, mouseY);
-
-        // recreate the path to the mouse with the new points
-        pathToMouse.reset();
-        pathToMouse.moveTo(path.getCurrentPoint().getX(), path.getCurrentPoint().getY());
-        if(mouseIntermediatePoint!=null){
-            pathToMouse.lineTo(mouseIntermediatePoint[0], mouseIntermediatePoint[1]);
-        }
-        pathToMouse.lineTo(mouseX, mouseY);
-    }
-
-    /**
-     * Draws this TempMetroLine on the screen
-     * @param g Graphics object to draw with
-     * @param grid ScreenGrid object of the game grid
-     */
-    public void draw(Graphics graphics, ScreenGrid grid) {
-        Graphics2D g = (Graphics2D) graphics;
-        g.setStroke(lineStroke);
-        g.setColor(lineColor);
-        g.draw(path);
-        g.draw(pathToMouse);
+        mouseIntermediatePoint = findIntermediatePoint(points.getLastX(), points.getLastY(), mouseX, mouseY);
     }
 
 }
@@ -0,0 +1,45 @@
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+
+/**
+ * TimeScaleKeyListener.java 
+ * Changes how fast the game runs when the number keys are pressed: 1 for real
+ * time, 2, 3, and 4 for 4, 16, and 64 times faster, and 5 for as fast as possible
+ * @author Suyu
+ * @version 1.0
+ */
+class TimeScaleKeyListener implements KeyListener {
+
+    // GameLoop to change the speed of
+    private GameLoop gameLoop;
+
+    /**
+     * Creates a new TimeScaleKeyListener with an associated GameLoop.
+     * @param gameLoop the GameLoop running the game
+     */
+    TimeScaleKeyListener(GameLoop gameLoop) {
+        this.gameLoop = gameLoop;
+    }
+
+    /**
+     * Detects key presses. Sets the time scale of the game loop when one of the
+     * number keys from 1 to the number of time scales is pressed.
+     * @param e the KeyEvent
+     */
+    public void keyPressed(KeyEvent e) {
+        int index = -1;
+        if ((e.getKeyCode() >= KeyEvent.VK_1) && (e.getKeyCode() <= KeyEvent.VK_9)) {
+            index = e.getKeyCode() - KeyEvent.VK_1;
+        } else if ((e.getKeyCode() >= KeyEvent.VK_NUMPAD1) && (e.getKeyCode() <= KeyEvent.VK_NUMPAD9)) {
+            index = e.getKeyCode() - KeyEvent.VK_NUMPAD1;
+        }
+        if ((index >= 0) && (index < GameLoop.TIME_SCALES.length)) {
+            gameLoop.setTimeScale(GameLoop.TIME_SCALES[index]);
+        }
+    }
+
+    // Empty methods required for implementation 
+    public void keyTyped(KeyEvent e) {}
+    public void keyReleased(KeyEvent e) {}
+
+}
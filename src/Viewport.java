@@ -0,0 +1,136 @@
+/**
+ * Viewport.java
+ * The part of the map shown on the screen: where the top left corner of the
+ * screen is on the map and how far the map is zoomed in. Coordinates on the map
+ * are the screen coordinates of the game grid, which are only the same as
+ * coordinates on the screen when the map fits the screen at a zoom of 1.
+ * Viewports are immutable, so a Camera can hand them to the drawing thread.
+ * @author Suyu
+ * @version 1.0
+ */
+public final class Viewport {
+
+    // variables
+    private final double left, top; // map coordinates of the top left corner of the screen
+    private final double zoom; // screen pixels per map pixel
+    private final int width, height; // size of the screen in pixels
+
+    /**
+     * Creates a new Viewport
+     * @param left   the x coordinate on the map of the left edge of the screen
+     * @param top    the y coordinate on the map of the top edge of the screen
+     * @param zoom   the number of screen pixels per map pixel
+     * @param width  the width of the screen in pixels
+     * @param height the height of the screen in pixels
+     */
+    public Viewport(double left, double top, double zoom, int width, int height){
+        this.left = left;
+        this.top = top;
+        this.zoom = zoom;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Gets the x coordinate on the map of the left edge of the screen
+     * @return the left edge of the visible part of the map, in map pixels
+     */
+    public double getLeft(){
+        return left;
+    }
+
+    /**
+     * Gets the y coordinate on the map of the top edge of the screen
+     * @return the top edge of the visible part of the map, in map pixels
+     */
+    public double getTop(){
+        return top;
+    }
+
+    /**
+     * Gets the x coordinate on the map of the right edge of the screen
+     * @return the right edge of the visible part of the map, in map pixels
+     */
+    public double getRight(){
+        return left + width / zoom;
+    }
+
+    /**
+     * Gets the y coordinate on the map of the bottom edge of the screen
+     * @return the bottom edge of the visible part of the map, in map pixels
+     */
+    public double getBottom(){
+        return top + height / zoom;
+    }
+
+    /**
+     * Gets how far the map is zoomed in
+     * @return the number of screen pixels per map pixel
+     */
+    public double getZoom(){
+        return zoom;
+    }
+
+    /**
+     * Gets the width of the screen
+     * @return the width of the screen in pixels
+     */
+    public int getWidth(){
+        return width;
+    }
+
+    /**
+     * Gets the height of the screen
+     * @return the height of the screen in pixels
+     */
+    public int getHeight(){
+        return height;
+    }
+
+    /**
+     * Converts an x coordinate from map coordinates to screen coordinates
+     * @param x the x coordinate on the map
+     * @return the corresponding x coordinate on the screen
+     */
+    public double mapXToScreen(double x){
+        return (x - left) * zoom;
+    }
+
+    /**
+     * Converts a y coordinate from map coordinates to screen coordinates
+     * @param y the y coordinate on the map
+     * @return the corresponding y coordinate on the screen
+     */
+    public double mapYToScreen(double y){
+        return (y - top) * zoom;
+    }
+
+    /**
+     * Converts an x coordinate from screen coordinates to map coordinates
+     * @param x the x coordinate on the screen
+     * @return the corresponding x coordinate on the map, rounded to the nearest pixel
+     */
+    public int screenXToMap(int x){
+        return (int) Math.round(left + x / zoom);
+    }
+
+    /**
+     * Converts a y coordinate from screen coordinates to map coordinates
+     * @param y the y coordinate on the screen
+     * @return the corresponding y coordinate on the map, rounded to the nearest pixel
+     */
+    public int screenYToMap(int y){
+        return (int) Math.round(top + y / zoom);
+    }
+
+    /**
+     * Checks if a point on the map is on the screen or close to it
+     * @param x      the x coordinate of the point on the map
+     * @param y      the y coordinate of the point on the map
+     * @param margin how far off the screen the point can be, in map pixels
+     * @return true if the point is within the margin of the visible part of the map, false otherwise
+     */
+    public boolean isVisible(double x, double y, double margin){
+        return (x >= left - margin) && (x <= getRight() + margin) && (y >= top - margin) && (y <= getBottom() + margin);
+    }
+}